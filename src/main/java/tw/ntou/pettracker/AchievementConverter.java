@@ -8,11 +8,19 @@ public class AchievementConverter {
         AchievementData data = new AchievementData();
         data.id = achievement.getId();
         data.unlocked = achievement.isUnlocked();
+        data.progress = achievement.getProgress();
+        data.unlockedAt = achievement.getUnlockedAt();
+        data.notificationShown = achievement.isNotificationShown();
         return data;
     }
 
     public static Achievement fromData(AchievementData data, Achievement achievement) {
         achievement.setUnlocked(data.unlocked);
+        // 舊版資料沒有進度，已解鎖的視為滿進度
+        int progress = data.unlocked ? Math.max(data.progress, achievement.getMaxProgress()) : data.progress;
+        achievement.setProgress(Math.min(progress, achievement.getMaxProgress()));
+        achievement.setUnlockedAt(data.unlockedAt);
+        achievement.setNotificationShown(data.notificationShown || data.unlocked);
         return achievement;
     }
 }
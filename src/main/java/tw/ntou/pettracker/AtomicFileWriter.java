@@ -0,0 +1,205 @@
+package tw.ntou.pettracker;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 安全寫檔 - 先寫到同目錄的暫存檔並 fsync，再以 rename 原子地取代目標檔，
+ * 寫到一半當機時舊檔仍完整
+ *
+ * 所有寫入由單一執行緒依序處理；短時間內的請求合併成一次提交，
+ * 同一個檔案只寫最後一次的內容，整批共用一次目錄 fsync
+ */
+public class AtomicFileWriter {
+    // 合併提交的等待時間
+    private static final long GROUP_COMMIT_WINDOW_MS = 20;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /** 檔案內容，在寫入執行緒上呼叫 */
+    public interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private static final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "atomic-file-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final Map<File, Request> pending = new LinkedHashMap<>();
+    private static boolean commitScheduled = false;
+
+    private static class Request {
+        Content content;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Request(Content content) {
+            this.content = content;
+        }
+    }
+
+    private AtomicFileWriter() {
+    }
+
+    /**
+     * 排入下一次提交；同一檔案尚未寫入的舊請求會被取代並共用同一個結果
+     */
+    public static CompletableFuture<Void> write(File target, Content content) {
+        File file = target.getAbsoluteFile();
+        synchronized (pending) {
+            Request request = pending.get(file);
+            if (request != null) {
+                request.content = content;
+                return request.done;
+            }
+            request = new Request(content);
+            pending.put(file, request);
+            if (!commitScheduled) {
+                commitScheduled = true;
+                writer.schedule(AtomicFileWriter::commit, GROUP_COMMIT_WINDOW_MS, TimeUnit.MILLISECONDS);
+            }
+            return request.done;
+        }
+    }
+
+    /**
+     * 寫入並等待完成，失敗時拋出 IOException
+     */
+    public static void writeAndWait(File target, Content content) throws IOException {
+        await(write(target, content));
+    }
+
+    /**
+     * 立即提交所有排隊中的寫入並等待完成（關閉程式時使用）
+     */
+    public static void flush() {
+        try {
+            writer.submit(AtomicFileWriter::commit).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void await(CompletableFuture<Void> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待寫檔時被中斷");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static void commit() {
+        Map<File, Request> batch;
+        synchronized (pending) {
+            batch = new LinkedHashMap<>(pending);
+            pending.clear();
+            commitScheduled = false;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // 先寫完並 fsync 所有暫存檔，再逐一換上
+        Map<File, Request> written = new LinkedHashMap<>();
+        for (Map.Entry<File, Request> entry : batch.entrySet()) {
+            File temp = tempFileOf(entry.getKey());
+            try {
+                writeTemp(temp, entry.getValue().content);
+                written.put(entry.getKey(), entry.getValue());
+            } catch (IOException | RuntimeException e) {
+                temp.delete();
+                entry.getValue().done.completeExceptionally(e);
+            }
+        }
+
+        Set<Path> dirs = new LinkedHashSet<>();
+        List<Request> committed = new ArrayList<>(written.size());
+        for (Map.Entry<File, Request> entry : written.entrySet()) {
+            Path target = entry.getKey().toPath();
+            try {
+                replace(tempFileOf(entry.getKey()).toPath(), target);
+                dirs.add(target.getParent());
+                committed.add(entry.getValue());
+            } catch (IOException e) {
+                entry.getValue().done.completeExceptionally(e);
+            }
+        }
+
+        for (Path dir : dirs) {
+            syncDirectory(dir);
+        }
+        for (Request request : committed) {
+            request.done.complete(null);
+        }
+    }
+
+    private static void writeTemp(File temp, Content content) throws IOException {
+        File dir = temp.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("無法建立目錄: " + dir);
+        }
+        try (FileOutputStream file = new FileOutputStream(temp)) {
+            // 序列化工具寫完會關閉串流，這裡只 flush，fsync 之後才真正關檔
+            OutputStream out = new BufferedOutputStream(file) {
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+            content.writeTo(out);
+            out.flush();
+            file.getChannel().force(true);
+        }
+    }
+
+    private static void replace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // 讓 rename 本身也落盤；部分平台不能開啟目錄，略過即可
+    private static void syncDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // 不支援目錄 fsync
+        }
+    }
+
+    private static File tempFileOf(File target) {
+        return new File(target.getParentFile(), target.getName() + TEMP_SUFFIX);
+    }
+}
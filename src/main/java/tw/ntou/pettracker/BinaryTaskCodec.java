@@ -0,0 +1,344 @@
+package tw.ntou.pettracker;
+
+import tw.ntou.pettracker.model.SubTaskData;
+import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskData;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * 任務二進位快照格式
+ *
+ * 檔頭: 魔術字 "PHTB"、版本、任務數、字串數、內容長度、內容 CRC32
+ * 內容: 字串表（描述、標籤、顏色只存一次）+ 每筆任務紀錄
+ * 日期存成 epoch-day，時間存成 epoch-millis（以 UTC 換算，不受時區影響）
+ */
+public class BinaryTaskCodec {
+    private static final int MAGIC = 0x50485442; // "PHTB"
+    public static final short VERSION = 3;
+    // 版本 1 只有基本欄位（無分類、子任務、重複、顏色、時間與完成時間）
+    private static final short VERSION_BASIC = 1;
+    // 版本 3 起加上自訂重複規則與系列 ID
+    private static final short VERSION_RECURRENCE = 3;
+
+    // 每筆紀錄的旗標位元
+    private static final int FLAG_DONE = 1;
+    private static final int FLAG_REMIND = 1 << 1;
+    private static final int FLAG_HAS_DUE_DATE = 1 << 2;
+    private static final int FLAG_HAS_REMIND_AT = 1 << 3;
+    private static final int FLAG_UUID_ID = 1 << 4;
+    private static final int FLAG_HAS_COMPLETED_AT = 1 << 5;
+
+    private static final Task.TaskCategory[] CATEGORIES = Task.TaskCategory.values();
+    private static final Task.RepeatPattern[] PATTERNS = Task.RepeatPattern.values();
+
+    /** 檔案開頭是否為二進位快照 */
+    public static boolean isBinarySnapshot(File file) {
+        if (!file.exists() || file.length() < 4) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** 以暫存檔 + rename 取代整個檔案，寫完才返回 */
+    public static void write(File file, List<TaskData> tasks) throws IOException {
+        AtomicFileWriter.writeAndWait(file, out -> write(out, tasks));
+    }
+
+    public static void write(OutputStream output, List<TaskData> tasks) throws IOException {
+        Map<String, Integer> stringIndex = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(tasks.size() * 24);
+        DataOutputStream records = new DataOutputStream(recordBytes);
+        for (TaskData task : tasks) {
+            writeRecord(records, task, stringIndex, strings);
+        }
+        records.flush();
+
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream(recordBytes.size() + strings.size() * 16);
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+        for (String s : strings) {
+            writeString(body, s);
+        }
+        recordBytes.writeTo(body);
+        body.flush();
+
+        CRC32 crc = new CRC32();
+        byte[] content = bodyBytes.toByteArray();
+        crc.update(content);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(tasks.size());
+            out.writeInt(strings.size());
+            out.writeLong(content.length);
+            out.writeInt((int) crc.getValue());
+            out.write(content);
+        }
+    }
+
+    public static List<TaskData> read(File file) throws IOException {
+        List<TaskData> tasks = new ArrayList<>();
+        read(file, tasks::add);
+        return tasks;
+    }
+
+    /**
+     * 逐筆解碼，CRC 驗證失敗時丟出例外且不送出任何資料
+     */
+    public static void read(File file, Consumer<TaskData> consumer) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            read(in, consumer);
+        } catch (IOException e) {
+            throw new IOException(e.getMessage() + ": " + file, e);
+        }
+    }
+
+    public static void read(InputStream input, Consumer<TaskData> consumer) throws IOException {
+        byte[] content;
+        int taskCount;
+        int stringCount;
+        short version;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("不是任務二進位快照");
+        }
+        version = in.readShort();
+        if (version > VERSION) {
+            throw new IOException("不支援的快照版本: " + version);
+        }
+        taskCount = in.readInt();
+        stringCount = in.readInt();
+        long length = in.readLong();
+        int expectedCrc = in.readInt();
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("快照長度錯誤: " + length);
+        }
+        content = new byte[(int) length];
+        in.readFully(content);
+
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("快照檢查碼不符，檔案可能已損毀");
+        }
+
+        DataInputStream body = new DataInputStream(new ByteArrayInputStream(content));
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            strings[i] = readString(body);
+        }
+        for (int i = 0; i < taskCount; i++) {
+            consumer.accept(readRecord(body, strings, version));
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, TaskData task,
+                                    Map<String, Integer> stringIndex, List<String> strings) throws IOException {
+        UUID uuid = parseUuid(task.id);
+        int flags = 0;
+        if (task.done) flags |= FLAG_DONE;
+        if (task.remind) flags |= FLAG_REMIND;
+        if (task.dueDate != null) flags |= FLAG_HAS_DUE_DATE;
+        if (task.remindAt != null) flags |= FLAG_HAS_REMIND_AT;
+        if (uuid != null) flags |= FLAG_UUID_ID;
+        if (task.completedAt != null) flags |= FLAG_HAS_COMPLETED_AT;
+        out.writeByte(flags);
+
+        if (uuid != null) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else {
+            writeVarInt(out, intern(task.id, stringIndex, strings));
+        }
+        writeVarInt(out, intern(task.description, stringIndex, strings));
+        writeVarInt(out, intern(task.tags, stringIndex, strings));
+        out.writeByte(task.priority);
+        if (task.dueDate != null) {
+            out.writeInt((int) task.dueDate.toEpochDay());
+        }
+        if (task.remindAt != null) {
+            out.writeLong(toEpochMillis(task.remindAt));
+        }
+
+        // 列舉存成 ordinal + 1，0 代表 null
+        out.writeByte(task.category != null ? task.category.ordinal() + 1 : 0);
+        out.writeByte(task.repeatPattern != null ? task.repeatPattern.ordinal() + 1 : 0);
+        writeVarInt(out, intern(task.colorTag, stringIndex, strings));
+        writeVarInt(out, task.estimatedMinutes);
+        writeVarInt(out, task.actualMinutes);
+        if (task.completedAt != null) {
+            out.writeLong(toEpochMillis(task.completedAt));
+        }
+        // 子任務數量 + 1，0 代表 null
+        if (task.subTasks == null) {
+            writeVarInt(out, 0);
+        } else {
+            writeVarInt(out, task.subTasks.size() + 1);
+            for (SubTaskData subTask : task.subTasks) {
+                writeVarInt(out, intern(subTask.description, stringIndex, strings));
+                out.writeBoolean(subTask.done);
+            }
+        }
+        writeVarInt(out, intern(task.recurrence, stringIndex, strings));
+        writeVarInt(out, intern(task.seriesId, stringIndex, strings));
+    }
+
+    private static TaskData readRecord(DataInputStream in, String[] strings, short version) throws IOException {
+        TaskData task = new TaskData();
+        int flags = in.readUnsignedByte();
+        task.done = (flags & FLAG_DONE) != 0;
+        task.remind = (flags & FLAG_REMIND) != 0;
+
+        if ((flags & FLAG_UUID_ID) != 0) {
+            task.id = new UUID(in.readLong(), in.readLong()).toString();
+        } else {
+            task.id = lookup(strings, readVarInt(in));
+        }
+        task.description = lookup(strings, readVarInt(in));
+        task.tags = lookup(strings, readVarInt(in));
+        task.priority = in.readByte();
+        if ((flags & FLAG_HAS_DUE_DATE) != 0) {
+            task.dueDate = LocalDate.ofEpochDay(in.readInt());
+        }
+        if ((flags & FLAG_HAS_REMIND_AT) != 0) {
+            task.remindAt = fromEpochMillis(in.readLong());
+        }
+        if (version == VERSION_BASIC) {
+            return task;
+        }
+
+        task.category = enumAt(CATEGORIES, in.readUnsignedByte());
+        task.repeatPattern = enumAt(PATTERNS, in.readUnsignedByte());
+        task.colorTag = lookup(strings, readVarInt(in));
+        task.estimatedMinutes = readVarInt(in);
+        task.actualMinutes = readVarInt(in);
+        if ((flags & FLAG_HAS_COMPLETED_AT) != 0) {
+            task.completedAt = fromEpochMillis(in.readLong());
+        }
+        int subTaskRef = readVarInt(in);
+        if (subTaskRef > 0) {
+            task.subTasks = new ArrayList<>(subTaskRef - 1);
+            for (int i = 1; i < subTaskRef; i++) {
+                String description = lookup(strings, readVarInt(in));
+                task.subTasks.add(new SubTaskData(description, in.readBoolean()));
+            }
+        }
+        if (version >= VERSION_RECURRENCE) {
+            task.recurrence = lookup(strings, readVarInt(in));
+            task.seriesId = lookup(strings, readVarInt(in));
+        }
+        return task;
+    }
+
+    // 0 代表 null，其餘為字串表索引 + 1
+    private static int intern(String value, Map<String, Integer> stringIndex, List<String> strings) {
+        if (value == null) {
+            return 0;
+        }
+        Integer index = stringIndex.get(value);
+        if (index == null) {
+            index = strings.size();
+            stringIndex.put(value, index);
+            strings.add(value);
+        }
+        return index + 1;
+    }
+
+    private static String lookup(String[] strings, int ref) throws IOException {
+        if (ref == 0) {
+            return null;
+        }
+        if (ref > strings.length) {
+            throw new IOException("字串索引超出範圍: " + ref);
+        }
+        return strings[ref - 1];
+    }
+
+    // 未知的 ordinal（較新版本新增的列舉值）視為 null
+    private static <E> E enumAt(E[] values, int ref) {
+        return ref > 0 && ref <= values.length ? values[ref - 1] : null;
+    }
+
+    private static UUID parseUuid(String id) {
+        if (id == null || id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            // 只有標準格式才能無損還原
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static long toEpochMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static LocalDateTime fromEpochMillis(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000),
+                Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    // 長度以 varint 表示，不受 writeUTF 64KB 的限制
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("varint 格式錯誤");
+    }
+}
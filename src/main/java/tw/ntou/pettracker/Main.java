@@ -6,7 +6,7 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import javafx.scene.control.ScrollPane;
-import tw.ntou.pettracker.service.AchievementManager;
+import tw.ntou.pettracker.service.AchievementStateStore;
 import tw.ntou.pettracker.model.WindowSetting;
 import tw.ntou.pettracker.service.NotificationService;
 
@@ -39,16 +39,15 @@ public class Main extends Application {
             NotificationService notificationService = NotificationService.getInstance();
 
 
-            Persistence.loadAchievementsStatus(AchievementManager.getAllAchievements());
-            System.out.println("成就載入完畢");
+            // 成就狀態在 MainController 初始化時已由 AchievementStateStore 載入
 
             primaryStage.setOnCloseRequest(e -> {
 
                 e.consume();
 
-                Persistence.saveTasks(controller.getTaskList());
-                Persistence.saveAchievementsStatus(AchievementManager.getAllAchievements());
-                System.out.println("💾 資料已保存");
+                controller.saveTasks();
+                AchievementStateStore.getInstance().flush();
+                System.out.println("💾 資料已排入背景儲存");
 
                 primaryStage.hide();
 
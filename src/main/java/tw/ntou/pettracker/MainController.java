@@ -1,12 +1,12 @@
 package tw.ntou.pettracker;
 
+import javafx.animation.AnimationTimer;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.SortedList;
 import javafx.collections.transformation.FilteredList;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -34,7 +34,10 @@ import javafx.util.Duration;
 import tw.ntou.pettracker.model.*;
 import tw.ntou.pettracker.model.Task.TaskCategory;
 
+import tw.ntou.pettracker.service.ClockService;
 import tw.ntou.pettracker.service.NotificationService;
+import tw.ntou.pettracker.service.PersistenceService;
+import tw.ntou.pettracker.service.PetStateStore;
 import tw.ntou.pettracker.service.PetVideoService;
 import tw.ntou.pettracker.service.PetVideoService.PetVideo;
 
@@ -53,14 +56,18 @@ import tw.ntou.pettracker.util.PetVideoGalleryDialog;
 import tw.ntou.pettracker.Persistence;          // ←【務必】 import Persistence
 import tw.ntou.pettracker.util.TableColumnSetup;
 import tw.ntou.pettracker.util.TaskEditDialog;       // ←【務必】 import TaskEditDialog
-import tw.ntou.pettracker.util.TaskMemento;          // ←【務必】 import TaskMemento
+import tw.ntou.pettracker.util.TaskUndoManager;
 
 import java.net.URL;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.ResourceBundle;
-import java.util.Stack;
+import java.util.WeakHashMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.awt.*;
 
 import javafx.scene.control.Dialog;
@@ -74,8 +81,19 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.StageStyle;
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
 import javafx.scene.control.ScrollPane;
+import javafx.stage.FileChooser;
 
 
 /**
@@ -139,9 +157,31 @@ public class MainController implements Initializable {
     @FXML private Button videoGalleryBtn;
 
     // ===== 資料模型 =====
-    private final ObservableList<Task> tasks = FXCollections.observableArrayList();
+    private final TaskStore tasks = new TaskStore();
+    // 每個任務的 slot，下列索引共用，跟著 tasks 同步
+    private final TaskSlots taskSlots = new TaskSlots(tasks);
+    // 統計、成就用的欄式副本
+    private final TaskColumns taskColumns = TaskColumns.create(taskSlots);
+    // 標籤字典 + 每個標籤的 BitSet
+    private final TagIndex tagIndex = TagIndex.create(taskSlots);
+    // 描述、標籤、分類的全文倒排索引
+    private final TaskSearchIndex searchIndex = TaskSearchIndex.create(taskSlots);
+    // 優先級、完成狀態、分類、到期日的點陣圖
+    private final TaskFilterIndex filterIndex = TaskFilterIndex.create(taskSlots);
     private FilteredList<Task> filteredTasks;
     private Pet pet;
+    private boolean loading = true; // 載入中：不重算統計，使用者的變更先排隊
+    private boolean addingLoadedTasks = false; // 正在加入讀進來的任務（已在儲存內容中，不必寫日誌）
+    private boolean loadFailed = false; // 任務沒有完整讀入，不可用記憶體中的清單覆寫儲存內容
+    private final List<Runnable> afterLoad = new ArrayList<>(); // 載入完成後才執行的動作
+    // 載入中的變更等串流讀取結束才寫入，避免與讀取交錯（例如 SQL 分頁讀到剛新增的任務）
+    private final List<Runnable> deferredWrites = new ArrayList<>();
+    // 封存的舊任務（冷資料）只在需要時載入
+    private boolean coldTasksLoaded = false;
+    private boolean restoringColdTasks = false;
+    private List<Runnable> coldTaskCallbacks;
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final long LOAD_FRAME_BUDGET_NANOS = 8_000_000L; // 每個畫格最多花 8ms 加入任務
     private static final int DAILY_GOAL = 5;
     private static final int MONTHLY_GOAL = 30;
 
@@ -158,8 +198,14 @@ public class MainController implements Initializable {
     private ViewMode currentView = ViewMode.TODAY;
 
     // ===== 撤銷/重做 系統 =====
-    private final Stack<TaskMemento> undoStack = new Stack<>();
-    private final Stack<TaskMemento> redoStack = new Stack<>();
+    private TaskUndoManager undoManager;
+    // 套用設定會換上新的主畫面，舊控制器的計時與監聽要在 dispose() 中停掉
+    private Timeline periodicUpdates;
+    private final Consumer<LocalDate> rolloverListener = day -> onDayRollover();
+    // 批量操作中完成的任務，結束時一起處理
+    private final List<Task> completedInBatch = new ArrayList<>();
+    // 已掛上監聽的任務（撤銷刪除時同一個任務會再加入）
+    private final Set<Task> listenedTasks = Collections.newSetFromMap(new WeakHashMap<>());
 
 
     @Override
@@ -192,6 +238,8 @@ public class MainController implements Initializable {
 
     private void initializePet() {
         pet = new Pet();
+        // 還原上次的寵物狀態，之後的變化由 PetStateStore 延遲寫入
+        PetStateStore.getInstance().bind(pet);
 
         // 載入寵物圖片 (若無法讀取則顯示警告)
         try {
@@ -204,6 +252,9 @@ public class MainController implements Initializable {
 
     private void initializeServices() {
         notificationService = NotificationService.getInstance();
+        // 提醒到時以 id 找回目前的任務（可能已刪除或改了提醒時間）
+        notificationService.setTaskLookup(tasks::findById);
+        notificationService.setDueIndex(filterIndex);
     }
     private void initializeplayChance(){
         petController.setPlayChanceLabel(playChanceLabel);
@@ -212,6 +263,11 @@ public class MainController implements Initializable {
         // 初始化動畫控制器
         animationController = new AnimationController(petImage, table, petPanel);
 
+        tasks.addBatchCommitListener(this::onBatchCommitted);
+
+        // 初始化撤銷/重做
+        undoManager = new TaskUndoManager(tasks, TaskUndoManager.limitFromProperty());
+
         // 初始化任務控制器
         taskController = new TaskController(tasks, this::saveState);
         taskController.setAnimationController(animationController);
@@ -231,7 +287,11 @@ public class MainController implements Initializable {
 
 
         // 初始化篩選控制器
-        filterController = new FilterController(tasks);
+        filterController = FilterController.create(tasks);
+        filterController.setTaskSlots(taskSlots);
+        filterController.setTagIndex(tagIndex);
+        filterController.setSearchIndex(searchIndex);
+        filterController.setFilterIndex(filterIndex);
         filterController.setSearchField(searchField);
         filterController.setFilterPriorityBox(filterPriorityBox);
         filterController.setFilterStatusBox(filterStatusBox);
@@ -239,16 +299,18 @@ public class MainController implements Initializable {
         filterController.setClearFiltersBtn(clearFiltersBtn);
 
         // 初始化統計控制器
-        statisticsController = new StatisticsController(tasks);
+        statisticsController = new StatisticsController(taskColumns);
         statisticsController.setLabels(totalTasksLabel, completedTasksLabel,
                 pendingTasksLabel, todayTasksLabel,
                 overdueTasksLabel, completionRateLabel);
         statisticsController.setProgressBars(completionRateBar, dailyProgressLabel,
                 monthlyProgressLabel);
         statisticsController.setStatsButton(statsButton);
+        statisticsController.setDialogPreparer(this::whenLoaded);
+        statisticsController.setHistorySource(Persistence::streamTaskHistory);
 
         // 初始化成就控制器
-        achievementController = new AchievementController(tasks);
+        achievementController = new AchievementController(taskColumns);
         achievementController.setAchievementButton(achievementButton);
         achievementController.setStreakLabel(streakLabel);
         achievementController.setNotificationService(notificationService);
@@ -276,20 +338,40 @@ public class MainController implements Initializable {
 
         // 初始化篩選列表
         filteredTasks = filterController.getFilteredTasks();
-        SortedList<Task> sortedTasks = new SortedList<>(filterController.getFilteredTasksAsList());
-        table.setItems(sortedTasks);
+        filterController.setTableView(table);
 
         // 設定任務監聽器
         tasks.addListener((ListChangeListener<Task>) c -> {
+            // 同一次變更中被移除又加入的任務（整批替換）只是換位置，不重新註冊
+            Set<Task> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<Task> added = new ArrayList<>();
             while (c.next()) {
+                if (c.wasRemoved()) {
+                    removed.addAll(c.getRemoved());
+                }
                 if (c.wasAdded()) {
-                    for (Task t : c.getAddedSubList()) {
-                        setupTaskListeners(t);
-                        notificationService.scheduleTaskReminder(t);
-                    }
+                    added.addAll(c.getAddedSubList());
                 }
             }
-            updateAllControllers();
+            for (Task t : added) {
+                if (removed.remove(t)) {
+                    continue;
+                }
+                if (listenedTasks.add(t)) {
+                    setupTaskListeners(t);
+                }
+                notificationService.scheduleTaskReminder(t);
+                if (!addingLoadedTasks && !restoringColdTasks) {
+                    persist(() -> Persistence.recordTaskChanged(t));
+                }
+            }
+            for (Task t : removed) {
+                persist(() -> Persistence.recordTaskDeleted(t));
+            }
+            // 批量操作中由 onBatchCommitted 統一更新
+            if (!loading && !tasks.isInBatch()) {
+                updateAllControllers();
+            }
         });
 
         // 初始化鍵盤快捷鍵
@@ -298,7 +380,7 @@ public class MainController implements Initializable {
                 () -> themeController.showThemeDialog());
 
         // 初始化拖放
-        DragDropManager.setupDragDrop(table, this::moveTask);
+        DragDropManager.setupDragDrop(table, filterController::isManualOrder, this::moveTask);
     }
 
     private void setupViewTabs() {
@@ -324,7 +406,7 @@ public class MainController implements Initializable {
         }
 
         if (datePicker != null) {
-            datePicker.setValue(LocalDate.now());
+            datePicker.setValue(ClockService.getInstance().today());
         }
 
         if (prioBox != null) {
@@ -371,30 +453,85 @@ public class MainController implements Initializable {
     }
 
     private void setupTaskListeners(Task task) {
-        task.doneProperty().addListener((o, ov, nv) -> {
-            updateAllControllers();
-            if (nv) {
-                handleTaskCompletion(task);
+        // 任何欄位變更都只附加一筆日誌；完成狀態也從這裡接，不必替每個任務建立 doneProperty
+        task.addFieldChangeListener((t, field, ov, nv) -> {
+            persist(() -> Persistence.recordTaskChanged(t));
+            if ("done".equals(field)) {
+                doneChanged(t, (Boolean) nv);
+            } else if ("remind".equals(field) || "remindAt".equals(field)) {
+                notificationService.scheduleTaskReminder(t);
             }
         });
     }
 
-    private void handleTaskCompletion(Task task) {
+    private void doneChanged(Task task, boolean done) {
+        // 重做「完成任務」只還原狀態，不再給一次獎勵與通知
+        boolean rewarded = done && !undoManager.isApplying();
+        if (tasks.isInBatch()) {
+            // 批量操作結束時再一起處理
+            if (rewarded) {
+                completedInBatch.add(task);
+            }
+            return;
+        }
+        updateAllControllers();
+        if (rewarded) {
+            handleTaskCompletions(List.of(task));
+        }
+    }
+
+    // 批量操作結束：統計、成就只重算一次，完成的任務合併給獎勵
+    private void onBatchCommitted() {
+        if (loading) {
+            completedInBatch.clear();
+            return;
+        }
+        updateAllControllers();
+        if (!completedInBatch.isEmpty()) {
+            List<Task> completed = new ArrayList<>(completedInBatch);
+            completedInBatch.clear();
+            handleTaskCompletions(completed);
+        }
+    }
+
+    private void handleTaskCompletions(List<Task> completed) {
         animationController.playTaskCompletionAnimation();
-        pet.reactToTaskCompletion(task.getPriority());
+        List<Integer> priorities = new ArrayList<>(completed.size());
+        for (Task task : completed) {
+            priorities.add(task.getPriority());
+        }
+        pet.reactToTaskCompletions(priorities);
         notificationService.showNotification(
                 NotificationService.NotificationType.TASK_DUE,
-                "完成任務: " + task.getDescription()
+                completed.size() == 1
+                        ? "完成任務: " + completed.get(0).getDescription()
+                        : "完成了 " + completed.size() + " 個任務"
         );
         checkDailyGoal();
 
         // 處理重複任務
-        if (task.getRepeatPattern() != null) {
-            Task nextTask = task.createNextRepeatInstance();
-            if (nextTask != null) {
-                Platform.runLater(() -> tasks.add(nextTask));
+        List<Task> nextTasks = new ArrayList<>();
+        for (Task task : completed) {
+            if (task.getRepeatPattern() != null) {
+                Task nextTask = task.createNextRepeatInstance();
+                if (nextTask != null) {
+                    nextTasks.add(nextTask);
+                }
             }
         }
+        if (!nextTasks.isEmpty()) {
+            Platform.runLater(() -> {
+                // 同一系列在同一天已經有任務（例如取消完成後又完成）就不再建立
+                List<Task> toAdd = new ArrayList<>(nextTasks.size());
+                for (Task next : nextTasks) {
+                    if (!TaskOccurrences.hasOccurrence(tasks, next.getSeriesKey(), next.getDueDate())
+                            && !TaskOccurrences.hasOccurrence(toAdd, next.getSeriesKey(), next.getDueDate())) {
+                        toAdd.add(next);
+                    }
+                }
+                tasks.addAll(toAdd);
+            });
+        }
     }
 
     private void loadDataAsync() {
@@ -402,14 +539,163 @@ public class MainController implements Initializable {
             loadingIndicator.setVisible(true);
         }
 
-        CompletableFuture.supplyAsync(Persistence::loadTasks)
-                .thenAcceptAsync(loadedTasks -> {
-                    tasks.addAll(loadedTasks);
-                    updateAllControllers();
+        // 背景執行緒串流讀檔，UI 執行緒每個畫格只加入有限數量的任務
+        ConcurrentLinkedQueue<List<Task>> batches = new ConcurrentLinkedQueue<>();
+        AtomicBoolean finished = new AtomicBoolean(false);
+        // 讀取失敗時為 null
+        AtomicReference<List<String>> storageOrder = new AtomicReference<>();
+
+        AnimationTimer drainer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                long start = System.nanoTime();
+                List<Task> batch;
+                while (System.nanoTime() - start < LOAD_FRAME_BUDGET_NANOS
+                        && (batch = batches.poll()) != null) {
+                    addingLoadedTasks = true;
+                    try {
+                        tasks.addAll(batch);
+                    } finally {
+                        addingLoadedTasks = false;
+                    }
+                }
+                if (finished.get() && batches.isEmpty()) {
+                    stop();
+                    onTasksLoaded(storageOrder.get());
+                }
+            }
+        };
+        drainer.start();
+
+        LocalDate today = ClockService.getInstance().today();
+        CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return Persistence.streamTasks(today, LOAD_BATCH_SIZE, batches::add);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .whenComplete((order, error) -> {
+                    if (error != null) {
+                        error.printStackTrace();
+                    }
+                    storageOrder.set(order);
+                    finished.set(true);
+                });
+    }
+
+    private void onTasksLoaded(List<String> storageOrder) {
+        loading = false;
+        if (storageOrder != null) {
+            restoreStorageOrder(storageOrder);
+        } else {
+            loadFailed = true;
+            MessageUtil.showError("任務資料讀取失敗，只載入了部分任務。\n"
+                    + "為避免遺失資料，這次不會重寫任務檔案；新的變更仍會記錄下來。");
+        }
+        List<Runnable> writes = new ArrayList<>(deferredWrites);
+        deferredWrites.clear();
+        writes.forEach(Runnable::run);
+        if (!loadFailed) {
+            Persistence.compactTasksIfNeeded(tasks);
+        }
+        updateAllControllers();
+        if (loadingIndicator != null) {
+            loadingIndicator.setVisible(false);
+        }
+        List<Runnable> pending = new ArrayList<>(afterLoad);
+        afterLoad.clear();
+        pending.forEach(Runnable::run);
+    }
+
+    // 今日任務先載入，這裡把清單排回儲存時的順序；載入中新增的任務不在儲存內容裡，維持原順序排在最後
+    private void restoreStorageOrder(List<String> storageOrder) {
+        Map<String, Integer> rank = new HashMap<>(storageOrder.size() * 2);
+        for (int i = 0; i < storageOrder.size(); i++) {
+            rank.putIfAbsent(storageOrder.get(i), i);
+        }
+        List<Task> sorted = new ArrayList<>(tasks);
+        sorted.sort(Comparator.comparingInt(t -> rank.getOrDefault(t.getId(), Integer.MAX_VALUE)));
+        tasks.reorder(0, sorted);
+    }
+
+    /** 載入中先排隊，載入完成後依序寫入 */
+    private void persist(Runnable write) {
+        if (loading) {
+            deferredWrites.add(write);
+        } else {
+            write.run();
+        }
+    }
+
+    /** 任務載入完成後才執行 then */
+    private void whenLoaded(Runnable then) {
+        if (loading) {
+            afterLoad.add(then);
+        } else {
+            then.run();
+        }
+    }
+
+    /**
+     * 確保封存的舊任務已載入後再執行 then（「全部」視圖使用）
+     */
+    private void ensureColdTasksLoaded(Runnable then) {
+        if (coldTasksLoaded) {
+            then.run();
+            return;
+        }
+        if (loading) {
+            afterLoad.add(() -> ensureColdTasksLoaded(then));
+            return;
+        }
+        if (coldTaskCallbacks != null) {
+            coldTaskCallbacks.add(then);
+            return;
+        }
+        if (!Persistence.hasColdTasks()) {
+            coldTasksLoaded = true;
+            then.run();
+            return;
+        }
+
+        coldTaskCallbacks = new ArrayList<>();
+        coldTaskCallbacks.add(then);
+        if (loadingIndicator != null) {
+            loadingIndicator.setVisible(true);
+        }
+        CompletableFuture.supplyAsync(Persistence::loadColdTasks)
+                .whenComplete((cold, error) -> Platform.runLater(() -> {
+                    if (error != null) {
+                        error.printStackTrace();
+                    } else {
+                        addColdTasks(cold);
+                        coldTasksLoaded = true;
+                    }
                     if (loadingIndicator != null) {
                         loadingIndicator.setVisible(false);
                     }
-                }, Platform::runLater);
+                    List<Runnable> callbacks = coldTaskCallbacks;
+                    coldTaskCallbacks = null;
+                    callbacks.forEach(Runnable::run);
+                }));
+    }
+
+    private void addColdTasks(List<Task> cold) {
+        // 已在記憶體中的任務（例如剛被修改而移回主儲存庫）以記憶體版本為準
+        Set<String> addedIds = new HashSet<>();
+        List<Task> toAdd = new ArrayList<>(cold.size());
+        for (Task task : cold) {
+            if (!tasks.containsId(task.getId()) && addedIds.add(task.getId())) {
+                toAdd.add(task);
+            }
+        }
+        restoringColdTasks = true;
+        try {
+            tasks.addAll(toAdd);
+        } finally {
+            restoringColdTasks = false;
+        }
     }
 
     // ===== 視圖切換方法 =====
@@ -430,22 +716,19 @@ public class MainController implements Initializable {
         currentView = ViewMode.ALL;
         filterController.setViewMode(currentView);
         if (allTab != null) allTab.setSelected(true);
+        ensureColdTasksLoaded(() -> { });
     }
 
     // ===== 任務操作方法 =====
     @FXML
     private void onClearFilters() {
-        // 先清掉所有篩選條件
+        // 清掉所有篩選條件並回到手動排序（會重新套用篩選與排序）
         filterController.clearAllFilters();
-        // 套用清除後的篩選（讓表格顯示更新）
-        filterController.applyFilters();
-        // 重新用預設排序（這裡範例是按到期日排序，可改成你想要的 預設 排序字串）
-        filterController.applySorting("📅 按到期日排序");
     }
     @FXML
     private void onAddTask() {
         String desc = descField != null ? descField.getText().trim() : "";
-        LocalDate due = datePicker != null ? datePicker.getValue() : LocalDate.now();
+        LocalDate due = datePicker != null ? datePicker.getValue() : ClockService.getInstance().today();
         Integer prio = prioBox != null ? prioBox.getValue() : 3;
         TaskCategory category = categoryFilter != null
                 ? categoryFilter.getValue()
@@ -477,9 +760,8 @@ public class MainController implements Initializable {
 
     @FXML
     private void onBatchComplete() {
-        taskController.batchComplete(table.getSelectionModel().getSelectedItems(), pet);
+        taskController.batchComplete(table.getSelectionModel().getSelectedItems());
         table.getSelectionModel().clearSelection();
-        updateAllControllers();
     }
 
     @FXML
@@ -490,12 +772,12 @@ public class MainController implements Initializable {
 
     private void editTask(Task task) {
         TaskEditDialog dialog = new TaskEditDialog(task);
-        dialog.showAndWait().ifPresent(result -> {
-            saveState("編輯任務");
+        // 對話框按下確定時才寫回任務，整段期間的變更記成一個動作
+        undoManager.record("編輯任務", () -> dialog.showAndWait().ifPresent(result -> {
             table.refresh();
             updateAllControllers();
             MessageUtil.showMessage("任務已更新: " + result.getDescription());
-        });
+        }));
     }
 
     private void deleteTask(Task task) {
@@ -506,10 +788,17 @@ public class MainController implements Initializable {
         }
     }
 
-    private void moveTask(int fromIndex, int toIndex) {
-        if (fromIndex == toIndex) return;
+    // 依 id 找被拖曳的任務，放到 dropTarget 的位置（null 表示移到最後）
+    private void moveTask(String draggedId, Task dropTarget) {
+        Task dragged = tasks.findById(draggedId);
+        // 載入完成時會排回儲存順序，載入中的拖放不保留
+        if (loading || dragged == null || dragged == dropTarget) return;
+        int fromIndex = tasks.indexOf(dragged);
+        int toIndex = dropTarget != null ? tasks.indexOf(dropTarget) : tasks.size();
+        if (toIndex < 0) return;
         saveState("移動任務");
         taskController.moveTask(tasks, fromIndex, toIndex);
+        Persistence.recordTaskOrderChanged();
     }
 
     // ===== 輔助方法 =====
@@ -525,7 +814,7 @@ public class MainController implements Initializable {
             descField.clear();
             descField.requestFocus();
         }
-        if (datePicker != null) datePicker.setValue(LocalDate.now());
+        if (datePicker != null) datePicker.setValue(ClockService.getInstance().today());
         if (prioBox != null) prioBox.getSelectionModel().select(2);
         if (categoryFilter != null) categoryFilter.setValue(null);
     }
@@ -558,24 +847,20 @@ public class MainController implements Initializable {
     }
 
     private void checkDailyGoal() {
-        LocalDate today = LocalDate.now();
-        long todayCompleted = tasks.stream()
-                .filter(Task::isDone)
-                .filter(t -> t.getCompletedAt() != null &&
-                        t.getCompletedAt().toLocalDate().equals(today))
-                .count();
+        LocalDate today = ClockService.getInstance().today();
+        int todayCompleted = taskColumns.countCompletedBetween(today, today);
 
         if (todayCompleted >= DAILY_GOAL) {
-            if (Persistence.loadLastRewardDate() == null || !Persistence.loadLastRewardDate().equals(LocalDate.now())) {
+            // 領獎日期只看記憶體中的寵物狀態，不讀檔
+            if (!today.equals(pet.getLastRewardDate())) {
                 // 沒領過，給獎勵
                 notificationService.showNotification(
                         NotificationService.NotificationType.DAILY_GOAL_REACHED,
                         "恭喜！您已達成今日目標，獲得2次玩耍機會！"
                 );
                 pet.addPlayChance(2);
-                pet.setLastRewardDate(LocalDate.now());
+                pet.setLastRewardDate(today);
                 petController.celebrateDailyGoal();
-                Persistence.saveLastRewardDate(LocalDate.now());
             }
             playChanceLabel.setText("剩餘玩耍次數：" + pet.getPlayChances());
         }
@@ -588,15 +873,33 @@ public class MainController implements Initializable {
                         pet.timePass();
                         petController.timePasses();
                     }
-                    Persistence.saveTasks(tasks);
+                    // 變更已即時寫入日誌，這裡只在需要時於背景壓縮
+                    if (!loading && !loadFailed) {
+                        Persistence.compactTasksIfNeeded(tasks);
+                    }
+                    // 電腦睡眠時錯過午夜計時器，這裡補檢查（同一天不會重複通知）
+                    ClockService.getInstance().refresh();
                 })
         );
         timeline.setCycleCount(Timeline.INDEFINITE);
         timeline.play();
+        periodicUpdates = timeline;
+
+        ClockService.getInstance().addRolloverListener(rolloverListener);
+        ClockService.getInstance().start();
 
         notificationService.startPeriodicChecks(tasks, pet);
     }
 
+    // 換日：今日視圖、逾期狀態、統計與連續天數各重算一次
+    private void onDayRollover() {
+        filterController.applyFilters();
+        table.refresh();
+        if (!loading) {
+            updateAllControllers();
+        }
+    }
+
     // ===== 顯示影片相簿方法 =====
 
     /**
@@ -650,28 +953,24 @@ public class MainController implements Initializable {
 
     // ===== 撤銷/重做 系統 =====
 
+    // 在變更前呼叫，之後同一事件內的變更都記成這個動作
     private void saveState(String description) {
-        undoStack.push(new TaskMemento(tasks, description));
-        redoStack.clear();
+        undoManager.begin(description);
     }
 
     private void undo() {
-        if (!undoStack.isEmpty()) {
-            redoStack.push(new TaskMemento(tasks, "Current"));
-            TaskMemento previousState = undoStack.pop();
-            tasks.clear();
-            tasks.addAll(previousState.getTasks());
-            MessageUtil.showMessage("撤銷: " + previousState.getDescription());
+        String description = undoManager.undo();
+        if (description != null) {
+            table.refresh();
+            MessageUtil.showMessage("撤銷: " + description);
         }
     }
 
     private void redo() {
-        if (!redoStack.isEmpty()) {
-            undoStack.push(new TaskMemento(tasks, "Current"));
-            TaskMemento nextState = redoStack.pop();
-            tasks.clear();
-            tasks.addAll(nextState.getTasks());
-            MessageUtil.showMessage("重做: " + nextState.getDescription());
+        String description = undoManager.redo();
+        if (description != null) {
+            table.refresh();
+            MessageUtil.showMessage("重做: " + description);
         }
     }
 
@@ -685,6 +984,13 @@ public class MainController implements Initializable {
         return pet;
     }
 
+    /** 排入背景儲存任務（載入尚未完成或讀取失敗時清單不完整，不可寫回快照） */
+    public void saveTasks() {
+        if (!loading && !loadFailed) {
+            PersistenceService.getInstance().saveTasks(tasks);
+        }
+    }
+
     public WindowSetting saveState(Stage stage){
         WindowSetting settings = new WindowSetting();
         settings.setMaximized(stage.isMaximized());
@@ -697,10 +1003,26 @@ public class MainController implements Initializable {
     }
 
     public void shutdown() {
-        Persistence.saveTasks(tasks);
+        saveTasks();
+        PersistenceService.getInstance().flush();
         notificationService.exitApplication();
     }
 
+    /**
+     * 主畫面被新的取代前呼叫（套用設定）：停止定期更新、換日監聽與定期通知檢查，
+     * 舊的控制器不再動到任務檔案。「背景執行」只是隱藏視窗，不呼叫
+     */
+    public void dispose() {
+        if (periodicUpdates != null) {
+            periodicUpdates.stop();
+        }
+        ClockService.getInstance().removeRolloverListener(rolloverListener);
+        notificationService.stopPeriodicChecks();
+        if (filterController != null) {
+            filterController.dispose();
+        }
+    }
+
     @FXML
     private void onSettingsClicked() {
         //建立彈出視窗
@@ -733,7 +1055,8 @@ public class MainController implements Initializable {
 
         // 套用並重啟畫面按鈕
         Button applyButton = new Button("套用");
-        applyButton.setOnAction(e -> {
+        // 載入完成前清單不完整，無法存檔，等載入完成再換畫面
+        applyButton.setOnAction(e -> whenLoaded(() -> {
             boolean maximized = maximizeCheckBox.isSelected();
             String selectedRes = resolutionComboBox.getValue();
             boolean undecorated = undecoratedCheckBox.isSelected();
@@ -743,11 +1066,15 @@ public class MainController implements Initializable {
             setting.setMaximized(maximized);
             setting.setResolution(selectedRes);
             setting.setUndecorated(undecorated);
-            Persistence.saveWindowSettings(setting);
-            Persistence.saveTasks(getTaskList());
+            PersistenceService persistenceService = PersistenceService.getInstance();
+            persistenceService.saveWindowSettings(setting);
+            saveTasks();
+            // 新視窗會重新從檔案載入，必須先等寫入完成
+            persistenceService.flush();
             System.out.println("💾 資料已保存");
-            
-            // 關閉目前視窗
+
+            // 關閉目前視窗，舊控制器停止運作
+            dispose();
             stage.close();
 
             // 重新開啟主視窗
@@ -778,7 +1105,7 @@ public class MainController implements Initializable {
             }
 
             dialog.close();
-        });
+        }));
 
         // 背景執行按鈕
         Button backgroundBtn = new Button("背景執行");
@@ -791,8 +1118,10 @@ public class MainController implements Initializable {
         Button exitButton = new Button("結束程式");
         exitButton.setOnAction(e -> {
             // 儲存任務資料
-            Persistence.saveTasks(getTaskList());
-            Persistence.saveWindowSettings(saveState(stage));
+            PersistenceService persistenceService = PersistenceService.getInstance();
+            saveTasks();
+            persistenceService.saveWindowSettings(saveState(stage));
+            persistenceService.flush();
             System.out.println("💾 資料已保存");
 
             Platform.exit();
@@ -801,13 +1130,91 @@ public class MainController implements Initializable {
 
         });
 
+        // 任務匯出 / 匯入（JSON）
+        Button exportButton = new Button("匯出任務 (JSON)");
+        exportButton.setOnAction(e -> exportTasks(stage));
+        Button importButton = new Button("匯入任務 (JSON)");
+        importButton.setOnAction(e -> importTasks(stage));
+        HBox dataBox = new HBox(5, exportButton, importButton);
+
         // 加入所有控制元件
-        content.getChildren().addAll(maximizeCheckBox,resolutionBox,undecoratedCheckBox,backgroundBtn,applyButton,exitButton);
+        content.getChildren().addAll(maximizeCheckBox,resolutionBox,undecoratedCheckBox,dataBox,backgroundBtn,applyButton,exitButton);
 
         dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
         dialog.getDialogPane().setContent(content);
         dialog.showAndWait();
     }
 
+    private FileChooser createJsonChooser(String title) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle(title);
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("JSON", "*.json"));
+        return chooser;
+    }
+
+    private void exportTasks(Stage owner) {
+        whenLoaded(() -> exportAllTasks(owner));
+    }
 
+    // 記憶體中的任務在 FX 執行緒取快照，封存任務在背景串流接在後面
+    private void exportAllTasks(Stage owner) {
+        FileChooser chooser = createJsonChooser("匯出任務");
+        chooser.setInitialFileName("tasks-export.json");
+        File file = chooser.showSaveDialog(owner);
+        if (file == null) {
+            return;
+        }
+        List<TaskData> live = Persistence.toDataList(tasks);
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return Persistence.exportTasksJson(file, live);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }).whenComplete((count, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                error.printStackTrace();
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                MessageUtil.showError("匯出失敗: " + cause.getMessage());
+            } else {
+                MessageUtil.showInfo("已匯出 " + count + " 個任務");
+            }
+        }));
+    }
+
+    private void importTasks(Stage owner) {
+        File file = createJsonChooser("匯入任務").showOpenDialog(owner);
+        if (file != null) {
+            // 清單載入完成後才比對，避免重複加入尚未載入的任務
+            whenLoaded(() -> importTasksFrom(file));
+        }
+    }
+
+    // 讀檔與比對封存在背景進行，回到 FX 執行緒再略過已在清單中的任務
+    private void importTasksFrom(File file) {
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return Persistence.importTasksJson(file);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }).whenComplete((read, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                error.printStackTrace();
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                MessageUtil.showError("匯入失敗: " + cause.getMessage());
+                return;
+            }
+            // 已存在相同 id 的任務不重複加入
+            Set<String> importedIds = new HashSet<>();
+            List<Task> imported = new ArrayList<>();
+            for (Task task : read) {
+                if (!tasks.containsId(task.getId()) && importedIds.add(task.getId())) {
+                    imported.add(task);
+                }
+            }
+            tasks.addAll(imported);
+            MessageUtil.showInfo("已匯入 " + imported.size() + " 個任務");
+        }));
+    }
 }
@@ -1,13 +1,27 @@
 package tw.ntou.pettracker;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.type.CollectionType;
 import tw.ntou.pettracker.model.*;
+import tw.ntou.pettracker.repository.BinaryTaskRepository;
+import tw.ntou.pettracker.repository.FileTaskRepository;
+import tw.ntou.pettracker.repository.JsonTaskRepository;
+import tw.ntou.pettracker.repository.SqlTaskRepository;
+import tw.ntou.pettracker.repository.TaskRepository;
 
 import java.io.File;
 import java.io.IOException;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
@@ -19,92 +33,390 @@ public class Persistence {
     private static final File ACHIEVEMENTS_FILE = new File("achievements.json");
     private static final File SETTINGS_FILE = new File("settings.json"); //設定控制文件
     private static final File PET_FILE = new File("PET.json"); //設定控制文件
+    private static final File JOURNAL_FILE = new File("tasks.journal"); // 任務變更日誌
+    private static final File BINARY_FILE = new File("tasks.bin"); // 二進位任務快照
+    private static final String SQL_URL = "jdbc:h2:./tasks"; // 內嵌式資料庫
+    private static final File SQL_FILE = new File("tasks.mv.db");
+    private static final File ARCHIVE_DIR = new File("archive"); // 壓縮封存的已完成任務
+
+    /** 任務儲存方式，預設 JSON，以 -Dpettracker.storage=binary 或 sql 切換 */
+    public enum StorageType {
+        JSON, BINARY, SQL
+    }
 
     // 時間格式化的 eg. 2025-05-12
     static {
         mapper.registerModule(new JavaTimeModule());
         mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.registerModule(TaskDataJsonCodec.module());
     }
 
-    // task -> json
-    public static void saveTasks(List<Task> taskList) {
-        List<TaskData> dataList = new ArrayList<>();
+    private static final TaskJournal journal = new TaskJournal(JOURNAL_FILE, mapper);
+    // 預先建好的讀寫器，每次存取不必重新查找序列化設定
+    private static final ObjectReader taskReader = mapper.readerFor(TaskData.class);
+    private static final ObjectWriter taskWriter = mapper.writerFor(TaskData.class);
+    private static final ObjectWriter taskListWriter = mapper
+            .writerFor(mapper.getTypeFactory().constructCollectionType(List.class, TaskData.class))
+            .withDefaultPrettyPrinter();
+
+    private static volatile TaskRepository taskRepository;
+    private static final TaskArchive archive = new TaskArchive(ARCHIVE_DIR, TaskArchive.ageDaysFromProperty());
+
+    public static TaskRepository getTaskRepository() {
+        if (taskRepository == null) {
+            synchronized (Persistence.class) {
+                if (taskRepository == null) {
+                    taskRepository = createTaskRepository(storageTypeFromProperty());
+                }
+            }
+        }
+        return taskRepository;
+    }
+
+    /** 換成其他儲存庫（測試或外掛實作用），舊的儲存庫會先關閉 */
+    public static synchronized void setTaskRepository(TaskRepository repository) {
+        if (taskRepository != null && taskRepository != repository) {
+            taskRepository.close();
+        }
+        taskRepository = repository;
+    }
+
+    private static StorageType storageTypeFromProperty() {
+        String value = System.getProperty("pettracker.storage", "json");
+        try {
+            return StorageType.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("未知的儲存方式: " + value + "，改用 JSON");
+            return StorageType.JSON;
+        }
+    }
+
+    public static TaskRepository createTaskRepository(StorageType type) {
+        JsonTaskRepository json = new JsonTaskRepository(FILE, journal, taskReader, taskListWriter);
+        BinaryTaskRepository binary = new BinaryTaskRepository(BINARY_FILE, journal);
+        switch (type) {
+            case BINARY:
+                binary.migrateFrom(json);
+                migrateFromDatabase(binary);
+                return binary;
+            case SQL:
+                try {
+                    // 開啟前先取時間，開啟資料庫本身可能會更新檔案
+                    long databaseModified = SQL_FILE.lastModified();
+                    SqlTaskRepository sql = new SqlTaskRepository(SQL_URL, mapper);
+                    long fileModified = fileStorageModified();
+                    if (fileModified > 0 && (sql.isEmpty() || fileModified > databaseModified)) {
+                        // 第一次使用資料庫，或上次以檔案儲存：匯入較新的檔案快照（含日誌）
+                        FileTaskRepository source = BINARY_FILE.lastModified() > FILE.lastModified() ? binary : json;
+                        List<TaskData> existing = new ArrayList<>();
+                        source.readAll(existing::add);
+                        sql.saveAll(existing).get();
+                    }
+                    return sql;
+                } catch (Exception e) {
+                    System.err.println("無法開啟任務資料庫，改用 JSON: " + e.getMessage());
+                    e.printStackTrace();
+                }
+                json.migrateFrom(binary);
+                return json;
+            default:
+                json.migrateFrom(binary);
+                migrateFromDatabase(json);
+                return json;
+        }
+    }
+
+    // 檔案式儲存最後一次寫入的時間（快照或日誌），都不存在時為 0
+    private static long fileStorageModified() {
+        return Math.max(JOURNAL_FILE.lastModified(), Math.max(FILE.lastModified(), BINARY_FILE.lastModified()));
+    }
+
+    /**
+     * 上次以資料庫儲存（資料庫比檔案新）時，先把資料庫內容轉存成檔案快照，不載入過期的檔案
+     */
+    private static void migrateFromDatabase(FileTaskRepository target) {
+        if (SQL_FILE.lastModified() <= fileStorageModified()) {
+            return;
+        }
+        List<TaskData> tasks = new ArrayList<>();
+        SqlTaskRepository sql = null;
+        try {
+            sql = new SqlTaskRepository(SQL_URL, mapper);
+            sql.readAll(tasks::add);
+        } catch (SQLException | IOException e) {
+            System.err.println("無法讀取任務資料庫，沿用檔案快照: " + e.getMessage());
+            return;
+        } finally {
+            if (sql != null) {
+                sql.close();
+            }
+        }
+        // 資料庫關閉後才寫檔，檔案的時間才會比資料庫新
+        await(target.saveAll(tasks));
+        System.out.println("已將任務資料庫轉存為 " + target.getSnapshotFile());
+    }
+
+    /**
+     * task -> 儲存庫（完整內容，檔案式儲存會清空日誌）；
+     * Task 只能在 FX 執行緒讀取，所以在呼叫端轉成 TaskData，序列化與寫檔才交給儲存庫的寫入執行緒
+     */
+    public static Future<?> saveTasks(List<Task> taskList) {
+        return getTaskRepository().saveAll(toHotDataList(taskList));
+    }
+
+    /** 等待背景寫入完成 */
+    public static void await(Future<?> write) {
+        try {
+            write.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // 變更累積過多時才在背景整理
+    public static void compactTasksIfNeeded(List<Task> taskList) {
+        if (getTaskRepository().needsCompaction()) {
+            saveTasks(taskList);
+        }
+    }
+
+    // ===== 個別任務變更 =====
+
+    public static void recordTaskChanged(Task task) {
+        TaskRepository repository = getTaskRepository();
+        repository.upsert(TaskConverter.toData(task));
+        // 被修改的封存任務改存回主儲存庫
+        archive.release(task.getId(), repository::flush);
+    }
+
+    public static void recordTaskDeleted(Task task) {
+        TaskRepository repository = getTaskRepository();
+        repository.delete(task.getId());
+        archive.release(task.getId(), repository::flush);
+    }
+
+    public static void recordTaskOrderChanged() {
+        getTaskRepository().markOrderChanged();
+    }
+
+    public static boolean hasUnsavedTaskChanges() {
+        return getTaskRepository().hasChanges();
+    }
+
+    public static void flushTaskJournal() {
+        getTaskRepository().flush();
+    }
+
+    public static List<TaskData> toDataList(List<Task> taskList) {
+        List<TaskData> dataList = new ArrayList<>(taskList.size());
         for (Task task : taskList) {
             dataList.add(TaskConverter.toData(task));
         }
+        return dataList;
+    }
+
+    // 只含主儲存庫負責的任務（已載入但仍在封存中的任務不重複寫入）
+    public static List<TaskData> toHotDataList(List<Task> taskList) {
+        List<TaskData> dataList = new ArrayList<>(taskList.size());
+        for (Task task : taskList) {
+            if (!archive.isLoaded(task.getId())) {
+                dataList.add(TaskConverter.toData(task));
+            }
+        }
+        return dataList;
+    }
+
+    public static List<Task> toTaskList(List<TaskData> dataList) {
+        List<Task> taskList = new ArrayList<>(dataList.size());
+        for (TaskData data : dataList) {
+            taskList.add(TaskConverter.fromData(data));
+        }
+        return taskList;
+    }
 
+    // 儲存庫 -> task
+    public static List<Task> loadTasks() {
+        List<TaskData> dataList = new ArrayList<>();
         try {
-            mapper.writerWithDefaultPrettyPrinter().writeValue(FILE, dataList);
+            getTaskRepository().readAll(dataList::add);
         } catch (IOException e) {
             e.printStackTrace();
         }
+        return toTaskList(dataList);
     }
 
-    // json -> task
-    public static List<Task> loadTasks() {
-        if (!FILE.exists()) {
-            return new ArrayList<>();
-        }
+    /**
+     * 串流載入任務，今日任務優先，每批透過 sink 送出（在背景執行緒呼叫）；
+     * 完成超過封存天數的任務先移到封存區段，不會送出。
+     * 回傳所有任務依儲存順序排列的 id，載入完成後據此還原清單順序；
+     * 讀取失敗時已讀到的任務照常送出後丟出 IOException
+     */
+    public static List<String> streamTasks(LocalDate today, int batchSize, Consumer<List<Task>> sink) throws IOException {
+        TaskRepository repository = getTaskRepository();
+        archiveColdTasks(repository, today);
+        return repository.stream(today, batchSize, batch -> sink.accept(toTaskList(batch)));
+    }
 
+    // 只查已完成的任務（SQL 儲存方式走 done 索引，不讀未完成的任務）；封存寫入成功後才從主儲存庫移除
+    private static void archiveColdTasks(TaskRepository repository, LocalDate today) {
+        LocalDate cutoff = archive.cutoff(today);
+        List<TaskData> cold = new ArrayList<>();
+        for (TaskData data : repository.findByDone(true)) {
+            if (TaskArchive.isCold(data, cutoff)) {
+                cold.add(data);
+            }
+        }
+        if (cold.isEmpty()) {
+            return;
+        }
         try {
-            CollectionType listType = mapper.getTypeFactory()
-                    .constructCollectionType(List.class, TaskData.class);
-            List<TaskData> dataList = mapper.readValue(FILE, listType);
+            archive.append(cold);
+        } catch (IOException e) {
+            e.printStackTrace();
+            // 封存失敗就照常當成熱資料載入
+            return;
+        }
+        for (TaskData data : cold) {
+            repository.delete(data.id);
+        }
+        // 刪除寫入後才串流，載入的清單不含已封存的任務
+        repository.flush();
+        System.out.println("已封存 " + cold.size() + " 個舊的已完成任務");
+    }
 
-            List<Task> taskList = new ArrayList<>();
-            for (TaskData data : dataList) {
-                taskList.add(TaskConverter.fromData(data));
-            }
-            return taskList;
+    // ===== 封存的已完成任務 =====
+
+    public static boolean hasColdTasks() {
+        return !archive.isEmpty();
+    }
+
+    /**
+     * 讀取所有封存任務並轉成 Task（「全部」視圖使用，在背景執行緒呼叫）
+     */
+    public static List<Task> loadColdTasks() {
+        try {
+            return toTaskList(archive.loadAll());
         } catch (IOException e) {
             e.printStackTrace();
             return new ArrayList<>();
         }
     }
 
-    public static void saveAchievementsStatus(List<Achievement> achievements) {
+    /**
+     * 逐筆串流不在記憶體中的封存任務（統計、匯出使用，在背景執行緒呼叫）
+     */
+    public static void streamTaskHistory(Consumer<TaskData> consumer) {
+        try {
+            archive.stream(null, null, data -> {
+                if (!archive.isLoaded(data.id)) {
+                    consumer.accept(data);
+                }
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // ===== JSON 匯入 / 匯出（不受快照格式影響） =====
+
+    /**
+     * 匯出記憶體中的任務，再串流接上封存任務，回傳匯出筆數
+     */
+    public static int exportTasksJson(File file, List<TaskData> liveTasks) throws IOException {
+        int[] count = {0};
+        AtomicFileWriter.writeAndWait(file, out -> {
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+                generator.useDefaultPrettyPrinter();
+                generator.writeStartArray();
+                for (TaskData data : liveTasks) {
+                    taskWriter.writeValue(generator, data);
+                }
+                count[0] = liveTasks.size();
+                IOException[] failure = {null};
+                streamTaskHistory(data -> {
+                    if (failure[0] != null) {
+                        return;
+                    }
+                    try {
+                        taskWriter.writeValue(generator, data);
+                        count[0]++;
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                });
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+                generator.writeEndArray();
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * 讀取匯入檔（在背景執行緒呼叫）；封存中已有的任務不匯入，否則同一任務會同時存在主儲存庫與封存
+     */
+    public static List<Task> importTasksJson(File file) throws IOException {
+        Set<String> archived = new HashSet<>();
+        archive.stream(null, null, data -> archived.add(data.id));
+        List<Task> taskList = new ArrayList<>();
+        TaskStreamLoader.jsonReader(file, taskReader).read(data -> {
+            if (data.id == null || !archived.contains(data.id)) {
+                taskList.add(TaskConverter.fromData(data));
+            }
+        });
+        return taskList;
+    }
+
+    // ===== 小型設定檔（交給 AtomicFileWriter 合併提交，不等待） =====
+
+    private static void writeLater(File file, Object value) {
+        AtomicFileWriter.write(file, out -> mapper.writerWithDefaultPrettyPrinter().writeValue(out, value))
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        System.err.println("寫入 " + file + " 失敗");
+                        error.printStackTrace();
+                    }
+                });
+    }
+
+    /** 等待所有排隊中的檔案寫入完成 */
+    public static void awaitPendingWrites() {
+        AtomicFileWriter.flush();
+    }
+
+    public static List<AchievementData> toAchievementDataList(List<Achievement> achievements) {
         List<AchievementData> dataList = new ArrayList<>();
         for (Achievement achievement : achievements) {
             dataList.add(AchievementConverter.toData(achievement));
         }
+        return dataList;
+    }
 
-        try {
-            mapper.writerWithDefaultPrettyPrinter().writeValue(ACHIEVEMENTS_FILE, dataList);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    public static void saveAchievementData(List<AchievementData> dataList) {
+        writeLater(ACHIEVEMENTS_FILE, dataList);
     }
 
-    public static void loadAchievementsStatus(List<Achievement> achievements) {
+    public static List<AchievementData> loadAchievementData() {
         if (!ACHIEVEMENTS_FILE.exists()) {
-            return;
+            return new ArrayList<>();
         }
 
         try {
             CollectionType listType = mapper.getTypeFactory()
                     .constructCollectionType(List.class, AchievementData.class);
-            List<AchievementData> dataList = mapper.readValue(ACHIEVEMENTS_FILE, listType);
-
-            for (AchievementData data : dataList) {
-                for (Achievement achievement : achievements) {
-                    if (achievement.getId().equals(data.id)) {
-                        AchievementConverter.fromData(data, achievement);
-                        break;
-                    }
-                }
-            }
+            return mapper.readValue(ACHIEVEMENTS_FILE, listType);
         } catch (IOException e) {
             e.printStackTrace();
+            return new ArrayList<>();
         }
     }
 
     //儲存視窗設定
     public static void saveWindowSettings(WindowSetting settings) {
-        try {
-            mapper.writerWithDefaultPrettyPrinter().writeValue(SETTINGS_FILE, settings);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        writeLater(SETTINGS_FILE, settings);
     }
 
     // 讀取視窗設定
@@ -127,30 +439,21 @@ public class Persistence {
         }
     }
 
-    public static void saveLastRewardDate(LocalDate date) {
-        PetStatus status = new PetStatus();
-        status.setLastRewardDate(date.toString());
-        try {
-            mapper.writerWithDefaultPrettyPrinter().writeValue(PET_FILE, status);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    // 寵物完整狀態
+    public static void savePetStatus(PetStatus status) {
+        writeLater(PET_FILE, status);
     }
 
-    public static LocalDate loadLastRewardDate() {
+    public static PetStatus loadPetStatus() {
         if (!PET_FILE.exists()) {
             return null;
         }
 
         try {
-            PetStatus status = mapper.readValue(PET_FILE, PetStatus.class);
-            return LocalDate.parse(status.getLastRewardDate());
-        } catch (IOException | NullPointerException e) {
+            return mapper.readValue(PET_FILE, PetStatus.class);
+        } catch (IOException e) {
             e.printStackTrace();
             return null;
         }
     }
-
-
-
 }
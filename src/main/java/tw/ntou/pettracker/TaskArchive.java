@@ -0,0 +1,342 @@
+package tw.ntou.pettracker;
+
+import tw.ntou.pettracker.model.TaskData;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 已完成任務的壓縮封存 - 完成超過一定天數的任務移出主儲存庫，寫成只會新增的區段檔
+ * （archive/segment-000001.seg），啟動時不載入，統計與匯出需要歷史資料時逐筆串流讀取
+ *
+ * 區段檔: 依完成月份分成多個 gzip 區塊（內容為 BinaryTaskCodec 格式）+ 未壓縮的檔尾索引
+ * 檔尾: 魔術字、版本、每個區塊的位置/長度/筆數/完成日期範圍、墓碑 id（作廢較舊區段中的任務）
+ * 結尾 12 bytes: 檔尾位置 + 魔術字
+ *
+ * 讀取時由新到舊掃描，同一 id 只取最新一筆；區段太多時整併成一個
+ */
+public class TaskArchive {
+    /** 預設完成 90 天後封存，以 -Dpettracker.archiveAfterDays 調整 */
+    public static final int DEFAULT_AGE_DAYS = 90;
+    private static final int MAGIC = 0x50485441; // "PHTA"
+    private static final short VERSION = 1;
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".seg";
+    private static final int TRAILER_LENGTH = 12;
+    // 超過這個數量的區段就整併
+    private static final int MAX_SEGMENTS = 8;
+
+    private final File dir;
+    private final int ageDays;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "task-archive");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // 已載入記憶體、仍存放在區段中的任務
+    private final Set<String> loaded = ConcurrentHashMap.newKeySet();
+    // 等待寫入墓碑的 id
+    private final Set<String> released = new LinkedHashSet<>();
+
+    /** 區段中一個 gzip 區塊的索引 */
+    private static class Block {
+        long offset;
+        int length;
+        int count;
+        LocalDate from;
+        LocalDate to;
+    }
+
+    /** 區段檔尾 */
+    private static class Footer {
+        final List<Block> blocks = new ArrayList<>();
+        final List<String> tombstones = new ArrayList<>();
+    }
+
+    public TaskArchive(File dir, int ageDays) {
+        this.dir = dir;
+        this.ageDays = ageDays;
+    }
+
+    public static int ageDaysFromProperty() {
+        String value = System.getProperty("pettracker.archiveAfterDays");
+        if (value == null) {
+            return DEFAULT_AGE_DAYS;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            System.err.println("封存天數格式錯誤: " + value + "，改用 " + DEFAULT_AGE_DAYS);
+            return DEFAULT_AGE_DAYS;
+        }
+    }
+
+    /** 用於封存與索引的完成日期（沒有完成時間則用到期日） */
+    public static LocalDate dateOf(TaskData task) {
+        if (task.completedAt != null) {
+            return task.completedAt.toLocalDate();
+        }
+        return task.dueDate;
+    }
+
+    /** 完成日期早於此日的已完成任務要封存 */
+    public LocalDate cutoff(LocalDate today) {
+        return today.minusDays(ageDays);
+    }
+
+    public static boolean isCold(TaskData task, LocalDate cutoff) {
+        LocalDate date = dateOf(task);
+        return task.done && date != null && date.isBefore(cutoff);
+    }
+
+    public boolean isEmpty() {
+        return segments().isEmpty();
+    }
+
+    /**
+     * 把任務寫成新的區段（依完成月份分區塊），寫完才返回
+     */
+    public synchronized void append(Collection<TaskData> tasks) throws IOException {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        writeSegment(nextSegment(), tasks, List.of());
+        compactIfNeeded();
+    }
+
+    /**
+     * 由新到舊串流完成日期在 [from, to] 內的任務（null 表示不限），
+     * 只解壓日期範圍重疊的區塊
+     */
+    public synchronized void stream(LocalDate from, LocalDate to, Consumer<TaskData> consumer) throws IOException {
+        Set<String> seen = new HashSet<>();
+        List<File> segments = segments();
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            File segment = segments.get(i);
+            try (RandomAccessFile file = new RandomAccessFile(segment, "r")) {
+                Footer footer = readFooter(file, segment);
+                for (Block block : footer.blocks) {
+                    if ((from != null && block.to.isBefore(from)) || (to != null && block.from.isAfter(to))) {
+                        continue;
+                    }
+                    readBlock(file, block, task -> {
+                        LocalDate date = dateOf(task);
+                        boolean inRange = (from == null || !date.isBefore(from)) && (to == null || !date.isAfter(to));
+                        if (seen.add(task.id) && inRange) {
+                            consumer.accept(task);
+                        }
+                    });
+                }
+                // 墓碑只作廢較舊的區段
+                seen.addAll(footer.tombstones);
+            }
+        }
+    }
+
+    /**
+     * 讀取所有封存任務，並記錄為已載入（「全部」視圖使用）
+     */
+    public List<TaskData> loadAll() throws IOException {
+        List<TaskData> tasks = new ArrayList<>();
+        stream(null, null, tasks::add);
+        for (TaskData task : tasks) {
+            loaded.add(task.id);
+        }
+        return tasks;
+    }
+
+    /** 是否為已載入記憶體、仍存放在封存中的任務 */
+    public boolean isLoaded(String id) {
+        return loaded.contains(id);
+    }
+
+    /**
+     * 已載入的封存任務改存到主儲存庫（被修改或刪除），在背景寫入墓碑；
+     * beforeRemove 在寫入墓碑前執行，用來確保主儲存庫已寫入
+     */
+    public void release(String id, Runnable beforeRemove) {
+        if (!loaded.remove(id)) {
+            return;
+        }
+        synchronized (released) {
+            released.add(id);
+        }
+        writer.execute(() -> {
+            List<String> ids;
+            synchronized (released) {
+                if (released.isEmpty()) {
+                    return;
+                }
+                ids = new ArrayList<>(released);
+                released.clear();
+            }
+            beforeRemove.run();
+            synchronized (this) {
+                try {
+                    writeSegment(nextSegment(), List.of(), ids);
+                    compactIfNeeded();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    // ===== 區段整併 =====
+
+    private void compactIfNeeded() throws IOException {
+        List<File> segments = segments();
+        if (segments.size() <= MAX_SEGMENTS) {
+            return;
+        }
+        List<TaskData> live = new ArrayList<>();
+        stream(null, null, live::add);
+        writeSegment(nextSegment(), live, List.of());
+        // 由舊到新刪除，中途當機時較新的墓碑仍在，不會讓已刪除的任務復活
+        for (File segment : segments) {
+            segment.delete();
+        }
+    }
+
+    // ===== 區段讀寫 =====
+
+    private void writeSegment(File segment, Collection<TaskData> tasks, List<String> tombstones) throws IOException {
+        Map<YearMonth, List<TaskData>> byMonth = new TreeMap<>();
+        for (TaskData task : tasks) {
+            byMonth.computeIfAbsent(YearMonth.from(dateOf(task)), m -> new ArrayList<>()).add(task);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        List<Block> blocks = new ArrayList<>(byMonth.size());
+        for (List<TaskData> monthTasks : byMonth.values()) {
+            Block block = new Block();
+            block.offset = bytes.size();
+            block.count = monthTasks.size();
+            for (TaskData task : monthTasks) {
+                LocalDate date = dateOf(task);
+                if (block.from == null || date.isBefore(block.from)) block.from = date;
+                if (block.to == null || date.isAfter(block.to)) block.to = date;
+            }
+            BinaryTaskCodec.write(new GZIPOutputStream(bytes) {
+                @Override
+                public void close() throws IOException {
+                    // 結束這個 gzip 區塊，但不關閉整個區段
+                    finish();
+                }
+            }, monthTasks);
+            block.length = (int) (bytes.size() - block.offset);
+            blocks.add(block);
+        }
+
+        long footerOffset = bytes.size();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(blocks.size());
+        for (Block block : blocks) {
+            out.writeLong(block.offset);
+            out.writeInt(block.length);
+            out.writeInt(block.count);
+            out.writeInt((int) block.from.toEpochDay());
+            out.writeInt((int) block.to.toEpochDay());
+        }
+        out.writeInt(tombstones.size());
+        for (String id : tombstones) {
+            out.writeUTF(id);
+        }
+        out.writeLong(footerOffset);
+        out.writeInt(MAGIC);
+        out.flush();
+
+        AtomicFileWriter.writeAndWait(segment, bytes::writeTo);
+    }
+
+    private static Footer readFooter(RandomAccessFile file, File segment) throws IOException {
+        long length = file.length();
+        if (length < TRAILER_LENGTH) {
+            throw new IOException("封存區段太短: " + segment);
+        }
+        file.seek(length - TRAILER_LENGTH);
+        long footerOffset = file.readLong();
+        if (file.readInt() != MAGIC || footerOffset < 0 || footerOffset > length - TRAILER_LENGTH) {
+            throw new IOException("封存區段結尾錯誤: " + segment);
+        }
+        file.seek(footerOffset);
+        if (file.readInt() != MAGIC) {
+            throw new IOException("封存區段索引錯誤: " + segment);
+        }
+        short version = file.readShort();
+        if (version > VERSION) {
+            throw new IOException("不支援的封存版本: " + version);
+        }
+        Footer footer = new Footer();
+        int blockCount = file.readInt();
+        for (int i = 0; i < blockCount; i++) {
+            Block block = new Block();
+            block.offset = file.readLong();
+            block.length = file.readInt();
+            block.count = file.readInt();
+            block.from = LocalDate.ofEpochDay(file.readInt());
+            block.to = LocalDate.ofEpochDay(file.readInt());
+            footer.blocks.add(block);
+        }
+        int tombstoneCount = file.readInt();
+        for (int i = 0; i < tombstoneCount; i++) {
+            footer.tombstones.add(file.readUTF());
+        }
+        return footer;
+    }
+
+    private static void readBlock(RandomAccessFile file, Block block, Consumer<TaskData> consumer) throws IOException {
+        byte[] compressed = new byte[block.length];
+        file.seek(block.offset);
+        file.readFully(compressed);
+        BinaryTaskCodec.read(new GZIPInputStream(new ByteArrayInputStream(compressed)), consumer);
+    }
+
+    /** 區段檔（由舊到新） */
+    private List<File> segments() {
+        File[] files = dir.listFiles((d, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        List<File> segments = new ArrayList<>();
+        if (files != null) {
+            segments.addAll(List.of(files));
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private File nextSegment() {
+        int next = 1;
+        for (File segment : segments()) {
+            String name = segment.getName();
+            try {
+                int number = Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+                next = Math.max(next, number + 1);
+            } catch (NumberFormatException e) {
+                System.err.println("略過無法辨識的封存區段: " + name);
+            }
+        }
+        return new File(dir, String.format("%s%06d%s", PREFIX, next, SUFFIX));
+    }
+}
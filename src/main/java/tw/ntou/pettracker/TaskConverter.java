@@ -1,11 +1,16 @@
 package tw.ntou.pettracker;
 
+import tw.ntou.pettracker.model.SubTaskData;
 import tw.ntou.pettracker.model.TaskData;
 import tw.ntou.pettracker.model.Task;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class TaskConverter {
     public static TaskData toData(Task task) {
         TaskData data = new TaskData();
+        data.id = task.getId();
         data.description = task.getDescription();
         data.done = task.isDone();
         data.dueDate = task.getDueDate();
@@ -13,15 +18,53 @@ public class TaskConverter {
         data.remind = task.isRemind();
         data.remindAt = task.getRemindAt();
         data.tags = task.getTags();
+        data.category = task.getCategory();
+        data.repeatPattern = task.getRepeatPattern();
+        data.colorTag = task.getColorTag();
+        data.estimatedMinutes = task.getEstimatedMinutes();
+        data.actualMinutes = task.getActualMinutes();
+        data.completedAt = task.getCompletedAt();
+        data.recurrence = task.getRecurrence();
+        data.seriesId = task.getSeriesId();
+        if (task.hasSubTasks()) {
+            List<SubTaskData> subTasks = new ArrayList<>(task.getSubTasks().size());
+            for (Task.SubTask subTask : task.getSubTasks()) {
+                subTasks.add(new SubTaskData(subTask.getDescription(), subTask.isDone()));
+            }
+            data.subTasks = subTasks;
+        }
         return data;
     }
 
     public static Task fromData(TaskData data) {
-        Task task = new Task(data.description, data.dueDate, data.priority);
+        Task task = new Task(data.id, data.description, data.dueDate, data.priority);
         task.setDone(data.done);
+        // setDone(true) 會把完成時間設為現在，這裡要還原成原本的完成時間
+        task.setCompletedAt(data.completedAt);
         task.setRemind(data.remind);
         task.setRemindAt(data.remindAt);
         task.setTags(data.tags);
+        // 舊版資料沒有這些欄位，保留 Task 的預設值
+        if (data.category != null) {
+            task.setCategory(data.category);
+        }
+        if (data.colorTag != null) {
+            task.setColorTag(data.colorTag);
+        }
+        task.setRepeatPattern(data.repeatPattern);
+        task.setRecurrence(data.recurrence);
+        task.setSeriesId(data.seriesId);
+        task.setEstimatedMinutes(data.estimatedMinutes);
+        task.setActualMinutes(data.actualMinutes);
+        if (data.subTasks != null && !data.subTasks.isEmpty()) {
+            List<Task.SubTask> subTasks = new ArrayList<>(data.subTasks.size());
+            for (SubTaskData subData : data.subTasks) {
+                Task.SubTask subTask = new Task.SubTask(subData.description);
+                subTask.setDone(subData.done);
+                subTasks.add(subTask);
+            }
+            task.getSubTasks().setAll(subTasks);
+        }
         return task;
     }
 }
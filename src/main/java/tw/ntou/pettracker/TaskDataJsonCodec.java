@@ -0,0 +1,161 @@
+package tw.ntou.pettracker;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import tw.ntou.pettracker.model.SubTaskData;
+import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskData;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TaskData 的串流 JSON 序列化 - 直接操作 JsonGenerator / JsonParser，
+ * 不經過反射與 JavaTimeModule，格式與原本的 JSON 相容（日期為 ISO 字串）
+ */
+public class TaskDataJsonCodec {
+
+    /** 註冊到 ObjectMapper 後，快照、日誌、匯入匯出都會使用這組序列化 */
+    public static SimpleModule module() {
+        SimpleModule module = new SimpleModule("TaskDataJsonCodec");
+        module.addSerializer(TaskData.class, new Serializer());
+        module.addDeserializer(TaskData.class, new Deserializer());
+        return module;
+    }
+
+    public static void write(JsonGenerator gen, TaskData data) throws IOException {
+        gen.writeStartObject();
+        writeString(gen, "id", data.id);
+        writeString(gen, "description", data.description);
+        gen.writeBooleanField("done", data.done);
+        if (data.dueDate != null) {
+            gen.writeStringField("dueDate", data.dueDate.toString());
+        }
+        gen.writeNumberField("priority", data.priority);
+        gen.writeBooleanField("remind", data.remind);
+        if (data.remindAt != null) {
+            gen.writeStringField("remindAt", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(data.remindAt));
+        }
+        writeString(gen, "tags", data.tags);
+        if (data.category != null) {
+            gen.writeStringField("category", data.category.name());
+        }
+        if (data.subTasks != null) {
+            gen.writeArrayFieldStart("subTasks");
+            for (SubTaskData subTask : data.subTasks) {
+                gen.writeStartObject();
+                writeString(gen, "description", subTask.description);
+                gen.writeBooleanField("done", subTask.done);
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+        if (data.repeatPattern != null) {
+            gen.writeStringField("repeatPattern", data.repeatPattern.name());
+        }
+        writeString(gen, "colorTag", data.colorTag);
+        if (data.estimatedMinutes != 0) {
+            gen.writeNumberField("estimatedMinutes", data.estimatedMinutes);
+        }
+        if (data.actualMinutes != 0) {
+            gen.writeNumberField("actualMinutes", data.actualMinutes);
+        }
+        if (data.completedAt != null) {
+            gen.writeStringField("completedAt", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(data.completedAt));
+        }
+        writeString(gen, "recurrence", data.recurrence);
+        writeString(gen, "seriesId", data.seriesId);
+        gen.writeEndObject();
+    }
+
+    /**
+     * 讀取一個任務物件，呼叫時 parser 應停在 START_OBJECT（或其後第一個欄位）上；
+     * 未知欄位會被略過，缺少的欄位保留預設值
+     */
+    public static TaskData read(JsonParser p) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        }
+        TaskData data = new TaskData();
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "id": data.id = p.getText(); break;
+                case "description": data.description = p.getText(); break;
+                case "done": data.done = p.getValueAsBoolean(); break;
+                case "dueDate": data.dueDate = LocalDate.parse(p.getText()); break;
+                case "priority": data.priority = p.getValueAsInt(); break;
+                case "remind": data.remind = p.getValueAsBoolean(); break;
+                case "remindAt": data.remindAt = LocalDateTime.parse(p.getText()); break;
+                case "tags": data.tags = p.getText(); break;
+                case "category": data.category = Task.TaskCategory.valueOf(p.getText()); break;
+                case "subTasks": data.subTasks = readSubTasks(p); break;
+                case "repeatPattern": data.repeatPattern = Task.RepeatPattern.valueOf(p.getText()); break;
+                case "colorTag": data.colorTag = p.getText(); break;
+                case "estimatedMinutes": data.estimatedMinutes = p.getValueAsInt(); break;
+                case "actualMinutes": data.actualMinutes = p.getValueAsInt(); break;
+                case "completedAt": data.completedAt = LocalDateTime.parse(p.getText()); break;
+                case "recurrence": data.recurrence = p.getText(); break;
+                case "seriesId": data.seriesId = p.getText(); break;
+                default: p.skipChildren(); break;
+            }
+        }
+        return data;
+    }
+
+    private static List<SubTaskData> readSubTasks(JsonParser p) throws IOException {
+        List<SubTaskData> subTasks = new ArrayList<>();
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+            SubTaskData subTask = new SubTaskData();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if (value == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (field) {
+                    case "description": subTask.description = p.getText(); break;
+                    case "done": subTask.done = p.getValueAsBoolean(); break;
+                    default: p.skipChildren(); break;
+                }
+            }
+            subTasks.add(subTask);
+        }
+        return subTasks;
+    }
+
+    private static void writeString(JsonGenerator gen, String field, String value) throws IOException {
+        if (value != null) {
+            gen.writeStringField(field, value);
+        }
+    }
+
+    private static class Serializer extends JsonSerializer<TaskData> {
+        @Override
+        public void serialize(TaskData value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            write(gen, value);
+        }
+    }
+
+    private static class Deserializer extends JsonDeserializer<TaskData> {
+        @Override
+        public TaskData deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return read(p);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package tw.ntou.pettracker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import tw.ntou.pettracker.model.TaskData;
+import tw.ntou.pettracker.model.TaskJournalEntry;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+/**
+ * 任務日誌 - 每次新增、修改、完成、刪除只附加一行紀錄，
+ * 累積到一定數量後再於背景折疊回快照檔
+ */
+public class TaskJournal {
+    // 日誌筆數超過此值就壓縮回快照
+    private static final int COMPACT_THRESHOLD = 500;
+
+    private final File file;
+    private final ObjectWriter entryWriter;
+    private final ObjectReader entryReader;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "task-journal");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // 尚未寫入磁碟的紀錄，同一任務只保留最後狀態
+    private final Map<String, TaskJournalEntry> pending = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+    private volatile int writtenCount = 0;
+    private volatile boolean snapshotStale = false;
+
+    public TaskJournal(File file, ObjectMapper mapper) {
+        this.file = file;
+        this.entryWriter = mapper.writerFor(TaskJournalEntry.class);
+        this.entryReader = mapper.readerFor(TaskJournalEntry.class);
+    }
+
+    public void recordUpsert(TaskData task) {
+        enqueue(new TaskJournalEntry(TaskJournalEntry.UPSERT, task.id, task));
+    }
+
+    public void recordDelete(String id) {
+        enqueue(new TaskJournalEntry(TaskJournalEntry.DELETE, id, null));
+    }
+
+    /** 任務順序改變（拖放），日誌不記錄位置，交給下次壓縮處理 */
+    public void markOrderChanged() {
+        snapshotStale = true;
+    }
+
+    /** 日誌或快照是否有尚未壓縮的變更 */
+    public boolean hasChanges() {
+        return snapshotStale || writtenCount > 0 || pendingCount() > 0;
+    }
+
+    /** 等待目前排隊中的日誌寫入完成 */
+    public void awaitFlush() {
+        try {
+            writer.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public boolean needsCompaction() {
+        return snapshotStale || writtenCount + pendingCount() >= COMPACT_THRESHOLD;
+    }
+
+    private synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    private void enqueue(TaskJournalEntry entry) {
+        synchronized (this) {
+            pending.remove(entry.id);
+            pending.put(entry.id, entry);
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        writer.execute(this::flushPending);
+    }
+
+    private void flushPending() {
+        List<TaskJournalEntry> batch;
+        synchronized (this) {
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+            flushScheduled = false;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (TaskJournalEntry entry : batch) {
+                out.write(entryWriter.writeValueAsString(entry));
+                out.newLine();
+            }
+            writtenCount += batch.size();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 將日誌重播到快照資料上（依 id 覆蓋或刪除，新任務附加在最後）
+     */
+    public List<TaskData> replay(List<TaskData> snapshot) {
+        Map<String, TaskJournalEntry> entries = readEntries();
+        List<TaskData> result = new ArrayList<>(snapshot.size() + entries.size());
+        for (TaskData data : snapshot) {
+            TaskData resolved = resolve(data, entries);
+            if (resolved != null) {
+                result.add(resolved);
+            }
+        }
+        result.addAll(remaining(entries));
+        return result;
+    }
+
+    /**
+     * 讀取日誌，每個任務只保留最後一筆紀錄
+     */
+    public Map<String, TaskJournalEntry> readEntries() {
+        Map<String, TaskJournalEntry> entries = new LinkedHashMap<>();
+        int count = 0;
+        if (!file.exists()) {
+            writtenCount = 0;
+            return entries;
+        }
+        try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) continue;
+                TaskJournalEntry entry;
+                try {
+                    entry = entryReader.readValue(line);
+                } catch (IOException e) {
+                    // 最後一行可能因當機只寫了一半，略過即可
+                    System.err.println("略過損壞的日誌紀錄: " + e.getMessage());
+                    continue;
+                }
+                entries.put(entry.id, entry);
+                count++;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        writtenCount = count;
+        return entries;
+    }
+
+    /**
+     * 依日誌決定快照中一筆任務的最終狀態，已被刪除時回傳 null
+     */
+    public TaskData resolve(TaskData data, Map<String, TaskJournalEntry> entries) {
+        if (data.id == null) {
+            // 舊版快照沒有 id，補上後需盡快寫回快照
+            data.id = UUID.randomUUID().toString();
+            snapshotStale = true;
+            return data;
+        }
+        TaskJournalEntry entry = entries.remove(data.id);
+        if (entry == null) {
+            return data;
+        }
+        if (TaskJournalEntry.DELETE.equals(entry.op)) {
+            return null;
+        }
+        return entry.task != null ? entry.task : data;
+    }
+
+    /**
+     * 日誌中有、快照中沒有的新任務（在 resolve 走完快照後呼叫）
+     */
+    public List<TaskData> remaining(Map<String, TaskJournalEntry> entries) {
+        List<TaskData> added = new ArrayList<>();
+        for (TaskJournalEntry entry : entries.values()) {
+            if (!TaskJournalEntry.DELETE.equals(entry.op) && entry.task != null) {
+                added.add(entry.task);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * 把呼叫當下的完整任務清單寫成快照並清空日誌（在背景執行緒上執行）
+     */
+    public Future<?> compact(List<TaskData> snapshot, Predicate<List<TaskData>> snapshotWriter) {
+        synchronized (this) {
+            // 排隊中的紀錄已包含在快照中；之後的紀錄會另外排一次寫入，排在壓縮之後，不會隨日誌一起清除
+            pending.clear();
+            flushScheduled = false;
+        }
+        snapshotStale = false;
+        return writer.submit(() -> {
+            if (!snapshotWriter.test(snapshot)) {
+                // 快照寫入失敗時保留日誌，下次啟動仍可重播
+                snapshotStale = true;
+                return;
+            }
+            try {
+                Files.deleteIfExists(file.toPath());
+                writtenCount = 0;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+}
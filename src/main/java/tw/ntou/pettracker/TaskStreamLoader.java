@@ -0,0 +1,126 @@
+package tw.ntou.pettracker;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import tw.ntou.pettracker.model.TaskData;
+import tw.ntou.pettracker.model.TaskJournalEntry;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 串流載入任務 - 逐筆讀取快照（JSON 用 JsonParser，二進位用 BinaryTaskCodec），
+ * 分批交給呼叫端，今日到期的任務會先送出，其餘任務在掃描完後才分批送出；
+ * 同時記下各任務在快照中的順序，載入完成後呼叫端據此還原
+ */
+public class TaskStreamLoader {
+    /**
+     * 快照讀取器，逐筆送出快照中的任務資料
+     */
+    public interface SnapshotReader {
+        void read(Consumer<TaskData> consumer) throws IOException;
+    }
+
+    // 今日任務累積到這個數量，或掃描過這麼多筆就先送出一批
+    private static final int TODAY_BATCH_SIZE = 200;
+    private static final int TODAY_FLUSH_INTERVAL = 5000;
+
+    private final TaskJournal journal;
+    private final int batchSize;
+
+    public TaskStreamLoader(TaskJournal journal, int batchSize) {
+        this.journal = journal;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * JSON 快照：以 token 層級的 JsonParser 逐一讀取陣列元素
+     */
+    public static SnapshotReader jsonReader(File file, ObjectReader taskReader) {
+        return consumer -> {
+            if (!file.exists()) {
+                return;
+            }
+            try (JsonParser parser = taskReader.createParser(file)) {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new IOException("任務檔案格式錯誤: 應為陣列");
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    consumer.accept(taskReader.readValue(parser));
+                }
+            }
+        };
+    }
+
+    public static SnapshotReader binaryReader(File file) {
+        return consumer -> {
+            if (file.exists()) {
+                BinaryTaskCodec.read(file, consumer);
+            }
+        };
+    }
+
+    /**
+     * 在目前（背景）執行緒上讀取快照與日誌，每批任務資料透過 sink 送出；
+     * 回傳所有任務依儲存順序排列的 id。快照讀取失敗時，已讀到的任務照常送出後丟出 IOException
+     */
+    public List<String> load(SnapshotReader snapshot, LocalDate today, Consumer<List<TaskData>> sink) throws IOException {
+        Map<String, TaskJournalEntry> entries = journal.readEntries();
+        List<TaskData> todayLane = new ArrayList<>();
+        List<TaskData> otherLane = new ArrayList<>();
+        List<String> order = new ArrayList<>();
+
+        int[] scanned = {0};
+        IOException failure = null;
+        try {
+            snapshot.read(raw -> {
+                TaskData data = journal.resolve(raw, entries);
+                if (data != null) {
+                    order.add(data.id);
+                    route(data, today, todayLane, otherLane);
+                }
+                if (++scanned[0] % TODAY_FLUSH_INTERVAL == 0 || todayLane.size() >= TODAY_BATCH_SIZE) {
+                    emit(todayLane, sink);
+                }
+            });
+        } catch (IOException e) {
+            failure = e;
+        }
+
+        for (TaskData data : journal.remaining(entries)) {
+            order.add(data.id);
+            route(data, today, todayLane, otherLane);
+        }
+        emit(todayLane, sink);
+
+        for (int from = 0; from < otherLane.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, otherLane.size());
+            sink.accept(new ArrayList<>(otherLane.subList(from, to)));
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return order;
+    }
+
+    private static void route(TaskData task, LocalDate today, List<TaskData> todayLane, List<TaskData> otherLane) {
+        if (today.equals(task.dueDate)) {
+            todayLane.add(task);
+        } else {
+            otherLane.add(task);
+        }
+    }
+
+    private static void emit(List<TaskData> lane, Consumer<List<TaskData>> sink) {
+        if (!lane.isEmpty()) {
+            sink.accept(new ArrayList<>(lane));
+            lane.clear();
+        }
+    }
+}
@@ -6,12 +6,12 @@ import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
-import tw.ntou.pettracker.Persistence;
 import tw.ntou.pettracker.model.Achievement;
-import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskColumns;
+import tw.ntou.pettracker.service.ClockService;
 import tw.ntou.pettracker.service.NotificationService;
+import tw.ntou.pettracker.service.AchievementStateStore;
 import tw.ntou.pettracker.service.StatisticsService;
-import tw.ntou.pettracker.service.AchievementManager;
 import tw.ntou.pettracker.service.PetVideoService; // 新增：影片服務匯入
 
 import java.time.LocalDate;
@@ -22,7 +22,8 @@ import java.util.Map;
  * 管理成就系統
  */
 public class AchievementController {
-    private final ObservableList<Task> tasks;
+    // 成就檢查直接讀欄式副本
+    private final TaskColumns columns;
     private final ObservableList<Achievement> achievements = FXCollections.observableArrayList();
     private final Map<String, Integer> achievementProgress = new HashMap<>();
     private Button achievementButton;
@@ -34,8 +35,8 @@ public class AchievementController {
     private int playWithPetCount = 0;
     private int feedPetCount = 0;
 
-    public AchievementController(ObservableList<Task> tasks) {
-        this.tasks = tasks;
+    public AchievementController(TaskColumns columns) {
+        this.columns = columns;
         initializeAchievements();
     }
 
@@ -58,10 +59,14 @@ public class AchievementController {
      * 初始化所有成就
      */
     private void initializeAchievements() {
-        achievements.addAll(AchievementManager.getAllAchievements());
+        // 使用已載入狀態的成就實例，累計計數從已儲存的進度接續
+        AchievementStateStore store = AchievementStateStore.getInstance();
+        achievements.addAll(store.getAchievements());
         achievements.forEach(achievement ->
-                achievementProgress.put(achievement.getId(), 0)
+                achievementProgress.put(achievement.getId(), achievement.getProgress())
         );
+        maxCompletedCount = store.getProgress("task_500");
+        playWithPetCount = store.getProgress("pet_play_10");
     }
 
     /**
@@ -78,8 +83,8 @@ public class AchievementController {
      * 檢查任務完成相關成就
      */
     private void checkTaskCompletionAchievements() {
-        long completedCount = tasks.stream().filter(Task::isDone).count();
-        maxCompletedCount = Math.max(maxCompletedCount, (int) completedCount);
+        int completedCount = columns.countDone();
+        maxCompletedCount = Math.max(maxCompletedCount, completedCount);
 
         checkAndUnlockAchievement("first_task", (int) maxCompletedCount);
         checkAndUnlockAchievement("task_10", (int) maxCompletedCount);
@@ -87,18 +92,14 @@ public class AchievementController {
         checkAndUnlockAchievement("task_100", (int) maxCompletedCount);
         checkAndUnlockAchievement("task_500", (int) maxCompletedCount);
 
-        long highPriorityCompleted = tasks.stream()
-                .filter(Task::isDone)
-                .filter(t -> t.getPriority() == 1)
-                .count();
-        checkAndUnlockAchievement("priority_master", (int) highPriorityCompleted);
+        checkAndUnlockAchievement("priority_master", columns.countDone(1));
     }
 
     /**
      * 檢查連續達成成就
      */
     private void checkStreakAchievements() {
-        StatisticsService.TaskStatistics stats = StatisticsService.calculateStatistics(tasks);
+        StatisticsService.TaskStatistics stats = StatisticsService.calculateStatistics(columns);
         int currentStreak = stats.currentStreak;
 
         checkAndUnlockAchievement("streak_3", currentStreak);
@@ -111,29 +112,12 @@ public class AchievementController {
      * 檢查生產力相關成就
      */
     private void checkProductivityAchievements() {
-        LocalDate today = LocalDate.now();
-
-        long earlyBirdCount = tasks.stream()
-                .filter(Task::isDone)
-                .filter(t -> t.getCompletedAt() != null &&
-                        t.getCompletedAt().getHour() < 8)
-                .count();
-        checkAndUnlockAchievement("early_bird", (int) earlyBirdCount);
-
-        long nightOwlCount = tasks.stream()
-                .filter(Task::isDone)
-                .filter(t -> t.getCompletedAt() != null &&
-                        t.getCompletedAt().getHour() >= 22)
-                .count();
-        checkAndUnlockAchievement("night_owl", (int) nightOwlCount);
-
-        long todayCategories = tasks.stream()
-                .filter(Task::isDone)
-                .filter(t -> t.getCompletedAt() != null &&
-                        t.getCompletedAt().toLocalDate().equals(today))
-                .map(Task::getCategory)
-                .distinct()
-                .count();
+        LocalDate today = ClockService.getInstance().today();
+
+        checkAndUnlockAchievement("early_bird", columns.countCompletedInHours(0, 8));
+        checkAndUnlockAchievement("night_owl", columns.countCompletedInHours(22, 24));
+
+        int todayCategories = columns.countCategoriesCompletedOn(today);
         if (todayCategories >= 5) {
             checkAndUnlockAchievement("multitasker", 1);
         }
@@ -175,10 +159,7 @@ public class AchievementController {
      * 檢查並解鎖成就
      */
     private void checkAndUnlockAchievement(String achievementId, int progress) {
-        Achievement achievement = achievements.stream()
-                .filter(a -> a.getId().equals(achievementId))
-                .findFirst()
-                .orElse(null);
+        Achievement achievement = AchievementStateStore.getInstance().get(achievementId);
 
         if (achievement != null) {
             achievementProgress.put(achievementId, progress);
@@ -198,8 +179,6 @@ public class AchievementController {
                 }
                     // 解鎖相關影片
                 unlockRelatedVideos(achievementId);
-
-                Persistence.saveAchievementsStatus(achievements);
             }
         }
     }
@@ -241,7 +220,7 @@ public class AchievementController {
      */
     private void updateStreakLabel() {
         if (streakLabel != null) {
-            StatisticsService.TaskStatistics stats = StatisticsService.calculateStatistics(tasks);
+            StatisticsService.TaskStatistics stats = StatisticsService.calculateStatistics(columns);
             int currentStreak = stats.currentStreak;
 
             streakLabel.setText("🔥 " + currentStreak + " 天");
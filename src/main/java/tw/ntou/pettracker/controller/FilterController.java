@@ -1,27 +1,86 @@
 package tw.ntou.pettracker.controller;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
-import javafx.collections.transformation.SortedList;
+import javafx.geometry.Side;
 import javafx.scene.control.*;
+import tw.ntou.pettracker.model.SortedTaskView;
+import tw.ntou.pettracker.model.TagIndex;
 import tw.ntou.pettracker.model.ViewMode;
 import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskFilterIndex;
+import tw.ntou.pettracker.model.TaskOccurrences;
+import tw.ntou.pettracker.model.TaskSearchIndex;
+import tw.ntou.pettracker.model.TaskSlots;
+import tw.ntou.pettracker.service.ClockService;
 import tw.ntou.pettracker.util.MessageUtil;
 
 import java.time.LocalDate;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 
 /**
  * 處理任務的篩選、搜尋與排序
  */
 public class FilterController {
+    // 停止輸入這麼久之後才搜尋
+    private static final long SEARCH_DEBOUNCE_MILLIS = 150;
+    // 標籤建議最多列出幾個
+    private static final int MAX_TAG_SUGGESTIONS = 10;
+
     private final ObservableList<Task> tasks;
-    private final FilteredList<Task> filteredTasks;
+    private FilteredList<Task> filteredTasks;
+    // 表格一直使用同一份排序檢視，換排序只重排
+    private SortedTaskView sortedTasks;
+    // 各索引共用的 slot，索引查出的 BitSet 可直接取 AND
+    private TaskSlots taskSlots;
+    // 標籤索引，搜尋標籤時用 BitSet 判斷，不比對標籤字串
+    private TagIndex tagIndex;
+    // 全文索引，搜尋時取倒排表交集，不逐一比對每個任務的文字
+    private TaskSearchIndex searchIndex;
+
+    // 搜尋在背景執行緒查索引，只把最後一次查詢的結果套用到表格
+    private final ScheduledExecutorService searchWorker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "task-search");
+        t.setDaemon(true);
+        return t;
+    });
+    // 查詢結果交回 FX 執行緒的方式
+    private final Executor fxThread;
+    private ScheduledFuture<?> pendingSearch;
+    // 每次輸入加一，舊的查詢看到編號不同就放棄
+    private final AtomicLong searchGeneration = new AtomicLong();
+    // 最後一次排入的查詢，結果可能還沒套用
+    private String requestedQuery = "";
+    // 目前套用中的查詢（小寫、去空白）與符合的任務 slot；searchHits 為 null 時逐一比對文字
+    private String appliedQuery = "";
+    private BitSet searchHits;
+
+    // 優先級、狀態、到期日的點陣圖索引；篩選結果先算成 BitSet，逐列只檢查一個位元
+    private TaskFilterIndex filterIndex;
+    // 上次算出 BitSet 之後才加入的任務，改用原本的條件逐一判斷
+    private final Set<Task> addedSinceFilter = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean bitmapFilterActive = false;
 
     // 由 MainController 注入的 UI 元件
     private TextField searchField;
+    // 輸入「#」時列出各標籤在目前篩選結果中的任務數
+    private ContextMenu tagMenu;
     private ComboBox<String> filterPriorityBox;
     private ComboBox<String> filterStatusBox;
     private ComboBox<String> sortBox;
@@ -31,17 +90,92 @@ public class FilterController {
     // 當前視圖模式
     private ViewMode currentViewMode = ViewMode.ALL;
 
-    public FilterController(ObservableList<Task> tasks) {
+    private FilterController(ObservableList<Task> tasks, Executor fxThread) {
         this.tasks = tasks;
-        this.filteredTasks = new FilteredList<>(tasks);
+        this.fxThread = fxThread;
+    }
+
+    public static FilterController create(ObservableList<Task> tasks) {
+        return create(tasks, Platform::runLater);
+    }
+
+    /** fxThread 為查詢結果回到 FX 執行緒的方式（測試時可換成手動執行） */
+    public static FilterController create(ObservableList<Task> tasks, Executor fxThread) {
+        FilterController controller = new FilterController(tasks, fxThread);
+        controller.init();
+        return controller;
+    }
+
+    private void init() {
+        // 要在 FilteredList 之前登記，新任務被判斷前就已記下
+        tasks.addListener(this::beforeFiltering);
+        filteredTasks = new FilteredList<>(tasks);
+        sortedTasks = new SortedTaskView(filteredTasks);
+        tasks.addListener(this::afterFiltering);
+    }
+
+    // 新任務可能用到剛空出的 slot，先從舊的搜尋結果拿掉，等重新查詢再決定
+    private void beforeFiltering(ListChangeListener.Change<? extends Task> c) {
+        BitSet hits = searchHits;
+        while (c.next()) {
+            if (c.wasAdded()) {
+                if (bitmapFilterActive) {
+                    addedSinceFilter.addAll(c.getAddedSubList());
+                }
+                if (hits != null) {
+                    for (Task task : c.getAddedSubList()) {
+                        int slot = taskSlots.slotOf(task);
+                        if (slot >= 0) {
+                            hits.clear(slot);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // 搜尋中新增、移除或修改任務時重新查詢，新任務才會出現在結果中；只調整順序時 slot 不變，不必重查
+    private void afterFiltering(ListChangeListener.Change<? extends Task> c) {
+        if (requestedQuery.isEmpty()) {
+            return;
+        }
+        while (c.next()) {
+            if (!c.wasPermutated()) {
+                search(requestedQuery);
+                return;
+            }
+        }
+    }
+
+    /** 注入任務 slot 登記表（與下列索引共用同一份） */
+    public void setTaskSlots(TaskSlots taskSlots) {
+        this.taskSlots = taskSlots;
+    }
+
+    /** 注入標籤索引 */
+    public void setTagIndex(TagIndex tagIndex) {
+        this.tagIndex = tagIndex;
+    }
+
+    /** 注入篩選用的點陣圖索引 */
+    public void setFilterIndex(TaskFilterIndex filterIndex) {
+        this.filterIndex = filterIndex;
+    }
+
+    /** 注入全文索引 */
+    public void setSearchIndex(TaskSearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
     }
 
     /** 注入搜尋框 */
     public void setSearchField(TextField searchField) {
         this.searchField = searchField;
         if (searchField != null) {
-            searchField.textProperty()
-                    .addListener((obs, oldV, newV) -> applyFilters());
+            tagMenu = new ContextMenu();
+            searchField.textProperty().addListener((obs, oldV, newV) -> {
+                search(newV);
+                suggestTags(newV);
+            });
         }
     }
 
@@ -74,7 +208,9 @@ public class FilterController {
     public void setSortBox(ComboBox<String> sortBox) {
         this.sortBox = sortBox;
         if (sortBox != null) {
+            // 預設為手動排序：表格依任務清單的順序顯示，可拖放調整
             sortBox.setItems(FXCollections.observableArrayList(
+                    "手動排序",
                     "按日期排序",
                     "按優先級排序",
                     "按名稱排序",
@@ -94,9 +230,14 @@ public class FilterController {
         }
     }
 
-    /** 注入主畫面的 TableView，供排序時呼叫 setItems() */
+    /** 注入主畫面的 TableView，並綁定排序檢視 */
     public void setTableView(TableView<Task> tableView) {
         this.tableView = tableView;
+        if (tableView != null) {
+            tableView.setItems(sortedTasks);
+            // 排序由排序下拉決定，表頭點擊不重排（檢視不可直接修改）
+            tableView.setSortPolicy(t -> false);
+        }
     }
 
     /** 變更視圖模式 (TODAY, UPCOMING, ALL) */
@@ -105,7 +246,7 @@ public class FilterController {
         applyFilters();
     }
 
-    /** 取得篩選後清單，供 MainController 初始時建立 SortedList */
+    /** 取得篩選後清單（未排序） */
     public FilteredList<Task> getFilteredTasks() {
         return filteredTasks;
     }
@@ -134,61 +275,264 @@ public class FilterController {
                 .and(getSearchFilter())
                 .and(getPriorityFilter())
                 .and(getStatusFilter());
-        filteredTasks.setPredicate(combined);
+        addedSinceFilter.clear();
+        bitmapFilterActive = filterIndex != null && hasActiveFilter();
+        if (!bitmapFilterActive) {
+            filteredTasks.setPredicate(combined);
+            return;
+        }
+        BitSet rows = filterRows();
+        filteredTasks.setPredicate(t -> addedSinceFilter.contains(t)
+                ? combined.test(t)
+                : filterIndex.contains(rows, t));
     }
 
-    /** 根據傳入的排序文字套用排序並更新 TableView */
-    public void applySorting(String sortOption) {
-        if (tableView == null) return;
+    private boolean hasActiveFilter() {
+        return currentViewMode != ViewMode.ALL
+                || !appliedQuery.isEmpty()
+                || (filterPriorityBox != null && filterPriorityBox.getSelectionModel().getSelectedIndex() > 0)
+                || (filterStatusBox != null && filterStatusBox.getSelectionModel().getSelectedIndex() > 0);
+    }
+
+    // 各條件的 BitSet 取 AND，與 getViewFilter 等逐列條件的結果相同
+    private BitSet filterRows() {
+        BitSet rows = rowsBeforeSearch();
+        if (!appliedQuery.isEmpty()) {
+            narrowBySearch(rows);
+        }
+        return rows;
+    }
+
+    // 視圖、優先級、狀態條件的結果（不含搜尋）
+    private BitSet rowsBeforeSearch() {
+        LocalDate today = ClockService.getInstance().today();
+        BitSet rows = filterIndex.all();
+        switch (currentViewMode) {
+            case TODAY:
+                rows.and(filterIndex.dueOn(today));
+                break;
+            case UPCOMING:
+                BitSet upcoming = filterIndex.dueBetween(today.plusDays(1), today.plusDays(6));
+                BitSet openRepeating = filterIndex.repeating();
+                openRepeating.and(filterIndex.open());
+                openRepeating.andNot(upcoming);
+                openRepeating.andNot(filterIndex.dueBefore(today));
+                for (int slot = openRepeating.nextSetBit(0); slot >= 0; slot = openRepeating.nextSetBit(slot + 1)) {
+                    if (TaskOccurrences.recursSoon(taskSlots.taskAt(slot), today, today.plusDays(6))) {
+                        upcoming.set(slot);
+                    }
+                }
+                rows.and(upcoming);
+                break;
+            default:
+                break;
+        }
+
+        int priority = filterPriorityBox != null ? filterPriorityBox.getSelectionModel().getSelectedIndex() : 0;
+        if (priority > 0) {
+            rows.and(filterIndex.withPriority(priority));
+        }
 
-        Comparator<Task> comp;
-        switch (sortOption) {
+        String status = filterStatusBox != null && filterStatusBox.getSelectionModel().getSelectedIndex() > 0
+                ? filterStatusBox.getSelectionModel().getSelectedItem() : "";
+        switch (status) {
+            case "進行中":
+                rows.and(filterIndex.open());
+                break;
+            case "已完成":
+                rows.and(filterIndex.done());
+                break;
+            case "今日到期":
+                rows.and(filterIndex.dueOn(today));
+                rows.and(filterIndex.open());
+                break;
+            case "逾期":
+                rows.and(filterIndex.dueBefore(today));
+                rows.and(filterIndex.open());
+                break;
+            default:
+                break;
+        }
+        return rows;
+    }
+
+    // 各索引的 slot 相同，搜尋與標籤結果直接取 AND；沒有索引結果時只對剩下的列逐一比對
+    private void narrowBySearch(BitSet rows) {
+        String txt = appliedQuery;
+        List<String> tags = tagIndex != null ? tagTerms(txt) : null;
+        if (tags != null) {
+            rows.and(tagIndex.slotsWithAllTags(tags));
+            return;
+        }
+        if (searchHits != null) {
+            BitSet hits = tagIndex != null ? tagIndex.slotsWithTagContaining(txt) : new BitSet();
+            hits.or(searchHits);
+            rows.and(hits);
+            return;
+        }
+        Predicate<Task> search = getSearchFilter();
+        for (int slot = rows.nextSetBit(0); slot >= 0; slot = rows.nextSetBit(slot + 1)) {
+            if (!search.test(taskSlots.taskAt(slot))) {
+                rows.clear(slot);
+            }
+        }
+    }
+
+    /**
+     * 排入一次搜尋：取消尚未執行的舊查詢，停止輸入後在背景查索引，
+     * 結果回到 FX 執行緒時若仍是最新的查詢才套用（一次設定 predicate，表格只更新一次）
+     */
+    public void search(String text) {
+        if (searchWorker.isShutdown()) {
+            return;
+        }
+        String query = text != null ? text.toLowerCase().trim() : "";
+        requestedQuery = query;
+        long generation = searchGeneration.incrementAndGet();
+        if (pendingSearch != null) {
+            pendingSearch.cancel(false);
+        }
+        if (query.isEmpty()) {
+            applySearchResult(generation, query, null);
+            return;
+        }
+        TaskSearchIndex index = searchIndex;
+        boolean tagQuery = query.startsWith("#");
+        pendingSearch = searchWorker.schedule(() -> {
+            if (generation != searchGeneration.get()) {
+                return;
+            }
+            // 列表在查詢後有變更會再排一次搜尋，這次的結果不會被套用，slot 不會對錯任務
+            BitSet matches = index != null && !tagQuery ? index.search(query) : null;
+            fxThread.execute(() -> applySearchResult(generation, query, matches));
+        }, SEARCH_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void applySearchResult(long generation, String query, BitSet matches) {
+        if (generation != searchGeneration.get()) {
+            return;
+        }
+        appliedQuery = query;
+        searchHits = matches;
+        applyFilters();
+    }
+
+    // 每個字都是「#標籤」時回傳標籤名稱，否則為 null（當成一般文字搜尋）
+    private static List<String> tagTerms(String text) {
+        if (!text.startsWith("#")) {
+            return null;
+        }
+        List<String> tags = new ArrayList<>();
+        for (String term : text.trim().split("\\s+")) {
+            if (term.length() < 2 || term.charAt(0) != '#') {
+                return null;
+            }
+            tags.add(term.substring(1));
+        }
+        return tags;
+    }
+
+    /**
+     * 正在輸入的字以「#」開頭時，列出名稱以它開頭的標籤與任務數；
+     * 任務數只算目前視圖、篩選與已輸入的其他標籤範圍內的任務，點選後補上完整標籤
+     */
+    private void suggestTags(String text) {
+        String value = text != null ? text : "";
+        int start = value.lastIndexOf(' ') + 1;
+        String head = value.substring(0, start);
+        String term = value.substring(start);
+        List<String> chosen = head.isBlank() ? List.of() : tagTerms(head.trim().toLowerCase());
+        if (tagIndex == null || !term.startsWith("#") || chosen == null) {
+            tagMenu.hide();
+            return;
+        }
+        BitSet within = filterIndex != null ? rowsBeforeSearch() : null;
+        if (!chosen.isEmpty()) {
+            BitSet tagged = tagIndex.slotsWithAllTags(chosen);
+            if (within != null) {
+                tagged.and(within);
+            }
+            within = tagged;
+        }
+        String prefix = term.substring(1).toLowerCase();
+        List<MenuItem> items = new ArrayList<>();
+        for (Map.Entry<String, Integer> count : tagIndex.tagCounts(within).entrySet()) {
+            String name = count.getKey();
+            String key = name.toLowerCase();
+            if (!key.startsWith(prefix) || key.equals(prefix) || chosen.contains(key)) {
+                continue;
+            }
+            MenuItem item = new MenuItem("#" + name + " (" + count.getValue() + ")");
+            item.setOnAction(e -> {
+                searchField.setText(head + "#" + name);
+                searchField.positionCaret(searchField.getText().length());
+            });
+            items.add(item);
+            if (items.size() == MAX_TAG_SUGGESTIONS) {
+                break;
+            }
+        }
+        tagMenu.getItems().setAll(items);
+        if (items.isEmpty()) {
+            tagMenu.hide();
+        } else if (!tagMenu.isShowing()) {
+            tagMenu.show(searchField, Side.BOTTOM, 0, 0);
+        }
+    }
+
+    /** 停止背景搜尋執行緒；已排入但還沒套用的結果一律丟棄 */
+    public void dispose() {
+        searchGeneration.incrementAndGet();
+        searchWorker.shutdownNow();
+    }
+
+    /** 根據傳入的排序文字切換排序檢視的排序方式；「手動排序」與無法辨識的文字都維持任務清單的順序 */
+    public void applySorting(String sortOption) {
+        SortedTaskView.Order order;
+        switch (sortOption != null ? sortOption : "") {
             case "按優先級排序":
-                comp = Comparator.comparing(Task::getPriority)
-                        .thenComparing(Task::getDueDate);
+                order = SortedTaskView.Order.PRIORITY;
                 break;
             case "按名稱排序":
-                comp = Comparator.comparing(
-                        Task::getDescription, String.CASE_INSENSITIVE_ORDER
-                );
+                order = SortedTaskView.Order.NAME;
                 break;
             case "按完成狀態排序":
-                comp = Comparator.comparing(Task::isDone)
-                        .thenComparing(Task::getDueDate);
+                order = SortedTaskView.Order.DONE;
                 break;
             case "按類別排序":
-                comp = Comparator
-                        .<Task,String>comparing(t ->
-                                t.getCategory() != null
-                                        ? t.getCategory().getDisplayName()
-                                        : ""
-                        )
-                        .thenComparing(Task::getDueDate);
+                order = SortedTaskView.Order.CATEGORY;
                 break;
             case "按日期排序":
+                order = SortedTaskView.Order.DUE_DATE;
+                break;
+            case "手動排序":
             default:
-                comp = Comparator.comparing(Task::getDueDate)
-                        .thenComparing(Task::getPriority);
+                order = null;
                 break;
         }
+        sortedTasks.setOrder(order);
+    }
 
-        // 用 FilteredList 建構 SortedList，再綁定回 TableView
-        SortedList<Task> sorted = new SortedList<>(filteredTasks);
-        sorted.setComparator(comp);
-        tableView.setItems(sorted);
+    /** 是否為手動排序（表格順序即任務清單順序，拖放才看得出效果） */
+    public boolean isManualOrder() {
+        return sortedTasks.getOrder() == null;
     }
 
     // === 以下為各種子篩選邏輯 ===
 
     private Predicate<Task> getViewFilter() {
-        LocalDate today = LocalDate.now();
+        LocalDate today = ClockService.getInstance().today();
         switch (currentViewMode) {
             case TODAY:
                 return t -> t.getDueDate().equals(today);
             case UPCOMING:
                 return t -> {
                     LocalDate d = t.getDueDate();
-                    return d.isAfter(today) && d.isBefore(today.plusDays(7));
+                    if (d.isAfter(today) && d.isBefore(today.plusDays(7))) {
+                        return true;
+                    }
+                    // 未完成且未逾期的重複任務：下一次發生落在未來一週內也列出
+                    return TaskOccurrences.recursSoon(t, today, today.plusDays(6));
                 };
             case ALL:
             default:
@@ -197,12 +541,25 @@ public class FilterController {
     }
 
     private Predicate<Task> getSearchFilter() {
-        if (searchField == null || searchField.getText().trim().isEmpty())
+        String txt = appliedQuery;
+        if (txt.isEmpty())
             return t -> true;
-        String txt = searchField.getText().toLowerCase().trim();
+        // 「#標籤」只篩選有這個標籤的任務，「#a #b」要同時有兩個標籤
+        List<String> tags = tagIndex != null ? tagTerms(txt) : null;
+        if (tags != null) {
+            BitSet slots = tagIndex.slotsWithAllTags(tags);
+            return t -> taskSlots.contains(slots, t);
+        }
+        BitSet tagged = tagIndex != null ? tagIndex.slotsWithTagContaining(txt) : null;
+        BitSet hits = searchHits;
+        if (hits != null) {
+            return t -> taskSlots.contains(hits, t) || (tagged != null && taskSlots.contains(tagged, t));
+        }
         return t -> {
             if (t.getDescription().toLowerCase().contains(txt)) return true;
-            if (t.getTags() != null &&
+            if (tagged != null) {
+                if (taskSlots.contains(tagged, t)) return true;
+            } else if (t.getTags() != null &&
                     t.getTags().toLowerCase().contains(txt)) return true;
             if (t.getCategory() != null &&
                     t.getCategory().getDisplayName().toLowerCase().contains(txt))
@@ -224,7 +581,7 @@ public class FilterController {
                 filterStatusBox.getSelectionModel().getSelectedIndex() <= 0)
             return t -> true;
         String sel = filterStatusBox.getSelectionModel().getSelectedItem();
-        LocalDate today = LocalDate.now();
+        LocalDate today = ClockService.getInstance().today();
         switch (sel) {
             case "進行中":   return t -> !t.isDone();
             case "已完成":   return Task::isDone;
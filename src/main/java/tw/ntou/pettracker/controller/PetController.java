@@ -12,6 +12,7 @@ import java.net.URL;
 import tw.ntou.pettracker.model.Pet;
 import tw.ntou.pettracker.model.Task;
 import tw.ntou.pettracker.model.PetVideoType;
+import tw.ntou.pettracker.service.ClockService;
 import tw.ntou.pettracker.service.PetVideoService;
 import tw.ntou.pettracker.service.PetVideoService.PetVideo;
 import tw.ntou.pettracker.util.MessageUtil;
@@ -157,7 +158,7 @@ public class PetController {
      * 更新寵物狀態（根據任務完成情況）
      */
     public void updatePetStatus(ObservableList<Task> tasks, int dailyGoal) {
-        LocalDate today = LocalDate.now();
+        LocalDate today = ClockService.getInstance().today();
         long completedToday = tasks.stream()
                 .filter(Task::isDone)
                 .filter(t -> t.getCompletedAt() != null &&
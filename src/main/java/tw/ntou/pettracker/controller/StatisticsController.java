@@ -1,10 +1,12 @@
 package tw.ntou.pettracker.controller;
 
-import javafx.collections.ObservableList;
+import javafx.application.Platform;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.ProgressBar;
-import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskColumns;
+import tw.ntou.pettracker.model.TaskData;
+import tw.ntou.pettracker.service.ClockService;
 import tw.ntou.pettracker.service.StatisticsService;
 import tw.ntou.pettracker.util.MessageUtil;
 
@@ -13,6 +15,8 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import javafx.stage.FileChooser;
 import javafx.scene.control.Dialog;
 import javafx.scene.control.TextArea;
@@ -23,7 +27,8 @@ import javafx.scene.layout.VBox;
  * 處理統計相關功能
  */
 public class StatisticsController {
-    private final ObservableList<Task> tasks;
+    // 統計直接讀欄式副本
+    private final TaskColumns columns;
     private Label totalTasksLabel;
     private Label completedTasksLabel;
     private Label pendingTasksLabel;
@@ -34,12 +39,16 @@ public class StatisticsController {
     private Label dailyProgressLabel;
     private Label monthlyProgressLabel;
     private Button statsButton;
+    // 顯示詳細統計前先準備資料（例如等待任務載入完成）
+    private Consumer<Runnable> dialogPreparer = Runnable::run;
+    // 詳細統計要一併計入的封存任務（逐筆串流，在背景執行緒呼叫）
+    private Consumer<Consumer<TaskData>> historySource = consumer -> { };
 
     private static final int DAILY_GOAL = 5;
     private static final int MONTHLY_GOAL = 30;
 
-    public StatisticsController(ObservableList<Task> tasks) {
-        this.tasks = tasks;
+    public StatisticsController(TaskColumns columns) {
+        this.columns = columns;
     }
 
     public void setLabels(Label totalTasksLabel, Label completedTasksLabel,
@@ -63,10 +72,18 @@ public class StatisticsController {
     public void setStatsButton(Button statsButton) {
         this.statsButton = statsButton;
         if (statsButton != null) {
-            statsButton.setOnAction(e -> showStatisticsDialog());
+            statsButton.setOnAction(e -> dialogPreparer.accept(this::showStatisticsWithHistory));
         }
     }
 
+    public void setDialogPreparer(Consumer<Runnable> dialogPreparer) {
+        this.dialogPreparer = dialogPreparer;
+    }
+
+    public void setHistorySource(Consumer<Consumer<TaskData>> historySource) {
+        this.historySource = historySource;
+    }
+
     /**
      * 更新所有統計數據
      */
@@ -79,7 +96,7 @@ public class StatisticsController {
      * 更新基本統計
      */
     private void updateBasicStats() {
-        StatisticsService.TaskStatistics stats = StatisticsService.calculateStatistics(tasks);
+        StatisticsService.TaskStatistics stats = StatisticsService.calculateStatistics(columns);
 
         if (totalTasksLabel != null) {
             totalTasksLabel.setText(String.valueOf(stats.totalTasks));
@@ -91,10 +108,7 @@ public class StatisticsController {
             pendingTasksLabel.setText(String.valueOf(stats.pendingTasks));
         }
         if (todayTasksLabel != null) {
-            LocalDate today = LocalDate.now();
-            long todayTasks = tasks.stream()
-                    .filter(task -> task.getDueDate().equals(today) && !task.isDone())
-                    .count();
+            int todayTasks = columns.countPendingDueOn(ClockService.getInstance().today());
             todayTasksLabel.setText(String.valueOf(todayTasks));
         }
         if (overdueTasksLabel != null) {
@@ -119,22 +133,14 @@ public class StatisticsController {
      * 更新進度統計
      */
     private void updateProgress() {
-        LocalDate today = LocalDate.now();
+        LocalDate today = ClockService.getInstance().today();
         YearMonth currentMonth = YearMonth.now();
 
         // 計算今日完成任務數
-        long dailyCompleted = tasks.stream()
-                .filter(Task::isDone)
-                .filter(t -> t.getCompletedAt() != null &&
-                        t.getCompletedAt().toLocalDate().equals(today))
-                .count();
+        int dailyCompleted = columns.countCompletedBetween(today, today);
 
         // 計算本月完成任務數
-        long monthlyCompleted = tasks.stream()
-                .filter(Task::isDone)
-                .filter(t -> t.getCompletedAt() != null &&
-                        YearMonth.from(t.getCompletedAt().toLocalDate()).equals(currentMonth))
-                .count();
+        int monthlyCompleted = columns.countCompletedBetween(currentMonth.atDay(1), currentMonth.atEndOfMonth());
 
         if (dailyProgressLabel != null) {
             dailyProgressLabel.setText(dailyCompleted + "/" + DAILY_GOAL);
@@ -157,11 +163,29 @@ public class StatisticsController {
         }
     }
 
+    /**
+     * 在 FX 執行緒累計記憶體中的任務，再到背景串流封存任務，算完才顯示對話框
+     */
+    private void showStatisticsWithHistory() {
+        StatisticsService.Accumulator accumulator = new StatisticsService.Accumulator();
+        accumulator.add(columns);
+        CompletableFuture.supplyAsync(() -> {
+            historySource.accept(accumulator::add);
+            return accumulator.build();
+        }).whenComplete((stats, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                error.printStackTrace();
+                MessageUtil.showError("無法計算統計: " + error.getMessage());
+            } else {
+                showStatisticsDialog(stats);
+            }
+        }));
+    }
+
     /**
      * 顯示詳細統計對話框
      */
-    private void showStatisticsDialog() {
-        StatisticsService.TaskStatistics stats = StatisticsService.calculateStatistics(tasks);
+    private void showStatisticsDialog(StatisticsService.TaskStatistics stats) {
 
         Dialog<Void> dialog = new Dialog<>();
         dialog.setTitle("📊 詳細統計報告");
@@ -198,7 +222,7 @@ public class StatisticsController {
                 new FileChooser.ExtensionFilter("文字檔案", "*.txt"),
                 new FileChooser.ExtensionFilter("CSV檔案", "*.csv")
         );
-        fileChooser.setInitialFileName("任務統計報告_" + LocalDate.now() + ".txt");
+        fileChooser.setInitialFileName("任務統計報告_" + ClockService.getInstance().today() + ".txt");
 
         File file = fileChooser.showSaveDialog(statsButton.getScene().getWindow());
         if (file != null) {
@@ -267,7 +291,7 @@ public class StatisticsController {
      * 獲取當前統計摘要
      */
     public String getStatisticsSummary() {
-        StatisticsService.TaskStatistics stats = StatisticsService.calculateStatistics(tasks);
+        StatisticsService.TaskStatistics stats = StatisticsService.calculateStatistics(columns);
         return String.format("任務統計 - 總計:%d, 完成:%d (%.1f%%), 逾期:%d",
                 stats.totalTasks, stats.completedTasks,
                 stats.completionRate, stats.overdueTasks);
@@ -277,13 +301,8 @@ public class StatisticsController {
      * 檢查是否達成每日目標
      */
     public boolean isDailyGoalReached() {
-        LocalDate today = LocalDate.now();
-        long dailyCompleted = tasks.stream()
-                .filter(Task::isDone)
-                .filter(t -> t.getCompletedAt() != null &&
-                        t.getCompletedAt().toLocalDate().equals(today))
-                .count();
-        return dailyCompleted >= DAILY_GOAL;
+        LocalDate today = ClockService.getInstance().today();
+        return columns.countCompletedBetween(today, today) >= DAILY_GOAL;
     }
 
     /**
@@ -291,21 +310,13 @@ public class StatisticsController {
      */
     public boolean isMonthlyGoalReached() {
         YearMonth currentMonth = YearMonth.now();
-        long monthlyCompleted = tasks.stream()
-                .filter(Task::isDone)
-                .filter(t -> t.getCompletedAt() != null &&
-                        YearMonth.from(t.getCompletedAt().toLocalDate()).equals(currentMonth))
-                .count();
-        return monthlyCompleted >= MONTHLY_GOAL;
+        return columns.countCompletedBetween(currentMonth.atDay(1), currentMonth.atEndOfMonth()) >= MONTHLY_GOAL;
     }
 
     /**
      * 獲取今日剩餘任務數
      */
     public int getRemainingTodayTasks() {
-        LocalDate today = LocalDate.now();
-        return (int) tasks.stream()
-                .filter(task -> task.getDueDate().equals(today) && !task.isDone())
-                .count();
+        return columns.countPendingDueOn(ClockService.getInstance().today());
     }
 }
\ No newline at end of file
@@ -3,8 +3,9 @@ package tw.ntou.pettracker.controller;
 import javafx.collections.ObservableList;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
-import tw.ntou.pettracker.model.Pet;
 import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskStore;
+import tw.ntou.pettracker.service.ClockService;
 import tw.ntou.pettracker.service.NotificationService;
 import tw.ntou.pettracker.util.MessageUtil;
 
@@ -17,12 +18,12 @@ import java.util.function.Consumer;
  * 處理所有任務相關的業務邏輯
  */
 public class TaskController {
-    private final ObservableList<Task> tasks;
+    private final TaskStore tasks;
     private final Consumer<String> saveStateCallback;
     private AnimationController animationController;
     private NotificationService notificationService;
 
-    public TaskController(ObservableList<Task> tasks, Consumer<String> saveStateCallback) {
+    public TaskController(TaskStore tasks, Consumer<String> saveStateCallback) {
         this.tasks = tasks;
         this.saveStateCallback = saveStateCallback;
     }
@@ -45,9 +46,9 @@ public class TaskController {
     }
 
     /**
-     * 批量完成任務
+     * 批量完成任務（寵物獎勵、動畫與統計在 batch 結束時合併處理）
      */
-    public void batchComplete(ObservableList<Task> selectedTasks, Pet pet) {
+    public void batchComplete(ObservableList<Task> selectedTasks) {
         if (selectedTasks.isEmpty()) return;
 
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
@@ -60,23 +61,18 @@ public class TaskController {
                 saveStateCallback.accept("批量完成任務");
 
                 List<Task> tasksToComplete = new ArrayList<>(selectedTasks);
-                int completedCount = 0;
+                int[] completedCount = {0};
 
-                for (Task task : tasksToComplete) {
-                    if (!task.isDone()) {
-                        task.setDone(true);
-                        if (pet != null) {
-                            pet.reactToTaskCompletion(task.getPriority());
+                tasks.batch(() -> {
+                    for (Task task : tasksToComplete) {
+                        if (!task.isDone()) {
+                            task.setDone(true);
+                            completedCount[0]++;
                         }
-                        completedCount++;
                     }
-                }
+                });
 
-                if (animationController != null) {
-                    animationController.playTaskCompletionAnimation();
-                }
-
-                MessageUtil.showCelebration(String.format("批量完成了 %d 個任務！", completedCount));
+                MessageUtil.showCelebration(String.format("批量完成了 %d 個任務！", completedCount[0]));
             }
         });
     }
@@ -107,13 +103,9 @@ public class TaskController {
     /**
      * 移動任務位置（用於拖放）
      */
-    public void moveTask(ObservableList<Task> tasks, int fromIndex, int toIndex) {
-        Task task = tasks.remove(fromIndex);
-        if (toIndex > fromIndex) {
-            tasks.add(toIndex - 1, task);
-        } else {
-            tasks.add(toIndex, task);
-        }
+    public void moveTask(TaskStore tasks, int fromIndex, int toIndex) {
+        // 以一次重排通知，不會被當成刪除再新增
+        tasks.move(fromIndex, toIndex > fromIndex ? toIndex - 1 : toIndex);
     }
 
     /**
@@ -171,7 +163,7 @@ public class TaskController {
         long completed = tasks.stream().filter(Task::isDone).count();
         long pending = tasks.stream().filter(t -> !t.isDone()).count();
         long overdue = tasks.stream()
-                .filter(t -> !t.isDone() && t.getDueDate().isBefore(LocalDate.now()))
+                .filter(t -> !t.isDone() && t.getDueDate().isBefore(ClockService.getInstance().today()))
                 .count();
 
         return new TaskStatistics(total, completed, pending, overdue);
@@ -1,8 +1,13 @@
 package tw.ntou.pettracker.model;
 
+import java.time.LocalDateTime;
+
 public class AchievementData {
     public String id;
     public boolean unlocked;
+    public int progress;
+    public LocalDateTime unlockedAt;
+    public boolean notificationShown;
 
     public AchievementData() {}
 
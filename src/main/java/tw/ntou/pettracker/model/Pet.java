@@ -5,6 +5,7 @@ import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * 寵物 Model，包含滿意度、飽食度，以及根據狀態決定要播放哪段影片
@@ -13,8 +14,12 @@ public class Pet {
 
     // ===== 滿意度屬性 =====
     private final IntegerProperty satisfaction = new SimpleIntegerProperty(this, "satisfaction", 80);
-    private int playChances = 0;
-    private LocalDate lastRewardDate;
+    private final IntegerProperty playChances = new SimpleIntegerProperty(this, "playChances", 0);
+    private final ObjectProperty<LocalDate> lastRewardDate = new SimpleObjectProperty<>(this, "lastRewardDate");
+
+    // 累計次數
+    private final IntegerProperty feedCount = new SimpleIntegerProperty(this, "feedCount", 0);
+    private final IntegerProperty playCount = new SimpleIntegerProperty(this, "playCount", 0);
 
     public int getSatisfaction() {
         return satisfaction.get();
@@ -72,31 +77,40 @@ public class Pet {
      * 根據任務完成情況更新寵物狀態
      */
     public void reactToTaskCompletion(int priority) {
+        reactToTaskCompletions(List.of(priority));
+    }
+
+    /**
+     * 一次完成多個任務時合併獎勵，滿意度與飽食度各只更新一次
+     */
+    public void reactToTaskCompletions(List<Integer> priorities) {
         int satisfactionGain = 0;
         int fullnessGain = 0;
 
         // 根據任務優先級給予不同獎勵
-        switch (priority) {
-            case 1: // 最高優先級
-                satisfactionGain = 15;
-                fullnessGain = 10;
-                break;
-            case 2:
-                satisfactionGain = 10;
-                fullnessGain = 8;
-                break;
-            case 3:
-                satisfactionGain = 8;
-                fullnessGain = 5;
-                break;
-            case 4:
-                satisfactionGain = 5;
-                fullnessGain = 3;
-                break;
-            case 5: // 最低優先級
-                satisfactionGain = 3;
-                fullnessGain = 2;
-                break;
+        for (int priority : priorities) {
+            switch (priority) {
+                case 1: // 最高優先級
+                    satisfactionGain += 15;
+                    fullnessGain += 10;
+                    break;
+                case 2:
+                    satisfactionGain += 10;
+                    fullnessGain += 8;
+                    break;
+                case 3:
+                    satisfactionGain += 8;
+                    fullnessGain += 5;
+                    break;
+                case 4:
+                    satisfactionGain += 5;
+                    fullnessGain += 3;
+                    break;
+                case 5: // 最低優先級
+                    satisfactionGain += 3;
+                    fullnessGain += 2;
+                    break;
+            }
         }
 
         setSatisfaction(getSatisfaction() + satisfactionGain);
@@ -109,6 +123,7 @@ public class Pet {
     public void feed() {
         setFullness(getFullness() + 20);
         setSatisfaction(getSatisfaction() + 5);
+        feedCount.set(feedCount.get() + 1);
     }
 
     /**
@@ -119,8 +134,9 @@ public class Pet {
 
         setSatisfaction(getSatisfaction() + 15);
         setFullness(Math.max(0, getFullness() - 5)); // 玩耍會稍微消耗飽食度
+        playCount.set(playCount.get() + 1);
 
-        System.out.println("✅ 玩耍成功！剩餘次數：" + playChances);
+        System.out.println("✅ 玩耍成功！剩餘次數：" + getPlayChances());
     }
 
     /**
@@ -226,11 +242,22 @@ public class Pet {
     }
 
     //獲得玩耍次數
-    public void addPlayChance(int amount) {playChances += amount;}
+    public void addPlayChance(int amount) {playChances.set(playChances.get() + amount);}
     //使用玩耍次數
-    public void usePlayChance() {if (playChances > 0) {playChances--;}}
+    public void usePlayChance() {if (playChances.get() > 0) {playChances.set(playChances.get() - 1);}}
     //回傳玩耍次數
-    public int getPlayChances() {return playChances;}
-    public LocalDate getLastRewardDate() { return lastRewardDate;}
-    public void setLastRewardDate(LocalDate date) { this.lastRewardDate = date;}
+    public int getPlayChances() {return playChances.get();}
+    public void setPlayChances(int v) {playChances.set(Math.max(0, v));}
+    public IntegerProperty playChancesProperty() {return playChances;}
+    public LocalDate getLastRewardDate() { return lastRewardDate.get();}
+    public void setLastRewardDate(LocalDate date) { lastRewardDate.set(date);}
+    public ObjectProperty<LocalDate> lastRewardDateProperty() { return lastRewardDate;}
+
+    public int getFeedCount() { return feedCount.get(); }
+    public void setFeedCount(int v) { feedCount.set(v); }
+    public IntegerProperty feedCountProperty() { return feedCount; }
+
+    public int getPlayCount() { return playCount.get(); }
+    public void setPlayCount(int v) { playCount.set(v); }
+    public IntegerProperty playCountProperty() { return playCount; }
 }
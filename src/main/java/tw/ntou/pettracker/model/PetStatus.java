@@ -1,9 +1,37 @@
 package tw.ntou.pettracker.model;
 
+/**
+ * PET.json 的內容：寵物完整狀態（舊版只有 lastRewardDate，其餘欄位缺少時為 null / 0）
+ */
 public class PetStatus {
     private String lastRewardDate;
+    private Integer satisfaction;
+    private Integer fullness;
+    private int playChances;
+    private int feedCount;
+    private int playCount;
 
     public String getLastRewardDate() {return lastRewardDate;}
 
     public void setLastRewardDate(String lastRewardDate) {this.lastRewardDate = lastRewardDate;}
+
+    public Integer getSatisfaction() {return satisfaction;}
+
+    public void setSatisfaction(Integer satisfaction) {this.satisfaction = satisfaction;}
+
+    public Integer getFullness() {return fullness;}
+
+    public void setFullness(Integer fullness) {this.fullness = fullness;}
+
+    public int getPlayChances() {return playChances;}
+
+    public void setPlayChances(int playChances) {this.playChances = playChances;}
+
+    public int getFeedCount() {return feedCount;}
+
+    public void setFeedCount(int feedCount) {this.feedCount = feedCount;}
+
+    public int getPlayCount() {return playCount;}
+
+    public void setPlayCount(int playCount) {this.playCount = playCount;}
 }
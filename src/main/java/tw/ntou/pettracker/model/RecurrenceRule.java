@@ -0,0 +1,355 @@
+package tw.ntou.pettracker.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 重複規則 - RRULE 格式的子集，依需要逐一展開某段日期內的發生日，不建立任務物件
+ *
+ * 支援 FREQ=DAILY/WEEKLY/MONTHLY/YEARLY、INTERVAL、BYDAY（只用於每週、每月；
+ * 每月可帶一個序號，如 2TU、-1FR）、BYSETPOS 與 UNTIL，其餘組合視為格式錯誤。規則以起始日（anchor）為基準：每週的週期從起始日那一週算起，
+ * 沒有 BYDAY 時每月/每年取起始日的同一天（該月沒有這天時取月底）
+ */
+public final class RecurrenceRule {
+    public enum Frequency { DAILY, WEEKLY, MONTHLY, YEARLY }
+
+    public static final RecurrenceRule DAILY = new RecurrenceRule(Frequency.DAILY, 1, Set.of(), 0, null);
+    public static final RecurrenceRule WEEKLY = new RecurrenceRule(Frequency.WEEKLY, 1, Set.of(), 0, null);
+    public static final RecurrenceRule MONTHLY = new RecurrenceRule(Frequency.MONTHLY, 1, Set.of(), 0, null);
+    public static final RecurrenceRule YEARLY = new RecurrenceRule(Frequency.YEARLY, 1, Set.of(), 0, null);
+    public static final RecurrenceRule WEEKDAYS = new RecurrenceRule(Frequency.WEEKLY, 1,
+            EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), 0, null);
+
+    private static final String[] DAY_CODES = {"MO", "TU", "WE", "TH", "FR", "SA", "SU"};
+    private static final DateTimeFormatter UNTIL_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    // 沒有結束日時，連續這麼多個週期都沒有發生日就停止（例如每月第 5 個週一）
+    private static final int MAX_EMPTY_PERIODS = 1000;
+
+    private final Frequency frequency;
+    private final int interval;
+    private final Set<DayOfWeek> byDay;
+    // 每月第幾個符合的星期（負數從月底算），0 表示全部
+    private final int setPos;
+    private final LocalDate until;
+
+    public RecurrenceRule(Frequency frequency, int interval, Set<DayOfWeek> byDay, int setPos, LocalDate until) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("INTERVAL 必須大於 0");
+        }
+        if (!byDay.isEmpty() && (frequency == Frequency.DAILY || frequency == Frequency.YEARLY)) {
+            throw new IllegalArgumentException("BYDAY 只能用在每週或每月");
+        }
+        if (setPos != 0 && (byDay.isEmpty() || frequency != Frequency.MONTHLY)) {
+            throw new IllegalArgumentException("序號只能用在每月的 BYDAY");
+        }
+        this.frequency = frequency;
+        this.interval = interval;
+        this.byDay = byDay.isEmpty() ? Set.of() : EnumSet.copyOf(byDay);
+        this.setPos = setPos;
+        this.until = until;
+    }
+
+    /** 內建的重複模式對應的規則；CUSTOM 沒有固定規則，回傳 null */
+    public static RecurrenceRule of(Task.RepeatPattern pattern) {
+        switch (pattern) {
+            case DAILY: return DAILY;
+            case WEEKLY: return WEEKLY;
+            case MONTHLY: return MONTHLY;
+            case YEARLY: return YEARLY;
+            case WEEKDAYS: return WEEKDAYS;
+            default: return null;
+        }
+    }
+
+    /**
+     * 解析 RRULE（可帶或不帶 "RRULE:" 前綴），格式錯誤時拋出 IllegalArgumentException
+     */
+    public static RecurrenceRule parse(String text) {
+        String rule = text.trim().toUpperCase(Locale.ROOT);
+        if (rule.startsWith("RRULE:")) {
+            rule = rule.substring("RRULE:".length());
+        }
+        Frequency frequency = null;
+        int interval = 1;
+        Set<DayOfWeek> byDay = EnumSet.noneOf(DayOfWeek.class);
+        int setPos = 0;
+        boolean hasSetPos = false;
+        boolean dayOrdinal = false;
+        LocalDate until = null;
+        for (String part : rule.split(";")) {
+            if (part.isEmpty()) {
+                continue;
+            }
+            int eq = part.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("無法解析: " + part);
+            }
+            String key = part.substring(0, eq);
+            String value = part.substring(eq + 1);
+            try {
+                switch (key) {
+                    case "FREQ":
+                        frequency = Frequency.valueOf(value);
+                        break;
+                    case "INTERVAL":
+                        interval = Integer.parseInt(value);
+                        break;
+                    case "BYDAY":
+                        String[] days = value.split(",");
+                        for (String day : days) {
+                            // 2TU、-1FR 之類帶序號的寫法只有一個星期時才等同 BYSETPOS，
+                            // 1MO,3FR 這種各自不同序號的寫法不支援
+                            int prefix = day.length() - 2;
+                            if (prefix > 0) {
+                                if (days.length > 1) {
+                                    throw new IllegalArgumentException("帶序號的 BYDAY 只能指定一個星期: " + value);
+                                }
+                                setPos = Integer.parseInt(day.substring(0, prefix));
+                                dayOrdinal = true;
+                            }
+                            byDay.add(dayOf(day.substring(prefix)));
+                        }
+                        break;
+                    case "BYSETPOS":
+                        setPos = Integer.parseInt(value);
+                        hasSetPos = true;
+                        break;
+                    case "UNTIL":
+                        until = LocalDate.parse(value.length() > 8 ? value.substring(0, 8) : value, UNTIL_FORMAT);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("不支援的欄位: " + key);
+                }
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException("無法解析: " + part, e);
+            }
+        }
+        if (frequency == null) {
+            throw new IllegalArgumentException("缺少 FREQ");
+        }
+        if (dayOrdinal && hasSetPos) {
+            throw new IllegalArgumentException("BYDAY 的序號不能與 BYSETPOS 同時使用");
+        }
+        return new RecurrenceRule(frequency, interval, byDay, setPos, until);
+    }
+
+    private static DayOfWeek dayOf(String code) {
+        for (int i = 0; i < DAY_CODES.length; i++) {
+            if (DAY_CODES[i].equals(code)) {
+                return DayOfWeek.of(i + 1);
+            }
+        }
+        throw new IllegalArgumentException("無法解析星期: " + code);
+    }
+
+    public Frequency getFrequency() { return frequency; }
+    public int getInterval() { return interval; }
+    public Set<DayOfWeek> getByDay() { return byDay; }
+    public int getSetPos() { return setPos; }
+    public LocalDate getUntil() { return until; }
+
+    /** anchor 之後（不含 after）的第一個發生日，沒有時為 null */
+    public LocalDate next(LocalDate anchor, LocalDate after) {
+        Iterator<LocalDate> it = between(anchor, after.plusDays(1), null).iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    /**
+     * 依序列出 from 到 to（皆含，to 為 null 表示不限）之間的發生日；
+     * 直接跳到 from 所在的週期開始計算，不逐一走過之前的發生日
+     */
+    public Iterable<LocalDate> between(LocalDate anchor, LocalDate from, LocalDate to) {
+        LocalDate start = from.isBefore(anchor) ? anchor : from;
+        LocalDate end = until == null ? to : (to == null || until.isBefore(to) ? until : to);
+        return () -> new OccurrenceIterator(anchor, start, end);
+    }
+
+    private class OccurrenceIterator implements Iterator<LocalDate> {
+        private final LocalDate anchor;
+        private final LocalDate start;
+        private final LocalDate end;
+        private long period;
+        private List<LocalDate> pending = new ArrayList<>();
+        private int index = 0;
+        private LocalDate nextValue;
+
+        OccurrenceIterator(LocalDate anchor, LocalDate start, LocalDate end) {
+            this.anchor = anchor;
+            this.start = start;
+            this.end = end;
+            this.period = firstPeriod(anchor, start);
+            advance();
+        }
+
+        private void advance() {
+            nextValue = null;
+            int emptyPeriods = 0;
+            while (emptyPeriods <= MAX_EMPTY_PERIODS) {
+                while (index < pending.size()) {
+                    LocalDate candidate = pending.get(index++);
+                    if (candidate.isBefore(start)) {
+                        continue;
+                    }
+                    if (end != null && candidate.isAfter(end)) {
+                        return;
+                    }
+                    nextValue = candidate;
+                    return;
+                }
+                LocalDate periodStart = periodStart(anchor, period);
+                if (end != null && periodStart.isAfter(end)) {
+                    return;
+                }
+                pending = candidates(anchor, period);
+                index = 0;
+                period++;
+                emptyPeriods++;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextValue != null;
+        }
+
+        @Override
+        public LocalDate next() {
+            if (nextValue == null) {
+                throw new NoSuchElementException();
+            }
+            LocalDate value = nextValue;
+            advance();
+            return value;
+        }
+    }
+
+    // from 所在（或之前最近）的週期編號
+    private long firstPeriod(LocalDate anchor, LocalDate from) {
+        long units;
+        switch (frequency) {
+            case DAILY:
+                units = ChronoUnit.DAYS.between(anchor, from);
+                break;
+            case WEEKLY:
+                units = ChronoUnit.WEEKS.between(weekStart(anchor), weekStart(from));
+                break;
+            case MONTHLY:
+                units = ChronoUnit.MONTHS.between(YearMonth.from(anchor), YearMonth.from(from));
+                break;
+            default:
+                units = from.getYear() - anchor.getYear();
+                break;
+        }
+        return Math.max(0, Math.floorDiv(units, interval));
+    }
+
+    private LocalDate periodStart(LocalDate anchor, long period) {
+        long units = period * interval;
+        switch (frequency) {
+            case DAILY: return anchor.plusDays(units);
+            case WEEKLY: return weekStart(anchor).plusWeeks(units);
+            case MONTHLY: return YearMonth.from(anchor).plusMonths(units).atDay(1);
+            default: return LocalDate.of(anchor.getYear(), 1, 1).plusYears(units);
+        }
+    }
+
+    // 一個週期內依日期排序的發生日（不早於 anchor）
+    private List<LocalDate> candidates(LocalDate anchor, long period) {
+        long units = period * interval;
+        List<LocalDate> dates = new ArrayList<>(byDay.isEmpty() ? 1 : byDay.size() * 5);
+        switch (frequency) {
+            case DAILY:
+                dates.add(anchor.plusDays(units));
+                break;
+            case WEEKLY:
+                if (byDay.isEmpty()) {
+                    dates.add(anchor.plusWeeks(units));
+                } else {
+                    LocalDate monday = weekStart(anchor).plusWeeks(units);
+                    for (DayOfWeek day : byDay) {
+                        dates.add(monday.plusDays(day.getValue() - 1));
+                    }
+                }
+                break;
+            case MONTHLY:
+                YearMonth month = YearMonth.from(anchor).plusMonths(units);
+                if (byDay.isEmpty()) {
+                    dates.add(anchor.plusMonths(units));
+                } else {
+                    List<LocalDate> matching = new ArrayList<>();
+                    for (LocalDate d = month.atDay(1); !d.isAfter(month.atEndOfMonth()); d = d.plusDays(1)) {
+                        if (byDay.contains(d.getDayOfWeek())) {
+                            matching.add(d);
+                        }
+                    }
+                    if (setPos == 0) {
+                        dates.addAll(matching);
+                    } else {
+                        int i = setPos > 0 ? setPos - 1 : matching.size() + setPos;
+                        if (i >= 0 && i < matching.size()) {
+                            dates.add(matching.get(i));
+                        }
+                    }
+                }
+                break;
+            default:
+                dates.add(anchor.plusYears(units));
+                break;
+        }
+        dates.removeIf(d -> d.isBefore(anchor));
+        return dates;
+    }
+
+    private static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    /** RRULE 文字（不含前綴） */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("FREQ=").append(frequency);
+        if (interval != 1) {
+            sb.append(";INTERVAL=").append(interval);
+        }
+        if (!byDay.isEmpty()) {
+            sb.append(";BYDAY=");
+            boolean first = true;
+            for (DayOfWeek day : byDay) {
+                if (!first) {
+                    sb.append(',');
+                }
+                sb.append(DAY_CODES[day.getValue() - 1]);
+                first = false;
+            }
+            if (setPos != 0) {
+                sb.append(";BYSETPOS=").append(setPos);
+            }
+        }
+        if (until != null) {
+            sb.append(";UNTIL=").append(UNTIL_FORMAT.format(until));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof RecurrenceRule && toString().equals(o.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+}
@@ -0,0 +1,387 @@
+package tw.ntou.pettracker.model;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.TransformationList;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 排序後的任務檢視 - 表格從頭到尾用同一份，換排序方式只重排這份清單，不再每次新建 SortedList
+ *
+ * 每列預先算好排序鍵：到期日與優先級等組合成一個 long、名稱用 CollationKey，比較時不呼叫屬性 getter；
+ * 任務的排序欄位變更時只把那一列移到新位置（以重排通知，保留選取）。
+ * 沒有指定排序時維持來源順序（手動調整的順序）；只在 FX 執行緒上使用
+ */
+public class SortedTaskView extends TransformationList<Task, Task> {
+
+    public enum Order { DUE_DATE, PRIORITY, NAME, DONE, CATEGORY }
+
+    private static final int NO_DAY = Integer.MIN_VALUE;
+    // 一次變更超過這個數量時整份重排，比逐列插入快
+    private static final int REBUILD_THRESHOLD = 64;
+
+    private final Collator collator = Collator.getInstance(Locale.TAIWAN);
+    private Order order;
+    // 只有在指定排序時使用；entryOf 記著各列上次排序用的鍵，移動時才找得到舊位置
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<Task, Entry> entryOf = new IdentityHashMap<>();
+
+    private final Task.FieldChangeListener fieldListener = (task, field, oldValue, newValue) -> {
+        switch (field) {
+            case "description":
+                reposition(task, true);
+                break;
+            case "dueDate":
+            case "priority":
+            case "done":
+            case "category":
+                reposition(task, false);
+                break;
+            default:
+                break;
+        }
+    };
+
+    public SortedTaskView(ObservableList<Task> source) {
+        super(source);
+        collator.setStrength(Collator.SECONDARY);
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    /** 換排序方式；null 表示維持來源順序。整份重排後以一次重排通知 */
+    public void setOrder(Order order) {
+        if (order == this.order) {
+            return;
+        }
+        List<Task> before = new ArrayList<>(this);
+        boolean wasSorted = this.order != null;
+        this.order = order;
+        if (order == null) {
+            clearEntries();
+        } else if (wasSorted) {
+            // 已有的列只重算排序鍵
+            for (Entry entry : entries) {
+                computeKey(entry);
+            }
+        } else {
+            for (Task task : getSource()) {
+                Entry entry = addEntry(task);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+        }
+        if (order != null) {
+            entries.sort(this::compare);
+        }
+        firePermutation(before);
+    }
+
+    @Override
+    protected void sourceChanged(ListChangeListener.Change<? extends Task> c) {
+        if (order == null) {
+            forward(c);
+            return;
+        }
+        int churn = 0;
+        while (c.next()) {
+            if (c.wasUpdated()) {
+                churn += c.getTo() - c.getFrom();
+            } else if (!c.wasPermutated()) {
+                churn += c.getRemovedSize() + c.getAddedSize();
+            }
+        }
+        c.reset();
+        if (churn > REBUILD_THRESHOLD) {
+            rebuild();
+            return;
+        }
+        beginChange();
+        while (c.next()) {
+            if (c.wasPermutated()) {
+                // 來源順序不影響排序結果
+                continue;
+            }
+            if (c.wasUpdated()) {
+                for (int i = c.getFrom(); i < c.getTo(); i++) {
+                    move(getSource().get(i), true);
+                }
+                continue;
+            }
+            for (Task task : c.getRemoved()) {
+                Entry entry = entryOf.remove(task);
+                if (entry != null) {
+                    task.removeFieldChangeListener(fieldListener);
+                    int pos = positionOf(entry);
+                    entries.remove(pos);
+                    nextRemove(pos, task);
+                }
+            }
+            for (Task task : c.getAddedSubList()) {
+                Entry entry = addEntry(task);
+                if (entry != null) {
+                    int pos = insertionPoint(entry);
+                    entries.add(pos, entry);
+                    nextAdd(pos, pos + 1);
+                }
+            }
+        }
+        endChange();
+    }
+
+    // 維持來源順序時原樣轉送
+    private void forward(ListChangeListener.Change<? extends Task> c) {
+        beginChange();
+        while (c.next()) {
+            if (c.wasPermutated()) {
+                int[] perm = new int[c.getTo() - c.getFrom()];
+                for (int i = c.getFrom(); i < c.getTo(); i++) {
+                    perm[i - c.getFrom()] = c.getPermutation(i);
+                }
+                nextPermutation(c.getFrom(), c.getTo(), perm);
+            } else if (c.wasUpdated()) {
+                for (int i = c.getFrom(); i < c.getTo(); i++) {
+                    nextUpdate(i);
+                }
+            } else {
+                if (c.wasRemoved()) {
+                    nextRemove(c.getFrom(), c.getRemoved());
+                }
+                if (c.wasAdded()) {
+                    nextAdd(c.getFrom(), c.getTo());
+                }
+            }
+        }
+        endChange();
+    }
+
+    // 大量變更（例如換篩選條件）：保留仍在的列的排序鍵，整份重排
+    private void rebuild() {
+        List<Task> before = new ArrayList<>(this);
+        Map<Task, Entry> kept = new IdentityHashMap<>(entryOf);
+        entries.clear();
+        entryOf.clear();
+        for (Task task : getSource()) {
+            Entry entry = kept.remove(task);
+            if (entry == null) {
+                entry = addEntry(task);
+            } else if (!entryOf.containsKey(task)) {
+                entryOf.put(task, entry);
+            } else {
+                entry = null;
+            }
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        for (Task task : kept.keySet()) {
+            task.removeFieldChangeListener(fieldListener);
+        }
+        entries.sort(this::compare);
+        beginChange();
+        if (!before.isEmpty()) {
+            nextRemove(0, before);
+        }
+        if (!entries.isEmpty()) {
+            nextAdd(0, entries.size());
+        }
+        endChange();
+    }
+
+    private void reposition(Task task, boolean nameChanged) {
+        if (entryOf.containsKey(task)) {
+            beginChange();
+            move(task, nameChanged);
+            endChange();
+        }
+    }
+
+    // 以舊的鍵找到目前位置，重算鍵後移到新位置；只有中間這段需要重排
+    private void move(Task task, boolean nameChanged) {
+        Entry entry = entryOf.get(task);
+        if (entry == null) {
+            return;
+        }
+        int from = positionOf(entry);
+        entries.remove(from);
+        if (nameChanged) {
+            entry.name = null;
+        }
+        computeKey(entry);
+        int to = insertionPoint(entry);
+        entries.add(to, entry);
+        if (from == to) {
+            return;
+        }
+        int lo = Math.min(from, to);
+        int hi = Math.max(from, to) + 1;
+        int[] perm = new int[hi - lo];
+        for (int i = lo; i < hi; i++) {
+            int moved = i == from ? to : from < to ? i - 1 : i + 1;
+            perm[i - lo] = moved;
+        }
+        nextPermutation(lo, hi, perm);
+    }
+
+    private Entry addEntry(Task task) {
+        if (entryOf.containsKey(task)) {
+            return null;
+        }
+        Entry entry = new Entry(task);
+        computeKey(entry);
+        entryOf.put(task, entry);
+        task.addFieldChangeListener(fieldListener);
+        return entry;
+    }
+
+    private void clearEntries() {
+        for (Task task : entryOf.keySet()) {
+            task.removeFieldChangeListener(fieldListener);
+        }
+        entries.clear();
+        entryOf.clear();
+    }
+
+    // 各列原本的位置對應到新位置
+    private void firePermutation(List<Task> before) {
+        if (before.isEmpty()) {
+            return;
+        }
+        Map<Task, Integer> newIndex = new IdentityHashMap<>(before.size());
+        for (int i = 0; i < size(); i++) {
+            newIndex.put(get(i), i);
+        }
+        int[] perm = new int[before.size()];
+        for (int i = 0; i < perm.length; i++) {
+            perm[i] = newIndex.get(before.get(i));
+        }
+        beginChange();
+        nextPermutation(0, perm.length, perm);
+        endChange();
+    }
+
+    // ===== 排序鍵 =====
+
+    private void computeKey(Entry entry) {
+        Task task = entry.task;
+        LocalDate due = task.getDueDate();
+        long day = due != null ? (int) due.toEpochDay() : NO_DAY;
+        switch (order) {
+            case PRIORITY:
+                entry.key = ((long) task.getPriority() << 32) + day;
+                break;
+            case NAME:
+                // 名稱的鍵算起來較貴，描述沒變就沿用
+                if (entry.name == null) {
+                    String description = task.getDescription();
+                    entry.name = collator.getCollationKey(description != null ? description : "");
+                }
+                break;
+            case DONE:
+                entry.key = ((task.isDone() ? 1L : 0L) << 32) + day;
+                break;
+            case CATEGORY:
+                Task.TaskCategory category = task.getCategory();
+                entry.key = ((long) (category != null ? category.ordinal() + 1 : 0) << 32) + day;
+                break;
+            case DUE_DATE:
+            default:
+                entry.key = (day << 32) + task.getPriority();
+                break;
+        }
+    }
+
+    private int compare(Entry a, Entry b) {
+        return order == Order.NAME ? a.name.compareTo(b.name) : Long.compare(a.key, b.key);
+    }
+
+    // 鍵相同的列之後，新加入的排在最後
+    private int insertionPoint(Entry entry) {
+        int lo = 0;
+        int hi = entries.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(entries.get(mid), entry) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // 鍵相同的第一列開始往後找同一個物件
+    private int positionOf(Entry entry) {
+        int lo = 0;
+        int hi = entries.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(entries.get(mid), entry) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        while (entries.get(lo) != entry) {
+            lo++;
+        }
+        return lo;
+    }
+
+    // ===== 清單內容 =====
+
+    @Override
+    public Task get(int index) {
+        return order == null ? getSource().get(index) : entries.get(index).task;
+    }
+
+    @Override
+    public int size() {
+        return order == null ? getSource().size() : entries.size();
+    }
+
+    @Override
+    public int getSourceIndex(int index) {
+        return order == null ? index : indexOfIdentity(getSource(), get(index));
+    }
+
+    @Override
+    public int getViewIndex(int index) {
+        if (order == null) {
+            return index;
+        }
+        Entry entry = entryOf.get(getSource().get(index));
+        return entry != null ? positionOf(entry) : -1;
+    }
+
+    private static int indexOfIdentity(List<? extends Task> list, Task task) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == task) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** 一列的排序鍵；key 依目前的排序方式計算，name 只在依名稱排序時建立並保留到描述變更 */
+    private static final class Entry {
+        final Task task;
+        long key;
+        CollationKey name;
+
+        Entry(Task task) {
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package tw.ntou.pettracker.model;
+
+public class SubTaskData {
+    public String description;
+    public boolean done;
+
+    public SubTaskData() {}
+
+    public SubTaskData(String description, boolean done) {
+        this.description = description;
+        this.done = done;
+    }
+}
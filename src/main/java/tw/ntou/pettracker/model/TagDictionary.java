@@ -0,0 +1,92 @@
+package tw.ntou.pettracker.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 標籤字典 - 每個標籤（小寫）對應一個固定的整數 id，整個程式共用
+ *
+ * 任務的標籤字串以逗號、空白或 # 分隔，解析一次後以 id 表示
+ */
+public class TagDictionary {
+    private static final int[] NO_TAGS = new int[0];
+    private static TagDictionary instance;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    private TagDictionary() {
+    }
+
+    public static synchronized TagDictionary getInstance() {
+        if (instance == null) {
+            instance = new TagDictionary();
+        }
+        return instance;
+    }
+
+    /** 取得標籤 id，沒有時新增 */
+    public synchronized int intern(String tag) {
+        String key = tag.toLowerCase();
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = names.size();
+            ids.put(key, id);
+            names.add(key);
+        }
+        return id;
+    }
+
+    /** 已存在的標籤 id，沒有時為 -1 */
+    public synchronized int idOf(String tag) {
+        Integer id = ids.get(tag.toLowerCase());
+        return id != null ? id : -1;
+    }
+
+    public synchronized String nameOf(int id) {
+        return names.get(id);
+    }
+
+    /** 名稱包含 text（小寫比對）的所有標籤 id */
+    public synchronized int[] idsContaining(String text) {
+        String key = text.toLowerCase();
+        int[] result = new int[names.size()];
+        int count = 0;
+        for (int id = 0; id < names.size(); id++) {
+            if (names.get(id).contains(key)) {
+                result[count++] = id;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /** 解析標籤字串成不重複的 id（依出現順序） */
+    public int[] parse(String tags) {
+        if (tags == null || tags.isBlank()) {
+            return NO_TAGS;
+        }
+        String[] parts = tags.split("[,，;；#\\s]+");
+        int[] result = new int[parts.length];
+        int count = 0;
+        for (String part : parts) {
+            if (part.isEmpty()) {
+                continue;
+            }
+            int id = intern(part);
+            boolean seen = false;
+            for (int i = 0; i < count; i++) {
+                if (result[i] == id) {
+                    seen = true;
+                    break;
+                }
+            }
+            if (!seen) {
+                result[count++] = id;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+}
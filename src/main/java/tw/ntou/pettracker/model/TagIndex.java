@@ -0,0 +1,137 @@
+package tw.ntou.pettracker.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 標籤索引 - 每個標籤一個 BitSet 記錄有此標籤的任務 slot（slot 由 TaskSlots 分配）；
+ * 標籤篩選、各標籤的任務數都是 BitSet 運算，不必逐一比對任務的標籤字串
+ *
+ * 跟著 tags 欄位變更同步，只在 FX 執行緒上使用
+ */
+public class TagIndex implements TaskSlots.Listener {
+    private static final int[] NO_TAGS = new int[0];
+
+    private final TagDictionary dictionary = TagDictionary.getInstance();
+    private final TaskSlots slots;
+    private int[][] slotTags = new int[16][];
+    // 依標籤 id 索引
+    private final List<BitSet> tagSlots = new ArrayList<>();
+
+    private final Task.FieldChangeListener fieldListener = (task, field, oldValue, newValue) -> {
+        if ("tags".equals(field)) {
+            retag(task);
+        }
+    };
+
+    private TagIndex(TaskSlots slots) {
+        this.slots = slots;
+    }
+
+    /** 建立標籤索引並登記到 slots */
+    public static TagIndex create(TaskSlots slots) {
+        TagIndex index = new TagIndex(slots);
+        slots.addListener(index);
+        return index;
+    }
+
+    private void retag(Task task) {
+        int slot = slots.slotOf(task);
+        if (slot >= 0) {
+            setTags(slot, dictionary.parse(task.getTags()));
+        }
+    }
+
+    @Override
+    public void slotAdded(int slot, Task task) {
+        if (slot >= slotTags.length) {
+            slotTags = Arrays.copyOf(slotTags, slots.capacity());
+        }
+        slotTags[slot] = NO_TAGS;
+        setTags(slot, dictionary.parse(task.getTags()));
+        task.addFieldChangeListener(fieldListener);
+    }
+
+    @Override
+    public void slotRemoved(int slot, Task task) {
+        task.removeFieldChangeListener(fieldListener);
+        setTags(slot, NO_TAGS);
+    }
+
+    private void setTags(int slot, int[] tags) {
+        for (int tag : slotTags[slot]) {
+            tagSlots.get(tag).clear(slot);
+        }
+        for (int tag : tags) {
+            while (tagSlots.size() <= tag) {
+                tagSlots.add(new BitSet());
+            }
+            tagSlots.get(tag).set(slot);
+        }
+        slotTags[slot] = tags;
+    }
+
+    // ===== 查詢 =====
+
+    /** 有此標籤的任務 slot（複本） */
+    public BitSet slotsWithTag(String tag) {
+        int id = dictionary.idOf(tag);
+        return id >= 0 && id < tagSlots.size() ? (BitSet) tagSlots.get(id).clone() : new BitSet();
+    }
+
+    /** 任一標籤名稱包含 text 的任務 slot */
+    public BitSet slotsWithTagContaining(String text) {
+        BitSet result = new BitSet();
+        for (int id : dictionary.idsContaining(text)) {
+            if (id < tagSlots.size()) {
+                result.or(tagSlots.get(id));
+            }
+        }
+        return result;
+    }
+
+    /** 同時有所有標籤的任務 slot */
+    public BitSet slotsWithAllTags(List<String> tags) {
+        BitSet result = null;
+        for (String tag : tags) {
+            BitSet slots = slotsWithTag(tag);
+            if (result == null) {
+                result = slots;
+            } else {
+                result.and(slots);
+            }
+        }
+        return result != null ? result : new BitSet();
+    }
+
+    public int countWithTag(String tag) {
+        int id = dictionary.idOf(tag);
+        return id >= 0 && id < tagSlots.size() ? tagSlots.get(id).cardinality() : 0;
+    }
+
+    /**
+     * 各標籤的任務數（只列出至少一個任務的標籤）；within 不為 null 時只計算其中的 slot
+     */
+    public Map<String, Integer> tagCounts(BitSet within) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (int id = 0; id < tagSlots.size(); id++) {
+            BitSet slots = tagSlots.get(id);
+            int count;
+            if (within == null) {
+                count = slots.cardinality();
+            } else {
+                BitSet both = (BitSet) slots.clone();
+                both.and(within);
+                count = both.cardinality();
+            }
+            if (count > 0) {
+                counts.put(dictionary.nameOf(id), count);
+            }
+        }
+        return counts;
+    }
+}
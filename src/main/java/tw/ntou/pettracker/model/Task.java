@@ -1,40 +1,90 @@
 package tw.ntou.pettracker.model;
 
 import javafx.beans.property.*;
+import javafx.beans.value.ChangeListener;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import tw.ntou.pettracker.service.ClockService;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * 任務 - 欄位值存在一般欄位中，JavaFX 屬性物件在第一次呼叫 xxxProperty() 時才建立；
+ * 屬性建立後以屬性為準。大多數任務不會被編輯或綁定，只需要欄位本身的記憶體
+ */
 public class Task {
-    private final StringProperty description = new SimpleStringProperty(this, "description", "");
-    private final BooleanProperty done = new SimpleBooleanProperty(this, "done", false);
-    private final ObjectProperty<LocalDate> dueDate = new SimpleObjectProperty<>(this, "dueDate", LocalDate.now());
-    private final IntegerProperty priority = new SimpleIntegerProperty(this, "priority", 3);
-    private final BooleanProperty remind = new SimpleBooleanProperty(this, "remind", false);
-    private final ObjectProperty<LocalDateTime> remindAt = new SimpleObjectProperty<>(this, "remindAt", null);
-    private final StringProperty tags = new SimpleStringProperty(this, "tags", "");
+    // 任務唯一識別碼（跨重新啟動保持不變，供日誌重播使用）
+    private final String id;
+
+    private String description = "";
+    private boolean done = false;
+    private LocalDate dueDate = ClockService.getInstance().today();
+    private int priority = 3;
+    private boolean remind = false;
+    private LocalDateTime remindAt = null;
+    private String tags = "";
 
     // 新增：任務分類
-    private final ObjectProperty<TaskCategory> category = new SimpleObjectProperty<>(this, "category", TaskCategory.PERSONAL);
+    private TaskCategory category = TaskCategory.PERSONAL;
 
-    // 新增：子任務列表
-    private final ObservableList<SubTask> subTasks = FXCollections.observableArrayList();
+    // 新增：子任務列表（第一次取用時建立）
+    private ObservableList<SubTask> subTasks;
 
     // 新增：重複任務設置
-    private final ObjectProperty<RepeatPattern> repeatPattern = new SimpleObjectProperty<>(this, "repeatPattern", null);
+    private RepeatPattern repeatPattern = null;
 
     // 新增：任務顏色標記
-    private final StringProperty colorTag = new SimpleStringProperty(this, "colorTag", "#007bff");
+    private String colorTag = "#007bff";
 
     // 新增：預估時間（分鐘）
-    private final IntegerProperty estimatedMinutes = new SimpleIntegerProperty(this, "estimatedMinutes", 0);
+    private int estimatedMinutes = 0;
 
     // 新增：實際花費時間（分鐘）
-    private final IntegerProperty actualMinutes = new SimpleIntegerProperty(this, "actualMinutes", 0);
+    private int actualMinutes = 0;
 
     // 新增：完成時間記錄
-    private final ObjectProperty<LocalDateTime> completedAt = new SimpleObjectProperty<>(this, "completedAt", null);
+    private LocalDateTime completedAt = null;
+
+    // 重複模式為 CUSTOM 時的 RRULE，以及解析後的快取
+    private String recurrence = null;
+    private RecurrenceRule recurrenceRule;
+
+    // 同一系列重複任務共用的 id（第一個任務的 id），用來辨識同一系列的各次發生
+    private String seriesId = null;
+
+    // 延遲建立的屬性（null 表示尚未建立）
+    private StringProperty descriptionProperty;
+    private BooleanProperty doneProperty;
+    private ObjectProperty<LocalDate> dueDateProperty;
+    private IntegerProperty priorityProperty;
+    private BooleanProperty remindProperty;
+    private ObjectProperty<LocalDateTime> remindAtProperty;
+    private StringProperty tagsProperty;
+    private ObjectProperty<TaskCategory> categoryProperty;
+    private ObjectProperty<RepeatPattern> repeatPatternProperty;
+    private StringProperty colorTagProperty;
+    private IntegerProperty estimatedMinutesProperty;
+    private IntegerProperty actualMinutesProperty;
+    private ObjectProperty<LocalDateTime> completedAtProperty;
+
+    // 欄位變更監聽器（日誌、復原等共用）
+    private List<FieldChangeListener> fieldListeners;
+    // 轉發屬性變更的監聽器，有欄位監聽器後才建立
+    private ChangeListener<Object> fieldRelay;
+    private ChangeListener<Object> subTaskRelay;
+
+    /**
+     * 任務欄位變更監聽器
+     */
+    public interface FieldChangeListener {
+        void fieldChanged(Task task, String field, Object oldValue, Object newValue);
+    }
 
     // 任務分類枚舉
     public enum TaskCategory {
@@ -100,129 +150,418 @@ public class Task {
         public boolean isDone() { return done.get(); }
         public void setDone(boolean value) { done.set(value); }
         public BooleanProperty doneProperty() { return done; }
+
+        void addListener(ChangeListener<Object> listener) {
+            description.addListener(listener);
+            done.addListener(listener);
+        }
+
+        void removeListener(ChangeListener<Object> listener) {
+            description.removeListener(listener);
+            done.removeListener(listener);
+        }
     }
 
+
     // 建構子
     public Task(String desc, LocalDate due, int prio) {
+        this(null, desc, due, prio);
+    }
+
+    public Task(String id, String desc, LocalDate due, int prio) {
+        this.id = id != null ? id : UUID.randomUUID().toString();
         setDescription(desc);
         setDueDate(due);
         setPriority(prio);
     }
 
+    public String getId() { return id; }
+
     // 原有的 getters 和 setters
-    public String getDescription() { return description.get(); }
-    public void setDescription(String v) { description.set(v); }
-    public StringProperty descriptionProperty() { return description; }
+    // 屬性尚未建立時直接讀寫欄位，值有改變才通知欄位監聽器（與屬性的變更通知一致）
+    public String getDescription() { return descriptionProperty != null ? descriptionProperty.get() : description; }
+    public void setDescription(String v) {
+        if (descriptionProperty != null) { descriptionProperty.set(v); return; }
+        String old = description;
+        description = v;
+        changed("description", old, v);
+    }
+    public StringProperty descriptionProperty() {
+        if (descriptionProperty == null) {
+            descriptionProperty = relayed(new SimpleStringProperty(this, "description", description));
+        }
+        return descriptionProperty;
+    }
 
-    public boolean isDone() { return done.get(); }
+    public boolean isDone() { return doneProperty != null ? doneProperty.get() : done; }
     public void setDone(boolean v) {
-        done.set(v);
+        setDoneValue(v);
         if (v) {
-            setCompletedAt(LocalDateTime.now());
+            setCompletedAt(ClockService.getInstance().now());
+        }
+    }
+    private void setDoneValue(boolean v) {
+        if (doneProperty != null) { doneProperty.set(v); return; }
+        boolean old = done;
+        done = v;
+        changed("done", old, v);
+    }
+    public BooleanProperty doneProperty() {
+        if (doneProperty == null) {
+            doneProperty = relayed(new SimpleBooleanProperty(this, "done", done));
         }
+        return doneProperty;
     }
-    public BooleanProperty doneProperty() { return done; }
 
-    public LocalDate getDueDate() { return dueDate.get(); }
-    public void setDueDate(LocalDate v) { dueDate.set(v); }
-    public ObjectProperty<LocalDate> dueDateProperty() { return dueDate; }
+    public LocalDate getDueDate() { return dueDateProperty != null ? dueDateProperty.get() : dueDate; }
+    public void setDueDate(LocalDate v) {
+        if (dueDateProperty != null) { dueDateProperty.set(v); return; }
+        LocalDate old = dueDate;
+        dueDate = v;
+        changed("dueDate", old, v);
+    }
+    public ObjectProperty<LocalDate> dueDateProperty() {
+        if (dueDateProperty == null) {
+            dueDateProperty = relayed(new SimpleObjectProperty<>(this, "dueDate", dueDate));
+        }
+        return dueDateProperty;
+    }
 
-    public int getPriority() { return priority.get(); }
-    public void setPriority(int v) { priority.set(v); }
-    public IntegerProperty priorityProperty() { return priority; }
+    public int getPriority() { return priorityProperty != null ? priorityProperty.get() : priority; }
+    public void setPriority(int v) {
+        if (priorityProperty != null) { priorityProperty.set(v); return; }
+        int old = priority;
+        priority = v;
+        changed("priority", old, v);
+    }
+    public IntegerProperty priorityProperty() {
+        if (priorityProperty == null) {
+            priorityProperty = relayed(new SimpleIntegerProperty(this, "priority", priority));
+        }
+        return priorityProperty;
+    }
 
-    public boolean isRemind() { return remind.get(); }
-    public void setRemind(boolean v) { remind.set(v); }
-    public BooleanProperty remindProperty() { return remind; }
+    public boolean isRemind() { return remindProperty != null ? remindProperty.get() : remind; }
+    public void setRemind(boolean v) {
+        if (remindProperty != null) { remindProperty.set(v); return; }
+        boolean old = remind;
+        remind = v;
+        changed("remind", old, v);
+    }
+    public BooleanProperty remindProperty() {
+        if (remindProperty == null) {
+            remindProperty = relayed(new SimpleBooleanProperty(this, "remind", remind));
+        }
+        return remindProperty;
+    }
 
-    public LocalDateTime getRemindAt() { return remindAt.get(); }
-    public void setRemindAt(LocalDateTime v) { remindAt.set(v); }
-    public ObjectProperty<LocalDateTime> remindAtProperty() { return remindAt; }
+    public LocalDateTime getRemindAt() { return remindAtProperty != null ? remindAtProperty.get() : remindAt; }
+    public void setRemindAt(LocalDateTime v) {
+        if (remindAtProperty != null) { remindAtProperty.set(v); return; }
+        LocalDateTime old = remindAt;
+        remindAt = v;
+        changed("remindAt", old, v);
+    }
+    public ObjectProperty<LocalDateTime> remindAtProperty() {
+        if (remindAtProperty == null) {
+            remindAtProperty = relayed(new SimpleObjectProperty<>(this, "remindAt", remindAt));
+        }
+        return remindAtProperty;
+    }
 
-    public String getTags() { return tags.get(); }
-    public void setTags(String v) { tags.set(v); }
-    public StringProperty tagsProperty() { return tags; }
+    public String getTags() { return tagsProperty != null ? tagsProperty.get() : tags; }
+    public void setTags(String v) {
+        if (tagsProperty != null) { tagsProperty.set(v); return; }
+        String old = tags;
+        tags = v;
+        changed("tags", old, v);
+    }
+    public StringProperty tagsProperty() {
+        if (tagsProperty == null) {
+            tagsProperty = relayed(new SimpleStringProperty(this, "tags", tags));
+        }
+        return tagsProperty;
+    }
 
     // 新增屬性的 getters 和 setters
-    public TaskCategory getCategory() { return category.get(); }
-    public void setCategory(TaskCategory v) { category.set(v); }
-    public ObjectProperty<TaskCategory> categoryProperty() { return category; }
+    public TaskCategory getCategory() { return categoryProperty != null ? categoryProperty.get() : category; }
+    public void setCategory(TaskCategory v) {
+        if (categoryProperty != null) { categoryProperty.set(v); return; }
+        TaskCategory old = category;
+        category = v;
+        changed("category", old, v);
+    }
+    public ObjectProperty<TaskCategory> categoryProperty() {
+        if (categoryProperty == null) {
+            categoryProperty = relayed(new SimpleObjectProperty<>(this, "category", category));
+        }
+        return categoryProperty;
+    }
 
-    public ObservableList<SubTask> getSubTasks() { return subTasks; }
+    public ObservableList<SubTask> getSubTasks() {
+        if (subTasks == null) {
+            subTasks = FXCollections.observableArrayList();
+            if (subTaskRelay != null) {
+                attachSubTaskRelay();
+            }
+        }
+        return subTasks;
+    }
 
-    public RepeatPattern getRepeatPattern() { return repeatPattern.get(); }
-    public void setRepeatPattern(RepeatPattern v) { repeatPattern.set(v); }
-    public ObjectProperty<RepeatPattern> repeatPatternProperty() { return repeatPattern; }
+    /** 是否有子任務（不會建立子任務列表） */
+    public boolean hasSubTasks() {
+        return subTasks != null && !subTasks.isEmpty();
+    }
 
-    public String getColorTag() { return colorTag.get(); }
-    public void setColorTag(String v) { colorTag.set(v); }
-    public StringProperty colorTagProperty() { return colorTag; }
+    public RepeatPattern getRepeatPattern() { return repeatPatternProperty != null ? repeatPatternProperty.get() : repeatPattern; }
+    public void setRepeatPattern(RepeatPattern v) {
+        if (repeatPatternProperty != null) { repeatPatternProperty.set(v); return; }
+        RepeatPattern old = repeatPattern;
+        repeatPattern = v;
+        changed("repeatPattern", old, v);
+    }
+    public ObjectProperty<RepeatPattern> repeatPatternProperty() {
+        if (repeatPatternProperty == null) {
+            repeatPatternProperty = relayed(new SimpleObjectProperty<>(this, "repeatPattern", repeatPattern));
+        }
+        return repeatPatternProperty;
+    }
 
-    public int getEstimatedMinutes() { return estimatedMinutes.get(); }
-    public void setEstimatedMinutes(int v) { estimatedMinutes.set(v); }
-    public IntegerProperty estimatedMinutesProperty() { return estimatedMinutes; }
+    public String getColorTag() { return colorTagProperty != null ? colorTagProperty.get() : colorTag; }
+    public void setColorTag(String v) {
+        if (colorTagProperty != null) { colorTagProperty.set(v); return; }
+        String old = colorTag;
+        colorTag = v;
+        changed("colorTag", old, v);
+    }
+    public StringProperty colorTagProperty() {
+        if (colorTagProperty == null) {
+            colorTagProperty = relayed(new SimpleStringProperty(this, "colorTag", colorTag));
+        }
+        return colorTagProperty;
+    }
 
-    public int getActualMinutes() { return actualMinutes.get(); }
-    public void setActualMinutes(int v) { actualMinutes.set(v); }
-    public IntegerProperty actualMinutesProperty() { return actualMinutes; }
+    public int getEstimatedMinutes() { return estimatedMinutesProperty != null ? estimatedMinutesProperty.get() : estimatedMinutes; }
+    public void setEstimatedMinutes(int v) {
+        if (estimatedMinutesProperty != null) { estimatedMinutesProperty.set(v); return; }
+        int old = estimatedMinutes;
+        estimatedMinutes = v;
+        changed("estimatedMinutes", old, v);
+    }
+    public IntegerProperty estimatedMinutesProperty() {
+        if (estimatedMinutesProperty == null) {
+            estimatedMinutesProperty = relayed(new SimpleIntegerProperty(this, "estimatedMinutes", estimatedMinutes));
+        }
+        return estimatedMinutesProperty;
+    }
+
+    public int getActualMinutes() { return actualMinutesProperty != null ? actualMinutesProperty.get() : actualMinutes; }
+    public void setActualMinutes(int v) {
+        if (actualMinutesProperty != null) { actualMinutesProperty.set(v); return; }
+        int old = actualMinutes;
+        actualMinutes = v;
+        changed("actualMinutes", old, v);
+    }
+    public IntegerProperty actualMinutesProperty() {
+        if (actualMinutesProperty == null) {
+            actualMinutesProperty = relayed(new SimpleIntegerProperty(this, "actualMinutes", actualMinutes));
+        }
+        return actualMinutesProperty;
+    }
+
+    public LocalDateTime getCompletedAt() { return completedAtProperty != null ? completedAtProperty.get() : completedAt; }
+    public void setCompletedAt(LocalDateTime v) {
+        if (completedAtProperty != null) { completedAtProperty.set(v); return; }
+        LocalDateTime old = completedAt;
+        completedAt = v;
+        changed("completedAt", old, v);
+    }
+    public ObjectProperty<LocalDateTime> completedAtProperty() {
+        if (completedAtProperty == null) {
+            completedAtProperty = relayed(new SimpleObjectProperty<>(this, "completedAt", completedAt));
+        }
+        return completedAtProperty;
+    }
+
+    public String getRecurrence() { return recurrence; }
+    public void setRecurrence(String v) {
+        String old = recurrence;
+        recurrence = v;
+        recurrenceRule = null;
+        changed("recurrence", old, v);
+    }
+
+    public String getSeriesId() { return seriesId; }
+    public void setSeriesId(String v) {
+        String old = seriesId;
+        seriesId = v;
+        changed("seriesId", old, v);
+    }
+
+    /**
+     * 目前生效的重複規則：內建模式直接對應，CUSTOM 使用 RRULE；
+     * 不重複，或 CUSTOM 沒有規則、規則無法解析時為 null（不猜測成每日）
+     */
+    public RecurrenceRule getRecurrenceRule() {
+        RepeatPattern pattern = getRepeatPattern();
+        if (pattern == null) {
+            return null;
+        }
+        if (pattern != RepeatPattern.CUSTOM) {
+            return RecurrenceRule.of(pattern);
+        }
+        if (recurrenceRule == null && recurrence != null) {
+            try {
+                recurrenceRule = RecurrenceRule.parse(recurrence);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return recurrenceRule;
+    }
+
+    /** 所屬系列的 id（不屬於任何系列時為自己的 id） */
+    public String getSeriesKey() {
+        return seriesId != null ? seriesId : id;
+    }
+
+    // ===== 欄位變更通知 =====
+
+    /**
+     * 註冊欄位變更監聽器，第一次註冊時才掛上屬性監聽
+     */
+    public void addFieldChangeListener(FieldChangeListener listener) {
+        if (fieldListeners == null) {
+            fieldListeners = new ArrayList<>(2);
+            attachFieldRelay();
+        }
+        fieldListeners.add(listener);
+    }
+
+    public void removeFieldChangeListener(FieldChangeListener listener) {
+        if (fieldListeners != null) {
+            fieldListeners.remove(listener);
+        }
+    }
+
+    // 只掛在已建立的屬性上；之後才建立的屬性由 relayed() 掛上
+    private void attachFieldRelay() {
+        fieldRelay = (obs, oldV, newV) ->
+                fireFieldChanged(((ReadOnlyProperty<?>) obs).getName(), oldV, newV);
+        for (ReadOnlyProperty<?> property : Arrays.asList(descriptionProperty, doneProperty, dueDateProperty,
+                priorityProperty, remindProperty, remindAtProperty, tagsProperty, categoryProperty,
+                repeatPatternProperty, colorTagProperty, estimatedMinutesProperty, actualMinutesProperty,
+                completedAtProperty)) {
+            if (property != null) {
+                property.addListener(fieldRelay);
+            }
+        }
+
+        // 子任務本身的描述或完成狀態改變也視為 subTasks 變更
+        subTaskRelay = (obs, oldV, newV) -> fireFieldChanged("subTasks", null, null);
+        if (subTasks != null) {
+            attachSubTaskRelay();
+        }
+    }
+
+    private void attachSubTaskRelay() {
+        for (SubTask subTask : subTasks) {
+            subTask.addListener(subTaskRelay);
+        }
+        subTasks.addListener((ListChangeListener<SubTask>) c -> {
+            while (c.next()) {
+                for (SubTask removed : c.getRemoved()) {
+                    removed.removeListener(subTaskRelay);
+                }
+                for (SubTask added : c.getAddedSubList()) {
+                    added.addListener(subTaskRelay);
+                }
+            }
+            fireFieldChanged("subTasks", null, null);
+        });
+    }
+
+    private <P extends ReadOnlyProperty<?>> P relayed(P property) {
+        if (fieldRelay != null) {
+            property.addListener(fieldRelay);
+        }
+        return property;
+    }
+
+    private void changed(String field, Object oldValue, Object newValue) {
+        if (fieldListeners != null && !Objects.equals(oldValue, newValue)) {
+            fireFieldChanged(field, oldValue, newValue);
+        }
+    }
+
+    /**
+     * 依欄位名稱直接設定值（復原/重做用），不經過 setDone 等的附帶變更；
+     * 無法還原的欄位（subTasks）回傳 false
+     */
+    public boolean applyField(String field, Object value) {
+        switch (field) {
+            case "description": setDescription((String) value); return true;
+            case "done": setDoneValue((Boolean) value); return true;
+            case "dueDate": setDueDate((LocalDate) value); return true;
+            case "priority": setPriority(((Number) value).intValue()); return true;
+            case "remind": setRemind((Boolean) value); return true;
+            case "remindAt": setRemindAt((LocalDateTime) value); return true;
+            case "tags": setTags((String) value); return true;
+            case "category": setCategory((TaskCategory) value); return true;
+            case "repeatPattern": setRepeatPattern((RepeatPattern) value); return true;
+            case "colorTag": setColorTag((String) value); return true;
+            case "estimatedMinutes": setEstimatedMinutes(((Number) value).intValue()); return true;
+            case "actualMinutes": setActualMinutes(((Number) value).intValue()); return true;
+            case "completedAt": setCompletedAt((LocalDateTime) value); return true;
+            case "recurrence": setRecurrence((String) value); return true;
+            case "seriesId": setSeriesId((String) value); return true;
+            default: return false;
+        }
+    }
+
+    private void fireFieldChanged(String field, Object oldValue, Object newValue) {
+        for (FieldChangeListener listener : new ArrayList<>(fieldListeners)) {
+            listener.fieldChanged(this, field, oldValue, newValue);
+        }
+    }
 
-    public LocalDateTime getCompletedAt() { return completedAt.get(); }
-    public void setCompletedAt(LocalDateTime v) { completedAt.set(v); }
-    public ObjectProperty<LocalDateTime> completedAtProperty() { return completedAt; }
 
     // 便利方法
     public double getSubTaskProgress() {
-        if (subTasks.isEmpty()) return 0;
+        if (!hasSubTasks()) return 0;
         long completed = subTasks.stream().filter(SubTask::isDone).count();
         return (double) completed / subTasks.size();
     }
 
     public boolean isOverdue() {
-        return !isDone() && getDueDate().isBefore(LocalDate.now());
+        return !isDone() && getDueDate().isBefore(ClockService.getInstance().today());
     }
 
     public boolean isDueToday() {
-        return getDueDate().equals(LocalDate.now());
+        return getDueDate().equals(ClockService.getInstance().today());
     }
 
     public boolean isDueSoon(int days) {
-        LocalDate deadline = LocalDate.now().plusDays(days);
+        LocalDate deadline = ClockService.getInstance().today().plusDays(days);
         return !isDone() && getDueDate().isBefore(deadline);
     }
 
-    // 為重複任務生成下一個實例
+    // 為重複任務生成下一個實例（依重複規則算出下一個發生日）
     public Task createNextRepeatInstance() {
-        if (repeatPattern.get() == null) return null;
+        RecurrenceRule rule = getRecurrenceRule();
+        if (rule == null || getDueDate() == null) return null;
+        LocalDate nextDue = rule.next(getDueDate(), getDueDate());
+        if (nextDue == null) return null;
 
-        Task nextTask = new Task(getDescription(), calculateNextDueDate(), getPriority());
+        Task nextTask = new Task(getDescription(), nextDue, getPriority());
         nextTask.setCategory(getCategory());
         nextTask.setColorTag(getColorTag());
         nextTask.setRepeatPattern(getRepeatPattern());
+        nextTask.setRecurrence(getRecurrence());
+        nextTask.setSeriesId(getSeriesKey());
         nextTask.setEstimatedMinutes(getEstimatedMinutes());
         nextTask.setTags(getTags());
 
         return nextTask;
     }
-
-    private LocalDate calculateNextDueDate() {
-        LocalDate current = getDueDate();
-        switch (repeatPattern.get()) {
-            case DAILY:
-                return current.plusDays(1);
-            case WEEKLY:
-                return current.plusWeeks(1);
-            case MONTHLY:
-                return current.plusMonths(1);
-            case YEARLY:
-                return current.plusYears(1);
-            case WEEKDAYS:
-                LocalDate next = current.plusDays(1);
-                while (next.getDayOfWeek().getValue() > 5) {
-                    next = next.plusDays(1);
-                }
-                return next;
-            default:
-                return current.plusDays(1);
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,209 @@
+package tw.ntou.pettracker.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * 任務的欄式副本 - 統計用到的欄位以基本型別陣列存放，跟著欄位變更同步；
+ * 統計與成就檢查直接在陣列上跑迴圈，不必逐一讀取任務物件與日期物件
+ *
+ * 列即 TaskSlots 的 slot，與任務清單的順序無關。空出的列記成未完成、沒有日期，
+ * 聚合迴圈不必另外跳過；逐列讀取時以 nextRow 只走有任務的列
+ * 只在 FX 執行緒上使用
+ */
+public class TaskColumns implements TaskSlots.Listener {
+    /** 沒有日期時的值 */
+    public static final int NO_DAY = Integer.MIN_VALUE;
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final int SECONDS_PER_DAY = 86_400;
+    private static final Task.TaskCategory[] CATEGORIES = Task.TaskCategory.values();
+
+    private final TaskSlots slots;
+    private int[] priority = new int[0];
+    private byte[] category = new byte[0];
+    private boolean[] done = new boolean[0];
+    private int[] dueDay = new int[0];
+    // 完成時間的本地秒數（LocalDateTime 視為 UTC 換算）
+    private long[] completedSecond = new long[0];
+
+    private final Task.FieldChangeListener fieldListener = (task, field, oldValue, newValue) -> {
+        switch (field) {
+            case "priority":
+            case "category":
+            case "done":
+            case "dueDate":
+            case "completedAt":
+                refill(task);
+                break;
+            default:
+                break;
+        }
+    };
+
+    private TaskColumns(TaskSlots slots) {
+        this.slots = slots;
+    }
+
+    /** 建立欄式副本並登記到 slots，已有的任務立即填入 */
+    public static TaskColumns create(TaskSlots slots) {
+        TaskColumns columns = new TaskColumns(slots);
+        slots.addListener(columns);
+        return columns;
+    }
+
+    private void refill(Task task) {
+        int row = slots.slotOf(task);
+        if (row >= 0) {
+            fill(row, task);
+        }
+    }
+
+    @Override
+    public void slotAdded(int row, Task task) {
+        if (row >= priority.length) {
+            grow(slots.capacity());
+        }
+        fill(row, task);
+        task.addFieldChangeListener(fieldListener);
+    }
+
+    @Override
+    public void slotRemoved(int row, Task task) {
+        task.removeFieldChangeListener(fieldListener);
+        priority[row] = 0;
+        category[row] = -1;
+        done[row] = false;
+        dueDay[row] = NO_DAY;
+        completedSecond[row] = NO_TIME;
+    }
+
+    private void fill(int row, Task task) {
+        priority[row] = task.getPriority();
+        Task.TaskCategory c = task.getCategory();
+        category[row] = (byte) (c != null ? c.ordinal() : -1);
+        done[row] = task.isDone();
+        LocalDate due = task.getDueDate();
+        dueDay[row] = due != null ? (int) due.toEpochDay() : NO_DAY;
+        LocalDateTime completedAt = task.getCompletedAt();
+        completedSecond[row] = completedAt != null ? completedAt.toEpochSecond(ZoneOffset.UTC) : NO_TIME;
+    }
+
+    // 新的列先記成空列
+    private void grow(int capacity) {
+        int old = priority.length;
+        priority = Arrays.copyOf(priority, capacity);
+        category = Arrays.copyOf(category, capacity);
+        done = Arrays.copyOf(done, capacity);
+        dueDay = Arrays.copyOf(dueDay, capacity);
+        completedSecond = Arrays.copyOf(completedSecond, capacity);
+        Arrays.fill(category, old, capacity, (byte) -1);
+        Arrays.fill(dueDay, old, capacity, NO_DAY);
+        Arrays.fill(completedSecond, old, capacity, NO_TIME);
+    }
+
+    // ===== 逐列讀取（給統計累計用） =====
+
+    /** from 之後（含）第一個有任務的列，沒有時為 -1 */
+    public int nextRow(int from) { return slots.nextSlot(from); }
+    public int priority(int row) { return priority[row]; }
+    public boolean isDone(int row) { return done[row]; }
+    /** 到期日的 epoch day，沒有時為 NO_DAY */
+    public int dueDay(int row) { return dueDay[row]; }
+    /** 完成時間的本地秒數，沒有時為 NO_TIME */
+    public long completedSecond(int row) { return completedSecond[row]; }
+
+    /** 分類，沒有時為 null */
+    public Task.TaskCategory category(int row) {
+        int ordinal = category[row];
+        return ordinal >= 0 ? CATEGORIES[ordinal] : null;
+    }
+
+    public static int dayOf(long completedSecond) {
+        return (int) Math.floorDiv(completedSecond, SECONDS_PER_DAY);
+    }
+
+    public static int hourOf(long completedSecond) {
+        return Math.floorMod(completedSecond, SECONDS_PER_DAY) / 3600;
+    }
+
+    // ===== 聚合 =====
+
+    public int countDone() {
+        int count = 0;
+        for (int i = 0, n = slots.slotCount(); i < n; i++) {
+            if (done[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int countDone(int withPriority) {
+        int count = 0;
+        for (int i = 0, n = slots.slotCount(); i < n; i++) {
+            if (done[i] && priority[i] == withPriority) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** 在 from 到 to（含）之間完成的任務數 */
+    public int countCompletedBetween(LocalDate from, LocalDate to) {
+        long start = from.toEpochDay() * SECONDS_PER_DAY;
+        long end = (to.toEpochDay() + 1) * SECONDS_PER_DAY;
+        int count = 0;
+        for (int i = 0, n = slots.slotCount(); i < n; i++) {
+            long second = completedSecond[i];
+            if (done[i] && second >= start && second < end) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** 完成時刻落在 fromHour 到 toHour（不含）之間的任務數 */
+    public int countCompletedInHours(int fromHour, int toHour) {
+        int count = 0;
+        for (int i = 0, n = slots.slotCount(); i < n; i++) {
+            long second = completedSecond[i];
+            if (done[i] && second != NO_TIME) {
+                int hour = hourOf(second);
+                if (hour >= fromHour && hour < toHour) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /** 某天完成的任務涵蓋幾種分類 */
+    public int countCategoriesCompletedOn(LocalDate day) {
+        long start = day.toEpochDay() * SECONDS_PER_DAY;
+        long end = start + SECONDS_PER_DAY;
+        int mask = 0;
+        for (int i = 0, n = slots.slotCount(); i < n; i++) {
+            long second = completedSecond[i];
+            if (done[i] && second >= start && second < end) {
+                // 沒有分類的任務算一種（與 distinct 的 null 一致）
+                mask |= 1 << (category[i] + 1);
+            }
+        }
+        return Integer.bitCount(mask);
+    }
+
+    /** 某天到期且未完成的任務數 */
+    public int countPendingDueOn(LocalDate day) {
+        int target = (int) day.toEpochDay();
+        int count = 0;
+        for (int i = 0, n = slots.slotCount(); i < n; i++) {
+            if (!done[i] && dueDay[i] == target) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -2,8 +2,10 @@ package tw.ntou.pettracker.model;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class TaskData {
+    public String id;
     public String description;
     public boolean done;
     public LocalDate dueDate;
@@ -11,6 +13,15 @@ public class TaskData {
     public boolean remind;
     public LocalDateTime remindAt;
     public String tags;
+    public Task.TaskCategory category;
+    public List<SubTaskData> subTasks;
+    public Task.RepeatPattern repeatPattern;
+    public String colorTag;
+    public int estimatedMinutes;
+    public int actualMinutes;
+    public LocalDateTime completedAt;
+    public String recurrence;
+    public String seriesId;
 
     public TaskData() {}
-}
\ No newline at end of file
+}
@@ -0,0 +1,229 @@
+package tw.ntou.pettracker.model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * 篩選用的點陣圖索引 - 依優先級、完成狀態、分類、到期日各維護任務 slot（由 TaskSlots 分配）的 BitSet；
+ * 篩選條件組合成 BitSet 的 AND/OR，逐列只需檢查一個位元
+ *
+ * 到期日以 epoch day 為鍵的排序表（每天一串排序好的 slot），「今天」「逾期」「未來一週」
+ * 在查詢時依當天日期取範圍，只走過範圍內的任務，換日也不必重建
+ * 跟著欄位變更同步，只在 FX 執行緒上使用
+ */
+public class TaskFilterIndex implements TaskSlots.Listener {
+    private static final int NO_DAY = Integer.MIN_VALUE;
+    private static final Task.TaskCategory[] CATEGORIES = Task.TaskCategory.values();
+
+    private final TaskSlots slots;
+    // 各 slot 目前登記在哪個 BitSet，更新時先從舊的清除
+    private int[] slotPriority = new int[16];
+    private byte[] slotCategory = new byte[16];
+    private int[] slotDueDay = new int[16];
+
+    private final BitSet done = new BitSet();
+    private final BitSet repeating = new BitSet();
+    private final Map<Integer, BitSet> byPriority = new HashMap<>();
+    private final BitSet[] byCategory = new BitSet[CATEGORIES.length];
+    private final NavigableMap<Integer, DaySlots> byDueDay = new TreeMap<>();
+
+    private final Task.FieldChangeListener fieldListener = (task, field, oldValue, newValue) -> {
+        switch (field) {
+            case "priority":
+            case "done":
+            case "category":
+            case "dueDate":
+            case "repeatPattern":
+                refill(task);
+                break;
+            default:
+                break;
+        }
+    };
+
+    private TaskFilterIndex(TaskSlots slots) {
+        this.slots = slots;
+        for (int i = 0; i < byCategory.length; i++) {
+            byCategory[i] = new BitSet();
+        }
+    }
+
+    /** 建立點陣圖索引並登記到 slots */
+    public static TaskFilterIndex create(TaskSlots slots) {
+        TaskFilterIndex index = new TaskFilterIndex(slots);
+        slots.addListener(index);
+        return index;
+    }
+
+    private void refill(Task task) {
+        int slot = slots.slotOf(task);
+        if (slot >= 0) {
+            fill(slot, task);
+        }
+    }
+
+    @Override
+    public void slotAdded(int slot, Task task) {
+        if (slot >= slotPriority.length) {
+            int capacity = slots.capacity();
+            slotPriority = Arrays.copyOf(slotPriority, capacity);
+            slotCategory = Arrays.copyOf(slotCategory, capacity);
+            slotDueDay = Arrays.copyOf(slotDueDay, capacity);
+        }
+        slotCategory[slot] = -1;
+        slotDueDay[slot] = NO_DAY;
+        fill(slot, task);
+        task.addFieldChangeListener(fieldListener);
+    }
+
+    @Override
+    public void slotRemoved(int slot, Task task) {
+        task.removeFieldChangeListener(fieldListener);
+        clear(slot);
+    }
+
+    private void fill(int slot, Task task) {
+        clear(slot);
+        int priority = task.getPriority();
+        byPriority.computeIfAbsent(priority, p -> new BitSet()).set(slot);
+        slotPriority[slot] = priority;
+        done.set(slot, task.isDone());
+        repeating.set(slot, task.getRepeatPattern() != null);
+        Task.TaskCategory category = task.getCategory();
+        if (category != null) {
+            byCategory[category.ordinal()].set(slot);
+        }
+        slotCategory[slot] = (byte) (category != null ? category.ordinal() : -1);
+        LocalDate due = task.getDueDate();
+        int day = due != null ? (int) due.toEpochDay() : NO_DAY;
+        if (day != NO_DAY) {
+            byDueDay.computeIfAbsent(day, d -> new DaySlots()).add(slot);
+        }
+        slotDueDay[slot] = day;
+    }
+
+    private void clear(int slot) {
+        BitSet priority = byPriority.get(slotPriority[slot]);
+        if (priority != null) {
+            priority.clear(slot);
+        }
+        done.clear(slot);
+        repeating.clear(slot);
+        if (slotCategory[slot] >= 0) {
+            byCategory[slotCategory[slot]].clear(slot);
+        }
+        int day = slotDueDay[slot];
+        if (day != NO_DAY) {
+            DaySlots due = byDueDay.get(day);
+            due.remove(slot);
+            if (due.size == 0) {
+                byDueDay.remove(day);
+            }
+        }
+    }
+
+    // ===== 查詢（都回傳複本，可直接做 AND/OR） =====
+
+    /** slot 是否在 rows 中；不在清單中的任務為 false */
+    public boolean contains(BitSet rows, Task task) {
+        return slots.contains(rows, task);
+    }
+
+    public BitSet all() {
+        return slots.occupied();
+    }
+
+    public BitSet done() {
+        return (BitSet) done.clone();
+    }
+
+    public BitSet open() {
+        BitSet open = all();
+        open.andNot(done);
+        return open;
+    }
+
+    /** 有重複模式的任務 */
+    public BitSet repeating() {
+        return (BitSet) repeating.clone();
+    }
+
+    public BitSet withPriority(int priority) {
+        BitSet slots = byPriority.get(priority);
+        return slots != null ? (BitSet) slots.clone() : new BitSet();
+    }
+
+    public BitSet withCategory(Task.TaskCategory category) {
+        return (BitSet) byCategory[category.ordinal()].clone();
+    }
+
+    public BitSet dueOn(LocalDate day) {
+        return dueBetween(day, day);
+    }
+
+    /** 到期日在 from 到 to（皆含）之間 */
+    public BitSet dueBetween(LocalDate from, LocalDate to) {
+        return union(byDueDay.subMap((int) from.toEpochDay(), true, (int) to.toEpochDay(), true));
+    }
+
+    /** 到期日早於 day */
+    public BitSet dueBefore(LocalDate day) {
+        return union(byDueDay.headMap((int) day.toEpochDay(), false));
+    }
+
+    /** 未完成且到期日早於 today + days（同 Task.isDueSoon），含已逾期 */
+    public BitSet dueSoon(LocalDate today, int days) {
+        BitSet rows = dueBefore(today.plusDays(days));
+        rows.andNot(done);
+        return rows;
+    }
+
+    /** rows 中的任務，依 slot 順序 */
+    public List<Task> tasksIn(BitSet rows) {
+        return slots.tasksIn(rows);
+    }
+
+    private static BitSet union(Map<Integer, DaySlots> days) {
+        BitSet result = new BitSet();
+        for (DaySlots day : days.values()) {
+            for (int i = 0; i < day.size; i++) {
+                result.set(day.slots[i]);
+            }
+        }
+        return result;
+    }
+
+    /** 同一天到期的 slot，排序存放 */
+    private static final class DaySlots {
+        int[] slots = new int[4];
+        int size;
+
+        void add(int slot) {
+            int i = Arrays.binarySearch(slots, 0, size, slot);
+            if (i >= 0) {
+                return;
+            }
+            i = -i - 1;
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            System.arraycopy(slots, i, slots, i + 1, size - i);
+            slots[i] = slot;
+            size++;
+        }
+
+        void remove(int slot) {
+            int i = Arrays.binarySearch(slots, 0, size, slot);
+            if (i >= 0) {
+                System.arraycopy(slots, i + 1, slots, i, size - i - 1);
+                size--;
+            }
+        }
+    }
+}
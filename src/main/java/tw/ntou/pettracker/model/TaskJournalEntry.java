@@ -0,0 +1,18 @@
+package tw.ntou.pettracker.model;
+
+public class TaskJournalEntry {
+    public static final String UPSERT = "U";
+    public static final String DELETE = "D";
+
+    public String op;
+    public String id;
+    public TaskData task;
+
+    public TaskJournalEntry() {}
+
+    public TaskJournalEntry(String op, String id, TaskData task) {
+        this.op = op;
+        this.id = id;
+        this.task = task;
+    }
+}
@@ -0,0 +1,99 @@
+package tw.ntou.pettracker.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 某段日期內的任務發生日 - 已建立的任務直接列出（各自的完成狀態即為該次的完成狀態），
+ * 未完成的重複任務之後的發生日由規則即時展開，不建立任務物件
+ */
+public final class TaskOccurrences {
+
+    /** 一次發生：已建立的任務，或由系列任務的規則展開的未來日期 */
+    public static final class Occurrence {
+        public final Task task;
+        public final LocalDate date;
+        public final boolean materialized;
+
+        Occurrence(Task task, LocalDate date, boolean materialized) {
+            this.task = task;
+            this.date = date;
+            this.materialized = materialized;
+        }
+
+        public boolean isDone() {
+            return materialized && task.isDone();
+        }
+    }
+
+    private TaskOccurrences() {
+    }
+
+    /** from 到 to（皆含）之間的所有發生，依日期排序 */
+    public static List<Occurrence> between(List<Task> tasks, LocalDate from, LocalDate to) {
+        List<Occurrence> result = new ArrayList<>();
+        Set<String> existing = new HashSet<>();
+        for (Task task : tasks) {
+            LocalDate due = task.getDueDate();
+            if (due != null && !due.isBefore(from) && !due.isAfter(to)) {
+                result.add(new Occurrence(task, due, true));
+                existing.add(key(task.getSeriesKey(), due));
+            }
+        }
+        for (Task task : tasks) {
+            RecurrenceRule rule = task.getRecurrenceRule();
+            LocalDate due = task.getDueDate();
+            if (rule == null || task.isDone() || due == null) {
+                continue;
+            }
+            for (LocalDate date : rule.between(due, laterOf(due.plusDays(1), from), to)) {
+                if (!existing.contains(key(task.getSeriesKey(), date))) {
+                    result.add(new Occurrence(task, date, false));
+                }
+            }
+        }
+        result.sort(Comparator.comparing(o -> o.date));
+        return result;
+    }
+
+    /** 未完成的重複任務在目前到期日之後、from 到 to 之間是否還會發生 */
+    public static boolean recursBetween(Task task, LocalDate from, LocalDate to) {
+        RecurrenceRule rule = task.getRecurrenceRule();
+        LocalDate due = task.getDueDate();
+        if (rule == null || task.isDone() || due == null) {
+            return false;
+        }
+        return rule.between(due, laterOf(due.plusDays(1), from), to).iterator().hasNext();
+    }
+
+    /**
+     * 「即將到來」用：目前這次不早於 today 的未完成重複任務，在 today 之後到 to 之間是否還會發生。
+     * 目前這次已逾期的系列不列入，要先完成逾期的那次才會排出下一次
+     */
+    public static boolean recursSoon(Task task, LocalDate today, LocalDate to) {
+        LocalDate due = task.getDueDate();
+        return due != null && !due.isBefore(today) && recursBetween(task, today.plusDays(1), to);
+    }
+
+    /** 同一系列在 date 是否已有建立的任務 */
+    public static boolean hasOccurrence(List<Task> tasks, String seriesKey, LocalDate date) {
+        for (Task task : tasks) {
+            if (date.equals(task.getDueDate()) && seriesKey.equals(task.getSeriesKey())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static LocalDate laterOf(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static String key(String seriesKey, LocalDate date) {
+        return seriesKey + '@' + date;
+    }
+}
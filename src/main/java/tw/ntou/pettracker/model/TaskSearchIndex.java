@@ -0,0 +1,307 @@
+package tw.ntou.pettracker.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * 任務全文索引 - 描述、標籤與分類名稱切成詞後建立倒排表（每個詞一串排序好的任務 slot，slot 由 TaskSlots 分配）
+ *
+ * 中日韓文字沒有空白分詞，連續的 CJK 字元以單字與相鄰兩字（bigram）索引；
+ * 其他字母數字以整個單字索引，查詢時做字首比對。查詢的每個詞都要符合（AND），
+ * 結果是各詞倒排表的交集，超過兩字的 CJK 片段再以原文確認是否連續出現
+ *
+ * 跟著欄位變更在 FX 執行緒上同步；更新與查詢都以此物件為鎖，查詢可在背景執行緒進行
+ */
+public class TaskSearchIndex implements TaskSlots.Listener {
+    private static final Postings[] NO_TERMS = new Postings[0];
+
+    private final TaskSlots slots;
+    private Postings[][] slotTerms = new Postings[16][];
+    // 各欄位小寫後以換行連接，用來確認 CJK 片段是否連續出現
+    private String[] slotText = new String[16];
+    // CJK 單字與 bigram
+    private final Map<String, Postings> grams = new HashMap<>();
+    // 其他單字，排序以便字首查詢
+    private final NavigableMap<String, Postings> words = new TreeMap<>();
+
+    private final Task.FieldChangeListener fieldListener = (task, field, oldValue, newValue) -> {
+        switch (field) {
+            case "description":
+            case "tags":
+            case "category":
+                reindex(task);
+                break;
+            default:
+                break;
+        }
+    };
+
+    private TaskSearchIndex(TaskSlots slots) {
+        this.slots = slots;
+    }
+
+    /** 建立全文索引並登記到 slots，已有的任務立即建立倒排表 */
+    public static TaskSearchIndex create(TaskSlots slots) {
+        TaskSearchIndex index = new TaskSearchIndex(slots);
+        slots.addListener(index);
+        return index;
+    }
+
+    // 欄位變更在 FX 執行緒上，查 slot 不必加鎖
+    private void reindex(Task task) {
+        int slot = slots.slotOf(task);
+        if (slot >= 0) {
+            synchronized (this) {
+                index(slot, task);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void slotAdded(int slot, Task task) {
+        if (slot >= slotTerms.length) {
+            slotTerms = Arrays.copyOf(slotTerms, slots.capacity());
+            slotText = Arrays.copyOf(slotText, slots.capacity());
+        }
+        slotTerms[slot] = NO_TERMS;
+        index(slot, task);
+        task.addFieldChangeListener(fieldListener);
+    }
+
+    @Override
+    public synchronized void slotRemoved(int slot, Task task) {
+        task.removeFieldChangeListener(fieldListener);
+        unindex(slot);
+        slotText[slot] = null;
+    }
+
+    private void index(int slot, Task task) {
+        unindex(slot);
+        List<Postings> terms = new ArrayList<>();
+        String text = textOf(task);
+        slotText[slot] = text;
+        for (String run : runs(text)) {
+            if (isCjk(run.charAt(0))) {
+                for (int i = 0; i < run.length(); i++) {
+                    addTerm(grams, run.substring(i, i + 1), slot, terms);
+                    if (i + 1 < run.length()) {
+                        addTerm(grams, run.substring(i, i + 2), slot, terms);
+                    }
+                }
+            } else {
+                addTerm(words, run, slot, terms);
+            }
+        }
+        slotTerms[slot] = terms.toArray(NO_TERMS);
+    }
+
+    private static void addTerm(Map<String, Postings> map, String term, int slot, List<Postings> terms) {
+        Postings postings = map.computeIfAbsent(term, Postings::new);
+        if (postings.add(slot)) {
+            terms.add(postings);
+        }
+    }
+
+    private void unindex(int slot) {
+        for (Postings postings : slotTerms[slot]) {
+            postings.remove(slot);
+            if (postings.size == 0) {
+                (isCjk(postings.term.charAt(0)) ? grams : words).remove(postings.term);
+            }
+        }
+        slotTerms[slot] = NO_TERMS;
+    }
+
+    // ===== 查詢 =====
+
+    /**
+     * 符合查詢中每個詞的任務 slot；查詢沒有可索引的詞（例如只有標點）時回傳 null
+     */
+    public synchronized BitSet search(String query) {
+        List<String> runs = runs(normalize(query));
+        if (runs.isEmpty()) {
+            return null;
+        }
+        List<Postings> lists = new ArrayList<>();
+        List<String> toVerify = new ArrayList<>();
+        for (String run : runs) {
+            if (isCjk(run.charAt(0))) {
+                if (run.length() == 1) {
+                    lists.add(grams.get(run));
+                } else {
+                    for (int i = 0; i + 1 < run.length(); i++) {
+                        lists.add(grams.get(run.substring(i, i + 2)));
+                    }
+                    // bigram 都出現不代表整段連續出現
+                    if (run.length() > 2) {
+                        toVerify.add(run);
+                    }
+                }
+            } else {
+                lists.add(wordsStartingWith(run));
+            }
+        }
+        BitSet hits = new BitSet();
+        if (lists.contains(null)) {
+            return hits;
+        }
+        // 從最短的倒排表開始逐一交集，候選越來越少
+        lists.sort(Comparator.comparingInt(p -> p.size));
+        Postings first = lists.get(0);
+        int[] candidates = Arrays.copyOf(first.slots, first.size);
+        int count = first.size;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            count = intersect(candidates, count, lists.get(i));
+        }
+        for (int i = 0; i < count; i++) {
+            int slot = candidates[i];
+            if (containsAll(slotText[slot], toVerify)) {
+                hits.set(slot);
+            }
+        }
+        return hits;
+    }
+
+    // 只留下 candidates 中也在 postings 裡的 slot，回傳剩下的數量；以倍增跳躍在較長的表中前進
+    private static int intersect(int[] candidates, int count, Postings postings) {
+        int[] slots = postings.slots;
+        int size = postings.size;
+        int kept = 0;
+        int pos = 0;
+        for (int i = 0; i < count && pos < size; i++) {
+            int slot = candidates[i];
+            int step = 1;
+            int hi = pos;
+            while (hi < size && slots[hi] < slot) {
+                pos = hi + 1;
+                hi += step;
+                step <<= 1;
+            }
+            int found = Arrays.binarySearch(slots, pos, Math.min(hi + 1, size), slot);
+            if (found >= 0) {
+                candidates[kept++] = slot;
+                pos = found + 1;
+            } else {
+                pos = -found - 1;
+            }
+        }
+        return kept;
+    }
+
+    // 以 prefix 開頭的所有單字的倒排表聯集，沒有時為 null
+    private Postings wordsStartingWith(String prefix) {
+        NavigableMap<String, Postings> matching = words.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (matching.isEmpty()) {
+            return null;
+        }
+        if (matching.size() == 1) {
+            return matching.firstEntry().getValue();
+        }
+        BitSet union = new BitSet();
+        for (Postings postings : matching.values()) {
+            for (int i = 0; i < postings.size; i++) {
+                union.set(postings.slots[i]);
+            }
+        }
+        return new Postings(prefix, union.stream().toArray());
+    }
+
+    private static boolean containsAll(String text, List<String> runs) {
+        for (String run : runs) {
+            if (!text.contains(run)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ===== 分詞 =====
+
+    // 換行不是字母，片段不會跨欄位
+    private static String textOf(Task task) {
+        String text = normalize(task.getDescription()) + '\n' + normalize(task.getTags());
+        return task.getCategory() != null ? text + '\n' + normalize(task.getCategory().getDisplayName()) : text;
+    }
+
+    private static String normalize(String text) {
+        return text != null ? text.toLowerCase() : "";
+    }
+
+    // 切成連續的 CJK 片段與字母數字單字，其餘字元視為分隔
+    static List<String> runs(String text) {
+        List<String> runs = new ArrayList<>();
+        int start = -1;
+        boolean cjk = false;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            boolean letter = Character.isLetterOrDigit(c);
+            boolean cjkChar = letter && isCjk(c);
+            if (start >= 0 && (!letter || cjkChar != cjk)) {
+                runs.add(text.substring(start, i));
+                start = -1;
+            }
+            if (letter && start < 0) {
+                start = i;
+                cjk = cjkChar;
+            }
+        }
+        return runs;
+    }
+
+    static boolean isCjk(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL
+                || script == Character.UnicodeScript.BOPOMOFO;
+    }
+
+    /** 一個詞的倒排表：排序好的 slot 陣列 */
+    private static final class Postings {
+        final String term;
+        int[] slots;
+        int size;
+
+        Postings(String term) {
+            this.term = term;
+            this.slots = new int[4];
+        }
+
+        Postings(String term, int[] slots) {
+            this.term = term;
+            this.slots = slots;
+            this.size = slots.length;
+        }
+
+        boolean add(int slot) {
+            int i = Arrays.binarySearch(slots, 0, size, slot);
+            if (i >= 0) {
+                return false;
+            }
+            i = -i - 1;
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            System.arraycopy(slots, i, slots, i + 1, size - i);
+            slots[i] = slot;
+            size++;
+            return true;
+        }
+
+        void remove(int slot) {
+            int i = Arrays.binarySearch(slots, 0, size, slot);
+            if (i >= 0) {
+                System.arraycopy(slots, i + 1, slots, i, size - i - 1);
+                size--;
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package tw.ntou.pettracker.model;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 任務的固定位置（slot）登記表 - 每個任務加入清單時分到一個 slot，移除後空出的 slot 給之後的任務重用
+ *
+ * TaskFilterIndex、TaskSearchIndex、TagIndex、TaskColumns 共用同一份登記表，各自以 slot 為索引存放資料，
+ * 不同索引查出的 BitSet 可以直接取 AND，不必經由任務物件換算
+ * 跟著任務清單同步，只在 FX 執行緒上變更
+ */
+public class TaskSlots {
+
+    /** 各索引依 slot 維護自己的資料 */
+    public interface Listener {
+        /** task 佔用 slot；slot 可能超過目前的陣列長度，需要時擴充到 capacity() */
+        void slotAdded(int slot, Task task);
+
+        /** task 離開清單，slot 之後可能分給別的任務 */
+        void slotRemoved(int slot, Task task);
+    }
+
+    private final Map<Task, Integer> slotOf = new IdentityHashMap<>();
+    private Task[] slotTasks = new Task[16];
+    private final BitSet occupied = new BitSet();
+    private final BitSet freeSlots = new BitSet();
+    private int slotCount = 0;
+    private final List<Listener> listeners = new ArrayList<>();
+
+    public TaskSlots(ObservableList<Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+        tasks.addListener(this::listChanged);
+    }
+
+    /** 登記索引，並對已在清單中的任務補發 slotAdded */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+        for (int slot = occupied.nextSetBit(0); slot >= 0; slot = occupied.nextSetBit(slot + 1)) {
+            listener.slotAdded(slot, slotTasks[slot]);
+        }
+    }
+
+    // 先處理整次變更的移除再處理加入：同一個任務可能在一次變更中移到別的位置
+    private void listChanged(ListChangeListener.Change<? extends Task> c) {
+        while (c.next()) {
+            if (c.wasRemoved()) {
+                for (Task task : c.getRemoved()) {
+                    remove(task);
+                }
+            }
+        }
+        c.reset();
+        while (c.next()) {
+            if (c.wasAdded()) {
+                for (Task task : c.getAddedSubList()) {
+                    add(task);
+                }
+            }
+        }
+    }
+
+    private void add(Task task) {
+        if (slotOf.containsKey(task)) {
+            return;
+        }
+        int slot = freeSlots.nextSetBit(0);
+        if (slot >= 0) {
+            freeSlots.clear(slot);
+        } else {
+            slot = slotCount++;
+            if (slot == slotTasks.length) {
+                slotTasks = Arrays.copyOf(slotTasks, slot * 2);
+            }
+        }
+        slotTasks[slot] = task;
+        slotOf.put(task, slot);
+        occupied.set(slot);
+        for (Listener listener : listeners) {
+            listener.slotAdded(slot, task);
+        }
+    }
+
+    private void remove(Task task) {
+        Integer slot = slotOf.remove(task);
+        if (slot == null) {
+            return;
+        }
+        for (Listener listener : listeners) {
+            listener.slotRemoved(slot, task);
+        }
+        slotTasks[slot] = null;
+        occupied.clear(slot);
+        freeSlots.set(slot);
+    }
+
+    // ===== 查詢 =====
+
+    /** 任務的 slot，不在清單中時為 -1 */
+    public int slotOf(Task task) {
+        Integer slot = slotOf.get(task);
+        return slot != null ? slot : -1;
+    }
+
+    /** slot 上的任務，空出的 slot 為 null */
+    public Task taskAt(int slot) {
+        return slotTasks[slot];
+    }
+
+    /** slot 是否在 rows 中；不在清單中的任務為 false */
+    public boolean contains(BitSet rows, Task task) {
+        int slot = slotOf(task);
+        return slot >= 0 && rows.get(slot);
+    }
+
+    /** 目前有任務的 slot（複本） */
+    public BitSet occupied() {
+        return (BitSet) occupied.clone();
+    }
+
+    /** from 之後（含）第一個有任務的 slot，沒有時為 -1 */
+    public int nextSlot(int from) {
+        return occupied.nextSetBit(from);
+    }
+
+    /** 用過的 slot 數，所有 slot 都小於此值 */
+    public int slotCount() {
+        return slotCount;
+    }
+
+    /** 各索引的 slot 陣列應有的長度 */
+    public int capacity() {
+        return slotTasks.length;
+    }
+
+    /** rows 中的任務，依 slot 順序 */
+    public List<Task> tasksIn(BitSet rows) {
+        List<Task> result = new ArrayList<>(rows.cardinality());
+        for (int slot = rows.nextSetBit(0); slot >= 0; slot = rows.nextSetBit(slot + 1)) {
+            result.add(slotTasks[slot]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,234 @@
+package tw.ntou.pettracker.model;
+
+import javafx.collections.ModifiableObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 任務清單 - 一般的可觀察清單，另外提供整批替換與重排：
+ * 只發出一次變更，內容不變的前後段不列入，只換位置的任務以重排（permutation）通知，
+ * 監聽者不會把它們當成刪除後再新增
+ *
+ * batch() 內的清單變更合併成一次通知；衍生的更新（統計、成就、寵物獎勵）
+ * 可用 isInBatch() 判斷先累積，batch 結束時由提交監聽器一次處理
+ *
+ * 另外維護 id → 任務的索引，編輯、提醒、拖放等可以直接以 id 找到任務
+ */
+public class TaskStore extends ModifiableObservableListBase<Task> {
+    private final List<Task> list = new ArrayList<>();
+    private final Map<String, Task> byId = new HashMap<>();
+    private final List<Runnable> commitListeners = new ArrayList<>();
+    private int batchDepth = 0;
+
+    @Override
+    public Task get(int index) {
+        return list.get(index);
+    }
+
+    @Override
+    public int size() {
+        return list.size();
+    }
+
+    @Override
+    protected void doAdd(int index, Task element) {
+        list.add(index, element);
+        index(element);
+    }
+
+    @Override
+    protected Task doSet(int index, Task element) {
+        Task old = list.set(index, element);
+        unindex(old);
+        index(element);
+        return old;
+    }
+
+    @Override
+    protected Task doRemove(int index) {
+        Task old = list.remove(index);
+        unindex(old);
+        return old;
+    }
+
+    /** 以 id 找任務，不在清單中時回傳 null */
+    public Task findById(String id) {
+        return id != null ? byId.get(id) : null;
+    }
+
+    public boolean containsId(String id) {
+        return id != null && byId.containsKey(id);
+    }
+
+    private void index(Task task) {
+        byId.put(task.getId(), task);
+    }
+
+    // 只在索引仍指向這個物件時移除
+    private void unindex(Task task) {
+        byId.remove(task.getId(), task);
+    }
+
+    /**
+     * 執行一組變更，期間的清單變更合併成一次通知，結束後呼叫提交監聽器（可巢狀）
+     */
+    public void batch(Runnable mutation) {
+        batchDepth++;
+        beginChange();
+        try {
+            mutation.run();
+        } finally {
+            // 先送出合併的清單變更（此時仍在 batch 中），再通知提交
+            endChange();
+            batchDepth--;
+            if (batchDepth == 0) {
+                for (Runnable listener : new ArrayList<>(commitListeners)) {
+                    listener.run();
+                }
+            }
+        }
+    }
+
+    public boolean isInBatch() {
+        return batchDepth > 0;
+    }
+
+    public void addBatchCommitListener(Runnable listener) {
+        commitListeners.add(listener);
+    }
+
+    public void removeBatchCommitListener(Runnable listener) {
+        commitListeners.remove(listener);
+    }
+
+    /**
+     * 把內容換成 contents（以物件本身比對），發出一次最小的變更
+     */
+    public void replaceContents(List<Task> contents) {
+        int oldEnd = list.size();
+        int newEnd = contents.size();
+        int start = 0;
+        while (start < oldEnd && start < newEnd && list.get(start) == contents.get(start)) {
+            start++;
+        }
+        while (oldEnd > start && newEnd > start && list.get(oldEnd - 1) == contents.get(newEnd - 1)) {
+            oldEnd--;
+            newEnd--;
+        }
+        if (start == oldEnd && start == newEnd) {
+            return;
+        }
+
+        List<Task> oldMiddle = new ArrayList<>(list.subList(start, oldEnd));
+        List<Task> newMiddle = contents.subList(start, newEnd);
+        Set<Task> oldSet = identitySet(oldMiddle);
+        Set<Task> newSet = identitySet(newMiddle);
+
+        if (oldMiddle.size() == newMiddle.size() && oldSet.containsAll(newSet)) {
+            reorder(start, newMiddle);
+            return;
+        }
+
+        beginChange();
+        try {
+            if (sameRelativeOrder(oldMiddle, newSet, newMiddle, oldSet)) {
+                // 留下的任務順序不變：只移除消失的、插入新出現的
+                for (int i = oldMiddle.size() - 1; i >= 0; i--) {
+                    Task task = oldMiddle.get(i);
+                    if (!newSet.contains(task)) {
+                        list.remove(start + i);
+                        unindex(task);
+                        nextRemove(start + i, task);
+                    }
+                }
+                for (int j = 0; j < newMiddle.size(); j++) {
+                    Task task = newMiddle.get(j);
+                    if (!oldSet.contains(task)) {
+                        list.add(start + j, task);
+                        index(task);
+                        nextAdd(start + j, start + j + 1);
+                    }
+                }
+            } else {
+                list.subList(start, oldEnd).clear();
+                list.addAll(start, newMiddle);
+                oldMiddle.forEach(this::unindex);
+                newMiddle.forEach(this::index);
+                nextReplace(start, newEnd, oldMiddle);
+            }
+        } finally {
+            endChange();
+        }
+    }
+
+    /**
+     * 把 from 開始的一段換成同一批任務的新順序，以一次重排通知
+     */
+    public void reorder(int from, List<Task> order) {
+        int to = from + order.size();
+        Map<Task, Integer> newIndex = new IdentityHashMap<>(order.size());
+        for (int i = 0; i < order.size(); i++) {
+            newIndex.put(order.get(i), from + i);
+        }
+        // perm[i - from] = 原本在 i 的任務的新位置
+        int[] perm = new int[order.size()];
+        for (int i = from; i < to; i++) {
+            Integer index = newIndex.get(list.get(i));
+            if (index == null) {
+                throw new IllegalArgumentException("重排的任務與原本不同");
+            }
+            perm[i - from] = index;
+        }
+        for (int i = 0; i < order.size(); i++) {
+            list.set(from + i, order.get(i));
+        }
+        beginChange();
+        nextPermutation(from, to, perm);
+        endChange();
+    }
+
+    /**
+     * 把 fromIndex 的任務移到 toIndex（移動後的位置）
+     */
+    public void move(int fromIndex, int toIndex) {
+        if (fromIndex == toIndex) {
+            return;
+        }
+        int lo = Math.min(fromIndex, toIndex);
+        int hi = Math.max(fromIndex, toIndex) + 1;
+        List<Task> order = new ArrayList<>(list.subList(lo, hi));
+        Task task = order.remove(fromIndex - lo);
+        order.add(toIndex - lo, task);
+        reorder(lo, order);
+    }
+
+    private static Set<Task> identitySet(List<Task> tasks) {
+        Set<Task> set = Collections.newSetFromMap(new IdentityHashMap<>(tasks.size()));
+        set.addAll(tasks);
+        return set;
+    }
+
+    private static boolean sameRelativeOrder(List<Task> oldMiddle, Set<Task> newSet,
+                                             List<Task> newMiddle, Set<Task> oldSet) {
+        int j = 0;
+        for (Task task : oldMiddle) {
+            if (!newSet.contains(task)) {
+                continue;
+            }
+            while (j < newMiddle.size() && !oldSet.contains(newMiddle.get(j))) {
+                j++;
+            }
+            if (j == newMiddle.size() || newMiddle.get(j) != task) {
+                return false;
+            }
+            j++;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,30 @@
+package tw.ntou.pettracker.repository;
+
+import tw.ntou.pettracker.BinaryTaskCodec;
+import tw.ntou.pettracker.TaskJournal;
+import tw.ntou.pettracker.TaskStreamLoader;
+import tw.ntou.pettracker.model.TaskData;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 二進位快照（tasks.bin，格式見 BinaryTaskCodec）
+ */
+public class BinaryTaskRepository extends FileTaskRepository {
+
+    public BinaryTaskRepository(File file, TaskJournal journal) {
+        super(file, journal);
+    }
+
+    @Override
+    protected TaskStreamLoader.SnapshotReader snapshotReader() {
+        return TaskStreamLoader.binaryReader(snapshotFile);
+    }
+
+    @Override
+    protected void writeSnapshot(List<TaskData> tasks) throws IOException {
+        BinaryTaskCodec.write(snapshotFile, tasks);
+    }
+}
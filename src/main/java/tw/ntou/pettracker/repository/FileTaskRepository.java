@@ -0,0 +1,162 @@
+package tw.ntou.pettracker.repository;
+
+import tw.ntou.pettracker.TaskJournal;
+import tw.ntou.pettracker.TaskStreamLoader;
+import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskData;
+import tw.ntou.pettracker.model.TaskJournalEntry;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 檔案式任務儲存庫 - 快照檔 + 變更日誌，查詢時掃描快照並套用日誌
+ */
+public abstract class FileTaskRepository implements TaskRepository {
+    protected final File snapshotFile;
+    private final TaskJournal journal;
+
+    protected FileTaskRepository(File snapshotFile, TaskJournal journal) {
+        this.snapshotFile = snapshotFile;
+        this.journal = journal;
+    }
+
+    /** 逐筆讀取快照檔（不含日誌） */
+    protected abstract TaskStreamLoader.SnapshotReader snapshotReader();
+
+    protected abstract void writeSnapshot(List<TaskData> tasks) throws IOException;
+
+    public File getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    /**
+     * 另一種格式的快照比較新時（切換過儲存格式），先轉存成本格式
+     */
+    public void migrateFrom(FileTaskRepository other) {
+        File source = other.getSnapshotFile();
+        if (!source.exists() || (snapshotFile.exists() && snapshotFile.lastModified() >= source.lastModified())) {
+            return;
+        }
+        try {
+            List<TaskData> tasks = new ArrayList<>();
+            other.snapshotReader().read(tasks::add);
+            writeSnapshot(tasks);
+            System.out.println("已將 " + source + " 轉存為 " + snapshotFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void readAll(Consumer<TaskData> consumer) throws IOException {
+        Map<String, TaskJournalEntry> entries = journal.readEntries();
+        snapshotReader().read(data -> {
+            TaskData resolved = journal.resolve(data, entries);
+            if (resolved != null) {
+                consumer.accept(resolved);
+            }
+        });
+        for (TaskData data : journal.remaining(entries)) {
+            consumer.accept(data);
+        }
+    }
+
+    @Override
+    public List<String> stream(LocalDate today, int batchSize, Consumer<List<TaskData>> sink) throws IOException {
+        return new TaskStreamLoader(journal, batchSize).load(snapshotReader(), today, sink);
+    }
+
+    @Override
+    public void upsert(TaskData task) {
+        journal.recordUpsert(task);
+    }
+
+    @Override
+    public void delete(String id) {
+        journal.recordDelete(id);
+    }
+
+    @Override
+    public void markOrderChanged() {
+        journal.markOrderChanged();
+    }
+
+    @Override
+    public boolean hasChanges() {
+        return journal.hasChanges();
+    }
+
+    @Override
+    public boolean needsCompaction() {
+        return journal.needsCompaction();
+    }
+
+    @Override
+    public Future<?> saveAll(List<TaskData> tasks) {
+        return journal.compact(tasks, this::writeSnapshotSafely);
+    }
+
+    private boolean writeSnapshotSafely(List<TaskData> tasks) {
+        try {
+            writeSnapshot(tasks);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public void flush() {
+        journal.awaitFlush();
+    }
+
+    // ===== 查詢（沒有索引，掃描整份資料） =====
+
+    @Override
+    public List<TaskData> findByDueDate(LocalDate from, LocalDate to) {
+        List<TaskData> result = scan(t -> t.dueDate != null && !t.dueDate.isBefore(from) && !t.dueDate.isAfter(to));
+        result.sort(Comparator.comparing(t -> t.dueDate));
+        return result;
+    }
+
+    @Override
+    public List<TaskData> findByDone(boolean done) {
+        return scan(t -> t.done == done);
+    }
+
+    @Override
+    public List<TaskData> findByCategory(Task.TaskCategory category) {
+        return scan(t -> t.category == category);
+    }
+
+    private List<TaskData> scan(Predicate<TaskData> filter) {
+        // 先把排隊中的日誌寫入，查詢結果才會包含最新變更
+        flush();
+        List<TaskData> result = new ArrayList<>();
+        try {
+            readAll(data -> {
+                if (filter.test(data)) {
+                    result.add(data);
+                }
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+}
@@ -0,0 +1,36 @@
+package tw.ntou.pettracker.repository;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import tw.ntou.pettracker.AtomicFileWriter;
+import tw.ntou.pettracker.TaskJournal;
+import tw.ntou.pettracker.TaskStreamLoader;
+import tw.ntou.pettracker.model.TaskData;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * JSON 快照（tasks.json）
+ */
+public class JsonTaskRepository extends FileTaskRepository {
+    private final ObjectReader taskReader;
+    private final ObjectWriter taskListWriter;
+
+    public JsonTaskRepository(File file, TaskJournal journal, ObjectReader taskReader, ObjectWriter taskListWriter) {
+        super(file, journal);
+        this.taskReader = taskReader;
+        this.taskListWriter = taskListWriter;
+    }
+
+    @Override
+    protected TaskStreamLoader.SnapshotReader snapshotReader() {
+        return TaskStreamLoader.jsonReader(snapshotFile, taskReader);
+    }
+
+    @Override
+    protected void writeSnapshot(List<TaskData> tasks) throws IOException {
+        AtomicFileWriter.writeAndWait(snapshotFile, out -> taskListWriter.writeValue(out, tasks));
+    }
+}
@@ -0,0 +1,411 @@
+package tw.ntou.pettracker.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import tw.ntou.pettracker.model.SubTaskData;
+import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskData;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * 內嵌式 SQL 任務儲存庫（H2，資料存在本機檔案）
+ *
+ * 每筆變更直接寫入資料表，不需要快照與日誌；
+ * 到期日、完成狀態、分類都有索引，查詢不必掃描全部任務。
+ * 所有資料庫存取都在同一條背景執行緒上依序執行
+ */
+public class SqlTaskRepository implements TaskRepository {
+    private static final String COLUMNS = "id, position, description, done, due_date, priority, remind, remind_at, "
+            + "tags, category, repeat_pattern, color_tag, estimated_minutes, actual_minutes, completed_at, sub_tasks, recurrence, series_id";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM tasks ";
+
+    private final Connection connection;
+    private final ObjectWriter subTaskWriter;
+    private final ObjectReader subTaskReader;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "task-sql");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // 新任務排在最後
+    private int nextPosition;
+    private volatile boolean orderStale = false;
+
+    public SqlTaskRepository(String jdbcUrl, ObjectMapper mapper) throws SQLException {
+        this.connection = DriverManager.getConnection(jdbcUrl);
+        TypeReference<List<SubTaskData>> subTaskType = new TypeReference<>() {};
+        this.subTaskWriter = mapper.writerFor(subTaskType);
+        this.subTaskReader = mapper.readerFor(subTaskType);
+        createSchema();
+    }
+
+    private void createSchema() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS tasks ("
+                    + "id VARCHAR(64) PRIMARY KEY, "
+                    + "position INT NOT NULL, "
+                    + "description VARCHAR, "
+                    + "done BOOLEAN NOT NULL, "
+                    + "due_date DATE, "
+                    + "priority INT NOT NULL, "
+                    + "remind BOOLEAN NOT NULL, "
+                    + "remind_at TIMESTAMP, "
+                    + "tags VARCHAR, "
+                    + "category VARCHAR(16), "
+                    + "repeat_pattern VARCHAR(16), "
+                    + "color_tag VARCHAR(16), "
+                    + "estimated_minutes INT NOT NULL, "
+                    + "actual_minutes INT NOT NULL, "
+                    + "completed_at TIMESTAMP, "
+                    + "sub_tasks VARCHAR)");
+            // 舊資料庫沒有重複規則與系列欄位
+            st.execute("ALTER TABLE tasks ADD COLUMN IF NOT EXISTS recurrence VARCHAR");
+            st.execute("ALTER TABLE tasks ADD COLUMN IF NOT EXISTS series_id VARCHAR(64)");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_tasks_due_date ON tasks(due_date)");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_tasks_done ON tasks(done)");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_tasks_category ON tasks(category)");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_tasks_position ON tasks(position)");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_tasks_series_id ON tasks(series_id)");
+            try (ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(position), -1) + 1 FROM tasks")) {
+                rs.next();
+                nextPosition = rs.getInt(1);
+            }
+        }
+    }
+
+    /** 資料庫中還沒有任何任務（第一次使用，可從檔案匯入） */
+    public boolean isEmpty() {
+        return call(() -> {
+            try (Statement st = connection.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM tasks")) {
+                rs.next();
+                return rs.getLong(1) == 0;
+            }
+        }, true);
+    }
+
+    // ===== 讀取 =====
+
+    @Override
+    public void readAll(Consumer<TaskData> consumer) throws IOException {
+        for (TaskData data : callOrThrow(() -> select(SELECT + "ORDER BY position", ps -> { }))) {
+            consumer.accept(data);
+        }
+    }
+
+    @Override
+    public List<String> stream(LocalDate today, int batchSize, Consumer<List<TaskData>> sink) throws IOException {
+        List<TaskData> todayTasks = callOrThrow(() -> select(SELECT + "WHERE due_date = ? ORDER BY position",
+                ps -> ps.setObject(1, today)));
+        if (!todayTasks.isEmpty()) {
+            sink.accept(todayTasks);
+        }
+
+        // 其餘任務依順序以 position 分頁讀取
+        int[] lastPosition = {-1};
+        while (true) {
+            List<TaskData> page = callOrThrow(() -> {
+                List<TaskData> rows = new ArrayList<>(batchSize);
+                try (PreparedStatement ps = connection.prepareStatement(SELECT
+                        + "WHERE position > ? AND (due_date IS NULL OR due_date <> ?) ORDER BY position LIMIT ?")) {
+                    ps.setInt(1, lastPosition[0]);
+                    ps.setObject(2, today);
+                    ps.setInt(3, batchSize);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            lastPosition[0] = rs.getInt("position");
+                            rows.add(readRow(rs));
+                        }
+                    }
+                }
+                return rows;
+            });
+            if (page.isEmpty()) {
+                break;
+            }
+            sink.accept(page);
+        }
+
+        return callOrThrow(() -> {
+            List<String> order = new ArrayList<>();
+            try (Statement st = connection.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT id FROM tasks ORDER BY position")) {
+                while (rs.next()) {
+                    order.add(rs.getString(1));
+                }
+            }
+            return order;
+        });
+    }
+
+    // ===== 寫入 =====
+
+    @Override
+    public void upsert(TaskData task) {
+        worker.execute(() -> {
+            try {
+                if (update(task) == 0) {
+                    insert(task, nextPosition++);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    @Override
+    public void delete(String id) {
+        worker.execute(() -> {
+            try (PreparedStatement ps = connection.prepareStatement("DELETE FROM tasks WHERE id = ?")) {
+                ps.setString(1, id);
+                ps.executeUpdate();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    @Override
+    public void markOrderChanged() {
+        orderStale = true;
+    }
+
+    @Override
+    public boolean hasChanges() {
+        return orderStale;
+    }
+
+    @Override
+    public boolean needsCompaction() {
+        return orderStale;
+    }
+
+    @Override
+    public Future<?> saveAll(List<TaskData> tasks) {
+        orderStale = false;
+        return worker.submit(() -> {
+            try {
+                connection.setAutoCommit(false);
+                try (Statement st = connection.createStatement()) {
+                    st.execute("DELETE FROM tasks");
+                }
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "INSERT INTO tasks (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                    for (int i = 0; i < tasks.size(); i++) {
+                        bindRow(ps, tasks.get(i), i);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                connection.commit();
+                nextPosition = tasks.size();
+            } catch (SQLException e) {
+                e.printStackTrace();
+                rollback();
+                orderStale = true;
+            } finally {
+                try {
+                    connection.setAutoCommit(true);
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    private int update(TaskData task) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("UPDATE tasks SET description = ?, done = ?, "
+                + "due_date = ?, priority = ?, remind = ?, remind_at = ?, tags = ?, category = ?, repeat_pattern = ?, "
+                + "color_tag = ?, estimated_minutes = ?, actual_minutes = ?, completed_at = ?, sub_tasks = ?, "
+                + "recurrence = ?, series_id = ? WHERE id = ?")) {
+            bindFields(ps, task, 1);
+            ps.setString(17, task.id);
+            return ps.executeUpdate();
+        }
+    }
+
+    private void insert(TaskData task, int position) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO tasks (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            bindRow(ps, task, position);
+            ps.executeUpdate();
+        }
+    }
+
+    private void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void flush() {
+        call(() -> null, null);
+    }
+
+    // ===== 查詢（使用索引） =====
+
+    @Override
+    public List<TaskData> findByDueDate(LocalDate from, LocalDate to) {
+        return query(SELECT + "WHERE due_date BETWEEN ? AND ? ORDER BY due_date, position", ps -> {
+            ps.setObject(1, from);
+            ps.setObject(2, to);
+        });
+    }
+
+    @Override
+    public List<TaskData> findByDone(boolean done) {
+        return query(SELECT + "WHERE done = ? ORDER BY position", ps -> ps.setBoolean(1, done));
+    }
+
+    @Override
+    public List<TaskData> findByCategory(Task.TaskCategory category) {
+        return query(SELECT + "WHERE category = ? ORDER BY position", ps -> ps.setString(1, category.name()));
+    }
+
+    @Override
+    public void close() {
+        call(() -> {
+            connection.close();
+            return null;
+        }, null);
+        worker.shutdown();
+    }
+
+    // ===== 資料列轉換 =====
+
+    private interface Binder {
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    private List<TaskData> query(String sql, Binder binder) {
+        return call(() -> select(sql, binder), new ArrayList<>());
+    }
+
+    // 只在資料庫執行緒上呼叫
+    private List<TaskData> select(String sql, Binder binder) throws SQLException {
+        List<TaskData> result = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            binder.bind(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(readRow(rs));
+                }
+            }
+        }
+        return result;
+    }
+
+    // 在資料庫執行緒上執行並等待結果，失敗時以 IOException 丟出（載入時不可把部分結果當成全部）
+    private <T> T callOrThrow(Callable<T> work) throws IOException {
+        try {
+            return worker.submit(work).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("讀取任務被中斷", e);
+        } catch (ExecutionException e) {
+            throw new IOException("讀取任務資料庫失敗", e.getCause());
+        }
+    }
+
+    // 在資料庫執行緒上執行並等待結果，失敗時回傳 fallback
+    private <T> T call(Callable<T> work, T fallback) {
+        try {
+            return worker.submit(work).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallback;
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+            return fallback;
+        }
+    }
+
+    private void bindRow(PreparedStatement ps, TaskData task, int position) throws SQLException {
+        ps.setString(1, task.id);
+        ps.setInt(2, position);
+        bindFields(ps, task, 3);
+    }
+
+    // 依序綁定 description 到 series_id 共 16 個欄位
+    private void bindFields(PreparedStatement ps, TaskData task, int i) throws SQLException {
+        ps.setString(i++, task.description);
+        ps.setBoolean(i++, task.done);
+        ps.setObject(i++, task.dueDate, Types.DATE);
+        ps.setInt(i++, task.priority);
+        ps.setBoolean(i++, task.remind);
+        ps.setObject(i++, task.remindAt, Types.TIMESTAMP);
+        ps.setString(i++, task.tags);
+        ps.setString(i++, task.category != null ? task.category.name() : null);
+        ps.setString(i++, task.repeatPattern != null ? task.repeatPattern.name() : null);
+        ps.setString(i++, task.colorTag);
+        ps.setInt(i++, task.estimatedMinutes);
+        ps.setInt(i++, task.actualMinutes);
+        ps.setObject(i++, task.completedAt, Types.TIMESTAMP);
+        if (task.subTasks != null) {
+            try {
+                ps.setString(i++, subTaskWriter.writeValueAsString(task.subTasks));
+            } catch (IOException e) {
+                throw new SQLException("子任務序列化失敗", e);
+            }
+        } else {
+            ps.setNull(i++, Types.VARCHAR);
+        }
+        ps.setString(i++, task.recurrence);
+        ps.setString(i, task.seriesId);
+    }
+
+    private TaskData readRow(ResultSet rs) throws SQLException {
+        TaskData task = new TaskData();
+        task.id = rs.getString("id");
+        task.description = rs.getString("description");
+        task.done = rs.getBoolean("done");
+        task.dueDate = rs.getObject("due_date", LocalDate.class);
+        task.priority = rs.getInt("priority");
+        task.remind = rs.getBoolean("remind");
+        task.remindAt = rs.getObject("remind_at", LocalDateTime.class);
+        task.tags = rs.getString("tags");
+        String category = rs.getString("category");
+        task.category = category != null ? Task.TaskCategory.valueOf(category) : null;
+        String repeatPattern = rs.getString("repeat_pattern");
+        task.repeatPattern = repeatPattern != null ? Task.RepeatPattern.valueOf(repeatPattern) : null;
+        task.colorTag = rs.getString("color_tag");
+        task.estimatedMinutes = rs.getInt("estimated_minutes");
+        task.actualMinutes = rs.getInt("actual_minutes");
+        task.completedAt = rs.getObject("completed_at", LocalDateTime.class);
+        String subTasks = rs.getString("sub_tasks");
+        if (subTasks != null) {
+            try {
+                task.subTasks = subTaskReader.readValue(subTasks);
+            } catch (IOException e) {
+                throw new SQLException("子任務資料格式錯誤", e);
+            }
+        }
+        task.recurrence = rs.getString("recurrence");
+        task.seriesId = rs.getString("series_id");
+        return task;
+    }
+}
@@ -0,0 +1,63 @@
+package tw.ntou.pettracker.repository;
+
+import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskData;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * 任務儲存庫 - 任務資料的讀寫與查詢介面，
+ * 實作可以是 JSON 快照、二進位快照或內嵌式 SQL 資料庫
+ */
+public interface TaskRepository {
+
+    /** 依儲存順序逐筆讀取所有任務（包含尚未整理的變更） */
+    void readAll(Consumer<TaskData> consumer) throws IOException;
+
+    /**
+     * 今日到期的任務先送出，其餘任務分批送出（在背景執行緒呼叫）；
+     * 回傳所有任務依儲存順序排列的 id。讀取失敗時丟出 IOException，已送出的批次不收回
+     */
+    List<String> stream(LocalDate today, int batchSize, Consumer<List<TaskData>> sink) throws IOException;
+
+    /** 新增或更新一筆任務（非同步寫入） */
+    void upsert(TaskData task);
+
+    void delete(String id);
+
+    /** 任務順序改變，下次整理時寫入 */
+    void markOrderChanged();
+
+    /** 是否有尚未整理進完整儲存內容的變更 */
+    boolean hasChanges();
+
+    /** 變更累積到需要整理的程度 */
+    boolean needsCompaction();
+
+    /**
+     * 以完整清單（含順序）取代儲存內容，在背景執行；
+     * 先前排入的個別變更不會覆蓋它
+     */
+    Future<?> saveAll(List<TaskData> tasks);
+
+    /** 等待排隊中的寫入完成 */
+    void flush();
+
+    // ===== 查詢 =====
+
+    /** 到期日介於 from 與 to 之間（含兩端），依到期日排序，同一天依儲存順序 */
+    List<TaskData> findByDueDate(LocalDate from, LocalDate to);
+
+    /** 依儲存順序 */
+    List<TaskData> findByDone(boolean done);
+
+    /** 依儲存順序 */
+    List<TaskData> findByCategory(Task.TaskCategory category);
+
+    /** 寫入剩餘資料並釋放資源 */
+    void close();
+}
@@ -0,0 +1,88 @@
+package tw.ntou.pettracker.service;
+
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import tw.ntou.pettracker.AchievementConverter;
+import tw.ntou.pettracker.Persistence;
+import tw.ntou.pettracker.model.Achievement;
+import tw.ntou.pettracker.model.AchievementData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 成就狀態儲存 - 以 id 索引 AchievementManager 中的成就實例，
+ * 啟動時讀一次 achievements.json 直接套用到這些實例上；
+ * 解鎖與進度變化會標記為待寫入，同一個 FX pulse 內的變化只寫一次
+ */
+public class AchievementStateStore {
+    private static AchievementStateStore instance;
+
+    private final Map<String, Achievement> byId = new LinkedHashMap<>();
+    private final InvalidationListener changeListener = obs -> markDirty();
+    private boolean flushScheduled = false;
+
+    private AchievementStateStore() {
+        for (Achievement achievement : AchievementManager.getAllAchievements()) {
+            byId.put(achievement.getId(), achievement);
+        }
+        load();
+        for (Achievement achievement : byId.values()) {
+            achievement.unlockedProperty().addListener(changeListener);
+            achievement.progressProperty().addListener(changeListener);
+            achievement.unlockedAtProperty().addListener(changeListener);
+            achievement.notificationShownProperty().addListener(changeListener);
+        }
+    }
+
+    public static AchievementStateStore getInstance() {
+        if (instance == null) {
+            instance = new AchievementStateStore();
+        }
+        return instance;
+    }
+
+    private void load() {
+        for (AchievementData data : Persistence.loadAchievementData()) {
+            Achievement achievement = byId.get(data.id);
+            if (achievement != null) {
+                AchievementConverter.fromData(data, achievement);
+            }
+        }
+    }
+
+    public Achievement get(String id) {
+        return byId.get(id);
+    }
+
+    public Collection<Achievement> getAchievements() {
+        return Collections.unmodifiableCollection(byId.values());
+    }
+
+    /** 已儲存的進度（沒有此成就時為 0） */
+    public int getProgress(String id) {
+        Achievement achievement = byId.get(id);
+        return achievement != null ? achievement.getProgress() : 0;
+    }
+
+    private void markDirty() {
+        if (flushScheduled) {
+            return;
+        }
+        flushScheduled = true;
+        Platform.runLater(this::flush);
+    }
+
+    /**
+     * 立即把目前狀態交給 PersistenceService（關閉視窗時使用）
+     */
+    public void flush() {
+        flushScheduled = false;
+        List<Achievement> snapshot = new ArrayList<>(byId.values());
+        PersistenceService.getInstance().saveAchievements(snapshot);
+    }
+}
@@ -0,0 +1,119 @@
+package tw.ntou.pettracker.service;
+
+import javafx.application.Platform;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 日期時鐘 - 快取今天的日期，過午夜時通知一次換日監聽器；
+ * 逐筆判斷逾期、今日到期時讀快取即可，不必每次讀系統時鐘
+ *
+ * 測試可用 setClock 換成固定或手動前進的時鐘，再呼叫 refresh()
+ */
+public class ClockService {
+    // 午夜後多等一點再讀時鐘，避免計時器提早觸發仍停在前一天
+    private static final long MIDNIGHT_MARGIN_MS = 50;
+
+    private static ClockService instance;
+
+    private volatile Clock clock = Clock.systemDefaultZone();
+    private volatile LocalDate today = LocalDate.now(clock);
+    private final List<Consumer<LocalDate>> rolloverListeners = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService timer;
+    private ScheduledFuture<?> midnightCheck;
+
+    private ClockService() {
+    }
+
+    public static synchronized ClockService getInstance() {
+        if (instance == null) {
+            instance = new ClockService();
+        }
+        return instance;
+    }
+
+    /** 今天的日期（快取） */
+    public LocalDate today() {
+        return today;
+    }
+
+    public LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    /** 換掉時鐘（測試用），立即重新讀取日期 */
+    public void setClock(Clock clock) {
+        this.clock = clock;
+        refresh();
+        scheduleMidnightCheck();
+    }
+
+    /**
+     * 重新讀取日期；日期改變時通知換日監聽器（同一天重複呼叫不會通知）
+     */
+    public void refresh() {
+        LocalDate current = LocalDate.now(clock);
+        if (current.equals(today)) {
+            return;
+        }
+        today = current;
+        for (Consumer<LocalDate> listener : rolloverListeners) {
+            listener.accept(current);
+        }
+    }
+
+    public void addRolloverListener(Consumer<LocalDate> listener) {
+        rolloverListeners.add(listener);
+    }
+
+    public void removeRolloverListener(Consumer<LocalDate> listener) {
+        rolloverListeners.remove(listener);
+    }
+
+    /**
+     * 開始在每天午夜檢查換日，換日通知在 FX 執行緒上送出
+     */
+    public synchronized void start() {
+        if (timer != null) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "day-clock");
+            t.setDaemon(true);
+            return t;
+        });
+        refresh();
+        scheduleMidnightCheck();
+    }
+
+    private synchronized void scheduleMidnightCheck() {
+        if (timer == null) {
+            return;
+        }
+        if (midnightCheck != null) {
+            midnightCheck.cancel(false);
+        }
+        LocalDateTime now = now();
+        long delay = Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay()).toMillis()
+                + MIDNIGHT_MARGIN_MS;
+        midnightCheck = timer.schedule(() -> Platform.runLater(() -> {
+            refresh();
+            scheduleMidnightCheck();
+        }), delay, TimeUnit.MILLISECONDS);
+    }
+}
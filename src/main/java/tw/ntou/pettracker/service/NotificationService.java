@@ -6,6 +6,7 @@ import javafx.stage.Stage;
 import javafx.util.Duration;
 import tw.ntou.pettracker.model.Task;
 import tw.ntou.pettracker.model.Pet;
+import tw.ntou.pettracker.model.TaskFilterIndex;
 import java.awt.*;
 import java.awt.TrayIcon.MessageType;
 import java.awt.event.MouseAdapter;
@@ -13,9 +14,14 @@ import java.awt.event.MouseEvent;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 
@@ -33,6 +39,12 @@ public class NotificationService {
     }
 
     private DataSaveCallback dataSaveCallback;
+    // 提醒到時以 id 找回目前的任務（在 FX 執行緒上呼叫）
+    private Function<String, Task> taskLookup;
+    private TaskFilterIndex dueIndex;
+    // 每個任務 id 只保留最新一次安排的提醒
+    private final Map<String, ScheduledFuture<?>> reminders = new ConcurrentHashMap<>();
+    private ScheduledFuture<?> periodicCheck;
 
     // 通知類型
     public enum NotificationType {
@@ -188,28 +200,47 @@ public class NotificationService {
         });
     }
 
-    // 安排任務提醒
+    public void setTaskLookup(Function<String, Task> taskLookup) {
+        this.taskLookup = taskLookup;
+    }
+
+    // 安排任務提醒；到時任務已刪除、完成或提醒時間已改就不顯示
     public void scheduleTaskReminder(Task task) {
+        String taskId = task.getId();
+        ScheduledFuture<?> previous = reminders.remove(taskId);
+        if (previous != null) {
+            previous.cancel(false);
+        }
         if (!task.isRemind() || task.getRemindAt() == null) return;
 
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime now = ClockService.getInstance().now();
         LocalDateTime remindTime = task.getRemindAt();
 
         if (remindTime.isBefore(now)) return;
 
         long delay = ChronoUnit.MILLIS.between(now, remindTime);
 
-        scheduler.schedule(() -> showNotification(
-                NotificationType.REMINDER,
-                "任務提醒: " + task.getDescription()
-        ), delay, TimeUnit.MILLISECONDS);
+        reminders.put(taskId, scheduler.schedule(() -> Platform.runLater(() -> {
+            Task current = taskLookup != null ? taskLookup.apply(taskId) : task;
+            if (current == null || current.isDone() || !current.isRemind()
+                    || !remindTime.equals(current.getRemindAt())) {
+                return;
+            }
+            showNotification(NotificationType.REMINDER, "任務提醒: " + current.getDescription());
+        }), delay, TimeUnit.MILLISECONDS));
+    }
+
+    /** 注入到期日索引，定期檢查時只看今天以前到期的任務 */
+    public void setDueIndex(TaskFilterIndex dueIndex) {
+        this.dueIndex = dueIndex;
     }
 
     // 檢查並發送任務相關通知
     public void checkTaskNotifications(ObservableList<Task> tasks) {
-        LocalDate today = LocalDate.now();
+        LocalDate today = ClockService.getInstance().today();
 
-        for (Task task : tasks) {
+        List<Task> candidates = dueIndex != null ? dueIndex.tasksIn(dueIndex.dueSoon(today, 1)) : tasks;
+        for (Task task : candidates) {
             if (task.isDone()) continue;
 
             // 檢查逾期任務
@@ -246,13 +277,22 @@ public class NotificationService {
         }
     }
 
-    // 開始定期檢查
-    public void startPeriodicChecks(ObservableList<Task> tasks, Pet pet) {
+    // 開始定期檢查（重新呼叫時取代先前的檢查，例如換上新的主畫面）
+    public synchronized void startPeriodicChecks(ObservableList<Task> tasks, Pet pet) {
+        stopPeriodicChecks();
         // 每小時檢查一次
-        scheduler.scheduleAtFixedRate(() -> {
+        // 任務清單與索引只在 FX 執行緒上存取
+        periodicCheck = scheduler.scheduleAtFixedRate(() -> Platform.runLater(() -> {
             checkTaskNotifications(tasks);
             checkPetNotifications(pet);
-        }, 0, 1, TimeUnit.HOURS);
+        }), 0, 1, TimeUnit.HOURS);
+    }
+
+    public synchronized void stopPeriodicChecks() {
+        if (periodicCheck != null) {
+            periodicCheck.cancel(false);
+            periodicCheck = null;
+        }
     }
 
     // 最小化到系統托盤
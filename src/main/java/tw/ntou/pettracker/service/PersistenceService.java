@@ -0,0 +1,171 @@
+package tw.ntou.pettracker.service;
+
+import tw.ntou.pettracker.Persistence;
+import tw.ntou.pettracker.model.Achievement;
+import tw.ntou.pettracker.model.AchievementData;
+import tw.ntou.pettracker.model.PetStatus;
+import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.WindowSetting;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 延遲寫入服務 - 依資料類別追蹤是否有變更，
+ * 短時間內的多次儲存合併為一次背景寫入，UI 執行緒不再等待磁碟
+ */
+public class PersistenceService {
+    private static PersistenceService instance;
+
+    // 合併寫入的等待時間
+    private static final long COALESCE_DELAY_MS = 500;
+
+    // 依此順序寫入：前三者只排入 AtomicFileWriter，最後等待任務快照在儲存庫執行緒上寫完，同一批一起提交
+    public enum Store {
+        ACHIEVEMENTS, SETTINGS, PET, TASKS
+    }
+
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "persistence-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // 每個資料類別只保留最新一次的寫入動作
+    private final Map<Store, Runnable> pendingWrites = new EnumMap<>(Store.class);
+    private ScheduledFuture<?> scheduledFlush;
+
+    // 上次寫入的內容，內容相同時不重寫
+    private WindowSetting lastSettings;
+    private PetStatus lastPetStatus;
+
+    private PersistenceService() {
+        // 程式結束（包含 System.exit）前把尚未寫入的資料寫完
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flushNow, "persistence-shutdown"));
+    }
+
+    public static PersistenceService getInstance() {
+        if (instance == null) {
+            instance = new PersistenceService();
+        }
+        return instance;
+    }
+
+    // ===== 各資料類別的儲存請求（在呼叫端執行緒上擷取快照） =====
+
+    public void saveTasks(List<Task> tasks) {
+        if (!Persistence.hasUnsavedTaskChanges()) {
+            return;
+        }
+        // 在 FX 執行緒轉成快照，寫入在儲存庫的背景執行緒上進行，這裡只等待完成
+        Future<?> save = Persistence.saveTasks(tasks);
+        submit(Store.TASKS, () -> Persistence.await(save));
+    }
+
+    public void saveAchievements(List<Achievement> achievements) {
+        List<AchievementData> snapshot = Persistence.toAchievementDataList(achievements);
+        submit(Store.ACHIEVEMENTS, () -> Persistence.saveAchievementData(snapshot));
+    }
+
+    public void saveWindowSettings(WindowSetting settings) {
+        if (sameSettings(lastSettings, settings)) {
+            return;
+        }
+        WindowSetting snapshot = copyOf(settings);
+        lastSettings = snapshot;
+        submit(Store.SETTINGS, () -> Persistence.saveWindowSettings(snapshot));
+    }
+
+    public void savePetStatus(PetStatus status) {
+        if (samePetStatus(lastPetStatus, status)) {
+            return;
+        }
+        lastPetStatus = status;
+        submit(Store.PET, () -> Persistence.savePetStatus(status));
+    }
+
+    // ===== 排程與寫入 =====
+
+    public synchronized boolean isDirty(Store store) {
+        return pendingWrites.containsKey(store);
+    }
+
+    private synchronized void submit(Store store, Runnable write) {
+        pendingWrites.put(store, write);
+        if (scheduledFlush == null) {
+            scheduledFlush = writer.schedule(this::flushPending, COALESCE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushPending() {
+        Map<Store, Runnable> batch;
+        synchronized (this) {
+            batch = new EnumMap<>(pendingWrites);
+            pendingWrites.clear();
+            scheduledFlush = null;
+        }
+        for (Map.Entry<Store, Runnable> entry : batch.entrySet()) {
+            try {
+                entry.getValue().run();
+            } catch (RuntimeException e) {
+                System.err.println("儲存 " + entry.getKey() + " 失敗: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 立即寫入所有尚未寫入的資料並等待完成（關閉程式時使用）
+     */
+    public void flush() {
+        try {
+            writer.submit(this::flushPending).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+        Persistence.flushTaskJournal();
+        Persistence.awaitPendingWrites();
+    }
+
+    // 關閉流程中背景執行緒可能已停止，直接在目前執行緒上寫入
+    private void flushNow() {
+        flushPending();
+        Persistence.flushTaskJournal();
+        Persistence.awaitPendingWrites();
+    }
+
+    private static boolean sameSettings(WindowSetting a, WindowSetting b) {
+        if (a == null || b == null) return false;
+        return a.isMaximized() == b.isMaximized()
+                && a.isUndecorated() == b.isUndecorated()
+                && Objects.equals(a.getResolution(), b.getResolution());
+    }
+
+    private static boolean samePetStatus(PetStatus a, PetStatus b) {
+        if (a == null || b == null) return false;
+        return Objects.equals(a.getSatisfaction(), b.getSatisfaction())
+                && Objects.equals(a.getFullness(), b.getFullness())
+                && a.getPlayChances() == b.getPlayChances()
+                && a.getFeedCount() == b.getFeedCount()
+                && a.getPlayCount() == b.getPlayCount()
+                && Objects.equals(a.getLastRewardDate(), b.getLastRewardDate());
+    }
+
+    private static WindowSetting copyOf(WindowSetting settings) {
+        WindowSetting copy = new WindowSetting();
+        copy.setMaximized(settings.isMaximized());
+        copy.setResolution(settings.getResolution());
+        copy.setUndecorated(settings.isUndecorated());
+        return copy;
+    }
+}
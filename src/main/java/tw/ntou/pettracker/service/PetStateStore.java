@@ -0,0 +1,98 @@
+package tw.ntou.pettracker.service;
+
+import javafx.beans.InvalidationListener;
+import tw.ntou.pettracker.Persistence;
+import tw.ntou.pettracker.model.Pet;
+import tw.ntou.pettracker.model.PetStatus;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 寵物狀態儲存 - 啟動時讀一次 PET.json 套用到寵物上，
+ * 之後任何狀態變化只更新記憶體並交給 PersistenceService 延遲寫入
+ */
+public class PetStateStore {
+    private static PetStateStore instance;
+
+    private Pet pet;
+    private final InvalidationListener changeListener = obs -> saveLater();
+
+    private PetStateStore() {
+    }
+
+    public static PetStateStore getInstance() {
+        if (instance == null) {
+            instance = new PetStateStore();
+        }
+        return instance;
+    }
+
+    /**
+     * 載入已儲存的狀態到寵物上，並開始追蹤變化（重新開啟主視窗時會換成新的寵物）
+     */
+    public void bind(Pet newPet) {
+        if (pet != null) {
+            unwatch(pet);
+        }
+        pet = newPet;
+        PetStatus status = Persistence.loadPetStatus();
+        if (status != null) {
+            apply(status, newPet);
+        }
+        watch(newPet);
+    }
+
+    private void saveLater() {
+        PersistenceService.getInstance().savePetStatus(toStatus(pet));
+    }
+
+    private void watch(Pet p) {
+        p.satisfactionProperty().addListener(changeListener);
+        p.fullnessProperty().addListener(changeListener);
+        p.playChancesProperty().addListener(changeListener);
+        p.lastRewardDateProperty().addListener(changeListener);
+        p.feedCountProperty().addListener(changeListener);
+        p.playCountProperty().addListener(changeListener);
+    }
+
+    private void unwatch(Pet p) {
+        p.satisfactionProperty().removeListener(changeListener);
+        p.fullnessProperty().removeListener(changeListener);
+        p.playChancesProperty().removeListener(changeListener);
+        p.lastRewardDateProperty().removeListener(changeListener);
+        p.feedCountProperty().removeListener(changeListener);
+        p.playCountProperty().removeListener(changeListener);
+    }
+
+    private static void apply(PetStatus status, Pet p) {
+        if (status.getSatisfaction() != null) {
+            p.setSatisfaction(status.getSatisfaction());
+        }
+        if (status.getFullness() != null) {
+            p.setFullness(status.getFullness());
+        }
+        p.setPlayChances(status.getPlayChances());
+        p.setFeedCount(status.getFeedCount());
+        p.setPlayCount(status.getPlayCount());
+        if (status.getLastRewardDate() != null) {
+            try {
+                p.setLastRewardDate(LocalDate.parse(status.getLastRewardDate()));
+            } catch (DateTimeParseException e) {
+                System.err.println("PET.json 日期格式錯誤: " + status.getLastRewardDate());
+            }
+        }
+    }
+
+    private static PetStatus toStatus(Pet p) {
+        PetStatus status = new PetStatus();
+        status.setSatisfaction(p.getSatisfaction());
+        status.setFullness(p.getFullness());
+        status.setPlayChances(p.getPlayChances());
+        status.setFeedCount(p.getFeedCount());
+        status.setPlayCount(p.getPlayCount());
+        LocalDate lastRewardDate = p.getLastRewardDate();
+        status.setLastRewardDate(lastRewardDate != null ? lastRewardDate.toString() : null);
+        return status;
+    }
+}
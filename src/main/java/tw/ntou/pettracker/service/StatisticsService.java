@@ -1,14 +1,19 @@
 package tw.ntou.pettracker.service;
 
-import javafx.collections.ObservableList;
 import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskColumns;
+import tw.ntou.pettracker.model.TaskData;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.time.ZoneOffset;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 public class StatisticsService {
+    // 完成趨勢的天數
+    private static final int TREND_DAYS = 30;
+    // 假設每日目標是5個
+    private static final int DAILY_GOAL = 5;
 
     // 任務統計數據類
     public static class TaskStatistics {
@@ -61,182 +66,221 @@ public class StatisticsService {
     }
 
     // 計算完整統計數據
-    public static TaskStatistics calculateStatistics(ObservableList<Task> tasks) {
-        LocalDate today = LocalDate.now();
-
-        // 基本統計
-        int totalTasks = tasks.size();
-        int completedTasks = (int) tasks.stream().filter(Task::isDone).count();
-        int pendingTasks = (int) tasks.stream().filter(t -> !t.isDone()).count();
-        int overdueTasks = (int) tasks.stream()
-                .filter(t -> !t.isDone() && t.getDueDate().isBefore(today))
-                .count();
-        double completionRate = totalTasks > 0 ? (double) completedTasks / totalTasks * 100 : 0;
-
-        // 平均完成時間（小時）
-        double averageCompletionTime = calculateAverageCompletionTime(tasks);
-
-        // 按優先級分組
-        Map<Integer, Integer> tasksByPriority = tasks.stream()
-                .collect(Collectors.groupingBy(
-                        Task::getPriority,
-                        Collectors.collectingAndThen(Collectors.counting(), Long::intValue)
-                ));
-
-        // 按類別分組
-        Map<Task.TaskCategory, Integer> tasksByCategory = tasks.stream()
-                .filter(t -> t.getCategory() != null)
-                .collect(Collectors.groupingBy(
-                        Task::getCategory,
-                        Collectors.collectingAndThen(Collectors.counting(), Long::intValue)
-                ));
-
-        // 完成趨勢（最近30天）
-        Map<LocalDate, Integer> completionTrend = calculateCompletionTrend(tasks, 30);
-
-        // 生產力時段分析
-        List<ProductivityHour> productivityByHour = calculateProductivityByHour(tasks);
-
-        // 連續達成統計
-        int currentStreak = calculateCurrentStreak(tasks);
-        int longestStreak = calculateLongestStreak(tasks);
-
-        return new TaskStatistics(
-                totalTasks, completedTasks, pendingTasks, overdueTasks,
-                completionRate, averageCompletionTime, tasksByPriority,
-                tasksByCategory, completionTrend, productivityByHour,
-                currentStreak, longestStreak
-        );
+    public static TaskStatistics calculateStatistics(List<Task> tasks) {
+        Accumulator accumulator = new Accumulator();
+        tasks.forEach(accumulator::add);
+        return accumulator.build();
     }
 
-    // 計算平均完成時間
-    private static double calculateAverageCompletionTime(ObservableList<Task> tasks) {
-        List<Double> completionTimes = tasks.stream()
-                .filter(t -> t.isDone() && t.getCompletedAt() != null)
-                .map(t -> {
-                    LocalDateTime created = t.getDueDate().atStartOfDay();
-                    LocalDateTime completed = t.getCompletedAt();
-                    return (double) ChronoUnit.HOURS.between(created, completed);
-                })
-                .collect(Collectors.toList());
-
-        return completionTimes.isEmpty() ? 0 :
-                completionTimes.stream().mapToDouble(Double::doubleValue).average().orElse(0);
+    // 直接在欄式副本上計算
+    public static TaskStatistics calculateStatistics(TaskColumns columns) {
+        Accumulator accumulator = new Accumulator();
+        accumulator.add(columns);
+        return accumulator.build();
     }
 
-    // 計算完成趨勢
-    private static Map<LocalDate, Integer> calculateCompletionTrend(ObservableList<Task> tasks, int days) {
-        Map<LocalDate, Integer> trend = new TreeMap<>();
-        LocalDate endDate = LocalDate.now();
-        LocalDate startDate = endDate.minusDays(days - 1);
+    // 記憶體中的任務 + 串流讀入的封存任務
+    public static TaskStatistics calculateStatistics(List<Task> tasks, Consumer<Consumer<TaskData>> history) {
+        Accumulator accumulator = new Accumulator();
+        tasks.forEach(accumulator::add);
+        history.accept(accumulator::add);
+        return accumulator.build();
+    }
 
-        // 初始化所有日期為0
-        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-            trend.put(date, 0);
+    /**
+     * 逐筆累計統計，不需要把所有任務放進同一個清單（封存任務可以邊讀邊算）；
+     * 日期以 epoch day、完成時間以本地秒數累計，全部用基本型別陣列計數
+     */
+    public static class Accumulator {
+        private static final Task.TaskCategory[] CATEGORIES = Task.TaskCategory.values();
+        // 常見的優先級直接用陣列計數
+        private static final int PRIORITY_SLOTS = 8;
+
+        private final LocalDate today = ClockService.getInstance().today();
+        private final int todayDay = (int) today.toEpochDay();
+        private final int trendStartDay = todayDay - (TREND_DAYS - 1);
+
+        private int totalTasks;
+        private int completedTasks;
+        private int overdueTasks;
+        private double completionHoursSum;
+        private int completionHoursCount;
+        private final int[] priorityCounts = new int[PRIORITY_SLOTS];
+        private final Map<Integer, Integer> otherPriorities = new HashMap<>();
+        private final int[] categoryCounts = new int[CATEGORIES.length];
+        private final int[] trendCounts = new int[TREND_DAYS];
+        private final int[] hourlyCount = new int[24];
+        private final int[] hourlyTotal = new int[24];
+        // 每筆完成任務的完成日（完成時間，沒有則用到期日），計算連續天數時排序
+        private int[] completionDays = new int[64];
+        private int completionDayCount;
+
+        public void add(Task task) {
+            LocalDate dueDate = task.getDueDate();
+            LocalDateTime completedAt = task.getCompletedAt();
+            Task.TaskCategory category = task.getCategory();
+            add(task.isDone(),
+                    dueDate != null ? (int) dueDate.toEpochDay() : TaskColumns.NO_DAY,
+                    completedAt != null ? completedAt.toEpochSecond(ZoneOffset.UTC) : TaskColumns.NO_TIME,
+                    task.getPriority(), category != null ? category.ordinal() : -1);
         }
 
-        // 統計每日完成數
-        tasks.stream()
-                .filter(t -> t.isDone() && t.getCompletedAt() != null)
-                .forEach(t -> {
-                    LocalDate completedDate = t.getCompletedAt().toLocalDate();
-                    if (!completedDate.isBefore(startDate) && !completedDate.isAfter(endDate)) {
-                        trend.merge(completedDate, 1, Integer::sum);
-                    }
-                });
-
-        return trend;
-    }
-
-    // 計算生產力時段
-    private static List<ProductivityHour> calculateProductivityByHour(ObservableList<Task> tasks) {
-        Map<Integer, Integer> hourlyCount = new HashMap<>();
-        Map<Integer, Integer> hourlyTotal = new HashMap<>();
+        public void add(TaskData data) {
+            add(data.done,
+                    data.dueDate != null ? (int) data.dueDate.toEpochDay() : TaskColumns.NO_DAY,
+                    data.completedAt != null ? data.completedAt.toEpochSecond(ZoneOffset.UTC) : TaskColumns.NO_TIME,
+                    data.priority, data.category != null ? data.category.ordinal() : -1);
+        }
 
-        // 初始化24小時
-        for (int i = 0; i < 24; i++) {
-            hourlyCount.put(i, 0);
-            hourlyTotal.put(i, 0);
+        public void add(TaskColumns columns) {
+            for (int row = columns.nextRow(0); row >= 0; row = columns.nextRow(row + 1)) {
+                Task.TaskCategory category = columns.category(row);
+                add(columns.isDone(row), columns.dueDay(row), columns.completedSecond(row),
+                        columns.priority(row), category != null ? category.ordinal() : -1);
+            }
         }
 
-        // 統計每小時完成的任務
-        tasks.stream()
-                .filter(t -> t.isDone() && t.getCompletedAt() != null)
-                .forEach(t -> {
-                    int hour = t.getCompletedAt().getHour();
-                    hourlyCount.merge(hour, 1, Integer::sum);
-                    // 根據優先級計算效率分數
-                    int score = 6 - t.getPriority(); // 優先級1得5分，優先級5得1分
-                    hourlyTotal.merge(hour, score, Integer::sum);
-                });
-
-        // 轉換為ProductivityHour列表
-        List<ProductivityHour> productivity = new ArrayList<>();
-        for (int hour = 0; hour < 24; hour++) {
-            int count = hourlyCount.get(hour);
-            double efficiency = count > 0 ? (double) hourlyTotal.get(hour) / count : 0;
-            productivity.add(new ProductivityHour(hour, count, efficiency));
+        private void add(boolean done, int dueDay, long completedSecond, int priority, int category) {
+            totalTasks++;
+            if (priority >= 0 && priority < PRIORITY_SLOTS) {
+                priorityCounts[priority]++;
+            } else {
+                otherPriorities.merge(priority, 1, Integer::sum);
+            }
+            if (category >= 0) {
+                categoryCounts[category]++;
+            }
+            boolean hasDue = dueDay != TaskColumns.NO_DAY;
+            if (!done) {
+                if (hasDue && dueDay < todayDay) {
+                    overdueTasks++;
+                }
+                return;
+            }
+
+            completedTasks++;
+            boolean hasCompleted = completedSecond != TaskColumns.NO_TIME;
+            int completedDay = hasCompleted ? TaskColumns.dayOf(completedSecond) : TaskColumns.NO_DAY;
+            int day = hasCompleted ? completedDay : dueDay;
+            if (day != TaskColumns.NO_DAY) {
+                if (completionDayCount == completionDays.length) {
+                    completionDays = Arrays.copyOf(completionDays, completionDays.length * 2);
+                }
+                completionDays[completionDayCount++] = day;
+            }
+            if (!hasCompleted) {
+                return;
+            }
+
+            // 平均完成時間（小時，捨去不足一小時的部分）
+            if (hasDue) {
+                completionHoursSum += (completedSecond - (long) dueDay * 86_400) / 3600;
+                completionHoursCount++;
+            }
+            // 完成趨勢
+            if (completedDay >= trendStartDay && completedDay <= todayDay) {
+                trendCounts[completedDay - trendStartDay]++;
+            }
+            // 生產力時段，根據優先級計算效率分數（優先級1得5分，優先級5得1分）
+            int hour = TaskColumns.hourOf(completedSecond);
+            hourlyCount[hour]++;
+            hourlyTotal[hour] += 6 - priority;
         }
 
-        return productivity;
-    }
+        public TaskStatistics build() {
+            int pendingTasks = totalTasks - completedTasks;
+            double completionRate = totalTasks > 0 ? (double) completedTasks / totalTasks * 100 : 0;
+            double averageCompletionTime = completionHoursCount > 0 ? completionHoursSum / completionHoursCount : 0;
 
-    // 計算當前連續達成天數
-    private static int calculateCurrentStreak(ObservableList<Task> tasks) {
-        Map<LocalDate, Long> dailyCompletions = tasks.stream()
-                .filter(Task::isDone)
-                .collect(Collectors.groupingBy(
-                        t -> t.getCompletedAt() != null ? t.getCompletedAt().toLocalDate() : t.getDueDate(),
-                        Collectors.counting()
-                ));
-
-        int streak = 0;
-        LocalDate currentDate = LocalDate.now();
-
-        // 從今天開始往前數
-        while (dailyCompletions.getOrDefault(currentDate, 0L) >= 5) { // 假設每日目標是5個
-            streak++;
-            currentDate = currentDate.minusDays(1);
+            Map<Integer, Integer> tasksByPriority = new HashMap<>(otherPriorities);
+            for (int priority = 0; priority < PRIORITY_SLOTS; priority++) {
+                if (priorityCounts[priority] > 0) {
+                    tasksByPriority.put(priority, priorityCounts[priority]);
+                }
+            }
+            Map<Task.TaskCategory, Integer> tasksByCategory = new HashMap<>();
+            for (Task.TaskCategory category : CATEGORIES) {
+                if (categoryCounts[category.ordinal()] > 0) {
+                    tasksByCategory.put(category, categoryCounts[category.ordinal()]);
+                }
+            }
+            // 初始化所有日期為0
+            Map<LocalDate, Integer> completionTrend = new TreeMap<>();
+            for (int i = 0; i < TREND_DAYS; i++) {
+                completionTrend.put(LocalDate.ofEpochDay(trendStartDay + i), trendCounts[i]);
+            }
+
+            List<ProductivityHour> productivityByHour = new ArrayList<>();
+            for (int hour = 0; hour < 24; hour++) {
+                int count = hourlyCount[hour];
+                double efficiency = count > 0 ? (double) hourlyTotal[hour] / count : 0;
+                productivityByHour.add(new ProductivityHour(hour, count, efficiency));
+            }
+
+            Arrays.sort(completionDays, 0, completionDayCount);
+            return new TaskStatistics(
+                    totalTasks, completedTasks, pendingTasks, overdueTasks,
+                    completionRate, averageCompletionTime, tasksByPriority,
+                    tasksByCategory, completionTrend, productivityByHour,
+                    currentStreak(), longestStreak()
+            );
         }
 
-        return streak;
-    }
+        // 計算當前連續達成天數（completionDays 已排序）
+        private int currentStreak() {
+            int streak = 0;
+            // 從今天開始往前數，[start, end) 是 day 當天的完成數
+            int end = lowerBound(todayDay + 1, completionDayCount);
+            for (int day = todayDay; ; day--) {
+                int start = lowerBound(day, end);
+                if (end - start < DAILY_GOAL) {
+                    return streak;
+                }
+                streak++;
+                end = start;
+            }
+        }
 
-    // 計算最長連續達成天數
-    private static int calculateLongestStreak(ObservableList<Task> tasks) {
-        Map<LocalDate, Long> dailyCompletions = tasks.stream()
-                .filter(Task::isDone)
-                .collect(Collectors.groupingBy(
-                        t -> t.getCompletedAt() != null ? t.getCompletedAt().toLocalDate() : t.getDueDate(),
-                        TreeMap::new,
-                        Collectors.counting()
-                ));
-
-        if (dailyCompletions.isEmpty()) return 0;
-
-        int maxStreak = 0;
-        int currentStreak = 0;
-        LocalDate prevDate = null;
-
-        for (Map.Entry<LocalDate, Long> entry : dailyCompletions.entrySet()) {
-            LocalDate date = entry.getKey();
-            Long count = entry.getValue();
-
-            if (count >= 5) { // 假設每日目標是5個
-                if (prevDate == null || date.equals(prevDate.plusDays(1))) {
-                    currentStreak++;
+        // 計算最長連續達成天數：每日完成數都達標的最長連續日期
+        private int longestStreak() {
+            int maxStreak = 0;
+            int currentStreak = 0;
+            int prevDay = TaskColumns.NO_DAY;
+
+            for (int i = 0; i < completionDayCount; ) {
+                int day = completionDays[i];
+                int j = i;
+                while (j < completionDayCount && completionDays[j] == day) {
+                    j++;
+                }
+                if (j - i >= DAILY_GOAL) {
+                    currentStreak = prevDay != TaskColumns.NO_DAY && day == prevDay + 1 ? currentStreak + 1 : 1;
+                    maxStreak = Math.max(maxStreak, currentStreak);
+                    prevDay = day;
                 } else {
-                    currentStreak = 1;
+                    currentStreak = 0;
+                    prevDay = TaskColumns.NO_DAY;
                 }
-                maxStreak = Math.max(maxStreak, currentStreak);
-                prevDate = date;
-            } else {
-                currentStreak = 0;
-                prevDate = null;
+                i = j;
             }
+
+            return maxStreak;
         }
 
-        return maxStreak;
+        // completionDays[0, end) 中第一個 >= day 的位置
+        private int lowerBound(int day, int end) {
+            int lo = 0;
+            int hi = end;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (completionDays[mid] < day) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
     }
 
     // 生成報告
@@ -8,21 +8,24 @@ import javafx.scene.input.TransferMode;
 import tw.ntou.pettracker.model.Task;
 
 import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
 
 /**
- * 拖放功能管理器
+ * 拖放功能管理器 - 拖曳內容是任務 id，放下時交給呼叫端的是被拖曳任務的 id
+ * 與放下位置的任務（空白列為 null），不依賴表格的顯示順序；enabled 為 false 時（表格依欄位排序中，
+ * 拖放的結果看不出來）不開始拖曳
  */
 public class DragDropManager {
 
-    public static void setupDragDrop(TableView<Task> table, BiConsumer<Integer, Integer> moveAction) {
+    public static void setupDragDrop(TableView<Task> table, BooleanSupplier enabled, BiConsumer<String, Task> moveAction) {
         table.setRowFactory(tv -> {
             TableRow<Task> row = new TableRow<>();
 
             row.setOnDragDetected(event -> {
-                if (!row.isEmpty()) {
+                if (!row.isEmpty() && enabled.getAsBoolean()) {
                     Dragboard db = row.startDragAndDrop(TransferMode.MOVE);
                     ClipboardContent cc = new ClipboardContent();
-                    cc.putString(String.valueOf(row.getIndex()));
+                    cc.putString(row.getItem().getId());
                     db.setContent(cc);
                     event.consume();
                 }
@@ -39,11 +42,10 @@ public class DragDropManager {
             row.setOnDragDropped(event -> {
                 Dragboard db = event.getDragboard();
                 if (db.hasString()) {
-                    int draggedIndex = Integer.parseInt(db.getString());
-                    int dropIndex = row.isEmpty() ? table.getItems().size() : row.getIndex();
+                    Task dropTarget = row.isEmpty() ? null : row.getItem();
 
                     // 執行移動操作
-                    moveAction.accept(draggedIndex, dropIndex);
+                    moveAction.accept(db.getString(), dropTarget);
 
                     event.setDropCompleted(true);
                     event.consume();
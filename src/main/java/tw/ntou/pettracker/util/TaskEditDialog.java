@@ -2,9 +2,11 @@ package tw.ntou.pettracker.util;
 
 import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import tw.ntou.pettracker.model.RecurrenceRule;
 import tw.ntou.pettracker.model.Task;
 
 /**
@@ -47,6 +49,17 @@ public class TaskEditDialog extends Dialog<Task> {
         repeatBox.setValue(task.getRepeatPattern());
         repeatBox.setPromptText("重複模式");
 
+        // 自訂重複規則（RRULE），只在選擇 CUSTOM 時使用，此時必須填入可解析的規則
+        TextField recurrenceField = new TextField(task.getRecurrence() != null ? task.getRecurrence() : "");
+        recurrenceField.setPromptText("FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,WE");
+        recurrenceField.disableProperty().bind(repeatBox.valueProperty().isNotEqualTo(Task.RepeatPattern.CUSTOM));
+        Node saveButton = getDialogPane().lookupButton(saveButtonType);
+        Runnable validate = () -> saveButton.setDisable(
+                repeatBox.getValue() == Task.RepeatPattern.CUSTOM && !isValidRecurrence(recurrenceField.getText()));
+        recurrenceField.textProperty().addListener((obs, ov, nv) -> validate.run());
+        repeatBox.valueProperty().addListener((obs, ov, nv) -> validate.run());
+        validate.run();
+
         Spinner<Integer> estimatedSpinner = new Spinner<>(0, 480, task.getEstimatedMinutes(), 15);
         estimatedSpinner.setEditable(true);
 
@@ -61,6 +74,7 @@ public class TaskEditDialog extends Dialog<Task> {
                 new Label("標籤:"), tagsField,
                 new Label("預估時間 (分鐘):"), estimatedSpinner,
                 new Label("重複:"), repeatBox,
+                new Label("自訂重複規則:"), recurrenceField,
                 remindBox,
                 new Separator(),
                 subTasksBox
@@ -81,6 +95,9 @@ public class TaskEditDialog extends Dialog<Task> {
                 task.setTags(tagsField.getText());
                 task.setRemind(remindBox.isSelected());
                 task.setRepeatPattern(repeatBox.getValue());
+                // 其他模式不使用規則，欄位中殘留的內容不保存
+                task.setRecurrence(repeatBox.getValue() == Task.RepeatPattern.CUSTOM
+                        ? RecurrenceRule.parse(recurrenceField.getText()).toString() : null);
                 task.setEstimatedMinutes(estimatedSpinner.getValue());
                 return task;
             }
@@ -88,6 +105,18 @@ public class TaskEditDialog extends Dialog<Task> {
         });
     }
 
+    private static boolean isValidRecurrence(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return false;
+        }
+        try {
+            RecurrenceRule.parse(text);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
     private VBox createSubTasksSection(Task task) {
         VBox subTasksBox = new VBox(5);
         Label subTasksLabel = new Label("子任務:");
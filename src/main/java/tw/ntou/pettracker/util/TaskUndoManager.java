@@ -0,0 +1,347 @@
+package tw.ntou.pettracker.util;
+
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
+import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskStore;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 撤銷/重做 - 每個動作記成一組可逆的差異（欄位的舊值/新值、清單位置的移除/加入），
+ * 撤銷與重做只處理該動作改到的部分，不複製整個任務清單
+ *
+ * 差異總量（欄位變更算 1，清單變更算移入移出的任務數）超過上限時丟掉最舊的動作
+ */
+public class TaskUndoManager {
+    /** 預設記錄的差異上限，以 -Dpettracker.undoLimit 調整 */
+    public static final int DEFAULT_LIMIT = 5000;
+
+    private final TaskStore tasks;
+    private final int limit;
+    private final Deque<Command> undoStack = new ArrayDeque<>();
+    private final Deque<Command> redoStack = new ArrayDeque<>();
+    // 兩個堆疊中的差異總量
+    private int undoWeight = 0;
+    private int redoWeight = 0;
+
+    // 正在記錄的動作
+    private Command open;
+    // 撤銷/重做套用差異時不再記錄
+    private boolean applying = false;
+
+    private final Task.FieldChangeListener fieldListener = this::fieldChanged;
+
+    /** 一筆可逆的差異；清單差異可以套用在任務清單或它的複本上 */
+    private interface Delta {
+        void undo(List<Task> tasks);
+
+        void redo(List<Task> tasks);
+
+        int weight();
+
+        default boolean changesList() {
+            return true;
+        }
+    }
+
+    private static class FieldDelta implements Delta {
+        final Task task;
+        final String field;
+        final Object oldValue;
+        final Object newValue;
+
+        FieldDelta(Task task, String field, Object oldValue, Object newValue) {
+            this.task = task;
+            this.field = field;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+        public void undo(List<Task> tasks) {
+            task.applyField(field, oldValue);
+        }
+
+        public void redo(List<Task> tasks) {
+            task.applyField(field, newValue);
+        }
+
+        public int weight() {
+            return 1;
+        }
+
+        public boolean changesList() {
+            return false;
+        }
+    }
+
+    /**
+     * 清單的一段變更：在 from 移除 removed 後加入 added；
+     * 同一次通知的多段變更依序套用時 from 即為當下位置
+     */
+    private static class ListDelta implements Delta {
+        final int from;
+        final List<Task> removed;
+        final List<Task> added;
+
+        ListDelta(int from, List<Task> removed, List<Task> added) {
+            this.from = from;
+            this.removed = removed;
+            this.added = added;
+        }
+
+        public void undo(List<Task> tasks) {
+            replace(tasks, from, added.size(), removed);
+        }
+
+        public void redo(List<Task> tasks) {
+            replace(tasks, from, removed.size(), added);
+        }
+
+        public int weight() {
+            return Math.max(1, removed.size() + added.size());
+        }
+
+        private static void replace(List<Task> tasks, int from, int count, List<Task> replacement) {
+            if (count > 0) {
+                tasks.subList(from, from + count).clear();
+            }
+            if (!replacement.isEmpty()) {
+                tasks.addAll(from, replacement);
+            }
+        }
+    }
+
+    /** 一段任務的重排（拖放移動） */
+    private static class ReorderDelta implements Delta {
+        final int from;
+        final List<Task> before;
+        final List<Task> after;
+
+        ReorderDelta(int from, List<Task> before, List<Task> after) {
+            this.from = from;
+            this.before = before;
+            this.after = after;
+        }
+
+        public void undo(List<Task> tasks) {
+            reorder(tasks, before);
+        }
+
+        public void redo(List<Task> tasks) {
+            reorder(tasks, after);
+        }
+
+        public int weight() {
+            return Math.max(1, before.size());
+        }
+
+        private void reorder(List<Task> tasks, List<Task> order) {
+            if (tasks instanceof TaskStore) {
+                ((TaskStore) tasks).reorder(from, order);
+            } else {
+                for (int i = 0; i < order.size(); i++) {
+                    tasks.set(from + i, order.get(i));
+                }
+            }
+        }
+    }
+
+    private static class Command {
+        final String description;
+        final List<Delta> deltas = new ArrayList<>();
+        int weight = 0;
+
+        Command(String description) {
+            this.description = description;
+        }
+    }
+
+    public TaskUndoManager(TaskStore tasks, int limit) {
+        this.tasks = tasks;
+        this.limit = limit;
+        for (Task task : tasks) {
+            watch(task);
+        }
+        tasks.addListener(this::listChanged);
+    }
+
+    public static int limitFromProperty() {
+        return Math.max(1, Integer.getInteger("pettracker.undoLimit", DEFAULT_LIMIT));
+    }
+
+    /**
+     * 開始記錄一個動作，目前事件處理完後自動結束
+     */
+    public void begin(String description) {
+        Command command = start(description);
+        Platform.runLater(() -> {
+            if (open == command) {
+                end();
+            }
+        });
+    }
+
+    /**
+     * 把 action 執行期間的所有變更記成一個動作（例如會開啟對話框的編輯）
+     */
+    public void record(String description, Runnable action) {
+        start(description);
+        try {
+            action.run();
+        } finally {
+            end();
+        }
+    }
+
+    private Command start(String description) {
+        end();
+        open = new Command(description);
+        return open;
+    }
+
+    private void end() {
+        Command command = open;
+        open = null;
+        if (command == null || command.deltas.isEmpty()) {
+            return;
+        }
+        redoStack.clear();
+        redoWeight = 0;
+        undoStack.push(command);
+        undoWeight += command.weight;
+        trim();
+    }
+
+    public boolean canUndo() {
+        return open != null && !open.deltas.isEmpty() || !undoStack.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redoStack.isEmpty();
+    }
+
+    /** 正在套用撤銷/重做（完成獎勵等副作用不應再觸發） */
+    public boolean isApplying() {
+        return applying;
+    }
+
+    /** 撤銷最近一個動作，回傳其描述（沒有可撤銷的動作時為 null） */
+    public String undo() {
+        end();
+        Command command = undoStack.poll();
+        if (command == null) {
+            return null;
+        }
+        apply(command, target -> {
+            for (int i = command.deltas.size() - 1; i >= 0; i--) {
+                command.deltas.get(i).undo(target);
+            }
+        });
+        undoWeight -= command.weight;
+        redoStack.push(command);
+        redoWeight += command.weight;
+        return command.description;
+    }
+
+    /** 重做最近撤銷的動作，回傳其描述（沒有可重做的動作時為 null） */
+    public String redo() {
+        end();
+        Command command = redoStack.poll();
+        if (command == null) {
+            return null;
+        }
+        apply(command, target -> {
+            for (Delta delta : command.deltas) {
+                delta.redo(target);
+            }
+        });
+        redoWeight -= command.weight;
+        undoStack.push(command);
+        undoWeight += command.weight;
+        return command.description;
+    }
+
+    /**
+     * 只有一筆清單差異時直接套用在任務清單上；有多筆時（例如批量刪除）先套用在複本上，
+     * 再以 replaceContents 一次換上
+     */
+    private void apply(Command command, Consumer<List<Task>> change) {
+        int listDeltas = 0;
+        for (Delta delta : command.deltas) {
+            if (delta.changesList()) {
+                listDeltas++;
+            }
+        }
+        int count = listDeltas;
+        applying = true;
+        try {
+            // 欄位還原也在同一個 batch 內，統計等衍生更新只做一次
+            tasks.batch(() -> {
+                if (count <= 1) {
+                    change.accept(tasks);
+                } else {
+                    List<Task> working = new ArrayList<>(tasks);
+                    change.accept(working);
+                    tasks.replaceContents(working);
+                }
+            });
+        } finally {
+            applying = false;
+        }
+    }
+
+    // ===== 記錄差異 =====
+
+    private void watch(Task task) {
+        // 同一個任務被撤銷刪除後會再加入，先移除避免重複監聽
+        task.removeFieldChangeListener(fieldListener);
+        task.addFieldChangeListener(fieldListener);
+    }
+
+    private void fieldChanged(Task task, String field, Object oldValue, Object newValue) {
+        if (applying || open == null || "subTasks".equals(field)) {
+            // 子任務變更沒有舊值可還原，不記錄
+            return;
+        }
+        add(new FieldDelta(task, field, oldValue, newValue));
+    }
+
+    private void listChanged(ListChangeListener.Change<? extends Task> c) {
+        while (c.next()) {
+            if (c.wasAdded()) {
+                for (Task task : c.getAddedSubList()) {
+                    watch(task);
+                }
+            }
+            if (applying || open == null || c.wasUpdated()) {
+                continue;
+            }
+            if (c.wasPermutated()) {
+                List<Task> before = new ArrayList<>(c.getTo() - c.getFrom());
+                for (int i = c.getFrom(); i < c.getTo(); i++) {
+                    before.add(tasks.get(c.getPermutation(i)));
+                }
+                add(new ReorderDelta(c.getFrom(), before, new ArrayList<>(tasks.subList(c.getFrom(), c.getTo()))));
+            } else {
+                add(new ListDelta(c.getFrom(), new ArrayList<>(c.getRemoved()), new ArrayList<>(c.getAddedSubList())));
+            }
+        }
+    }
+
+    private void add(Delta delta) {
+        open.deltas.add(delta);
+        open.weight += delta.weight();
+    }
+
+    // 超過上限時從最舊的動作開始丟棄，至少保留最近一個
+    private void trim() {
+        while (undoWeight + redoWeight > limit && undoStack.size() > 1) {
+            undoWeight -= undoStack.removeLast().weight;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package tw.ntou.pettracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import tw.ntou.pettracker.model.SubTaskData;
+import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskData;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 二進位快照測試 - 欄位完整還原、檢查碼不符時不送出任何資料、
+ * 較新版本拒絕讀取，舊版本（1、2）照常讀取
+ */
+public class BinaryTaskCodecTest {
+    // 魔術字、版本、任務數、字串數、內容長度、CRC
+    private static final int HEADER_SIZE = 4 + 2 + 4 + 4 + 8 + 4;
+    private static final int VERSION_OFFSET = 4;
+
+    @Test
+    public void roundTripKeepsAllFields() throws Exception {
+        TaskData full = new TaskData();
+        full.id = "3f2b6c1e-8a4d-4c1b-9e2f-7a6b5c4d3e2f";
+        full.description = "寫期末報告";
+        full.done = true;
+        full.dueDate = LocalDate.of(2025, 3, 10);
+        full.priority = 5;
+        full.remind = true;
+        full.remindAt = LocalDateTime.of(2025, 3, 9, 20, 30, 15, 250_000_000);
+        full.tags = "學校,報告";
+        full.category = Task.TaskCategory.values()[1];
+        full.subTasks = List.of(new SubTaskData("找資料", true), new SubTaskData("寫結論", false));
+        full.repeatPattern = Task.RepeatPattern.values()[1];
+        full.colorTag = "#ff8800";
+        full.estimatedMinutes = 300;
+        full.actualMinutes = 45;
+        full.completedAt = LocalDateTime.of(2025, 3, 10, 8, 0);
+        full.recurrence = "FREQ=WEEKLY;BYDAY=MO,WE";
+        full.seriesId = "series-1";
+
+        TaskData plain = new TaskData();
+        plain.id = "legacy-id";
+        plain.description = "寫期末報告";
+        plain.priority = 1;
+
+        List<TaskData> read = read(write(List.of(full, plain)));
+        assertEquals(2, read.size());
+        TaskData a = read.get(0);
+        assertEquals(full.id, a.id);
+        assertEquals(full.description, a.description);
+        assertTrue(a.done);
+        assertEquals(full.dueDate, a.dueDate);
+        assertEquals(5, a.priority);
+        assertTrue(a.remind);
+        assertEquals(full.remindAt, a.remindAt);
+        assertEquals(full.tags, a.tags);
+        assertEquals(full.category, a.category);
+        assertEquals(2, a.subTasks.size());
+        assertEquals("寫結論", a.subTasks.get(1).description);
+        assertTrue(a.subTasks.get(0).done);
+        assertEquals(full.repeatPattern, a.repeatPattern);
+        assertEquals(full.colorTag, a.colorTag);
+        assertEquals(300, a.estimatedMinutes);
+        assertEquals(45, a.actualMinutes);
+        assertEquals(full.completedAt, a.completedAt);
+        assertEquals(full.recurrence, a.recurrence);
+        assertEquals(full.seriesId, a.seriesId);
+
+        TaskData b = read.get(1);
+        assertEquals("legacy-id", b.id);
+        assertNull(b.dueDate);
+        assertNull(b.category);
+        assertNull(b.subTasks);
+        assertNull(b.recurrence);
+    }
+
+    @Test
+    public void corruptedContentIsRejectedBeforeAnyTaskIsDelivered() throws Exception {
+        byte[] bytes = write(List.of(task("a", "買牛奶"), task("b", "健身")));
+        bytes[bytes.length - 3] ^= 0x40;
+
+        List<TaskData> delivered = new ArrayList<>();
+        try {
+            BinaryTaskCodec.read(new ByteArrayInputStream(bytes), delivered::add);
+            fail("檢查碼不符應丟出 IOException");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("檢查碼"));
+        }
+        assertTrue(delivered.isEmpty());
+    }
+
+    @Test
+    public void truncatedFileIsRejected() throws Exception {
+        byte[] bytes = write(List.of(task("a", "買牛奶")));
+        try {
+            read(Arrays.copyOf(bytes, bytes.length - 1));
+            fail("內容不完整應丟出 IOException");
+        } catch (IOException expected) {
+            // 預期
+        }
+    }
+
+    @Test
+    public void newerVersionIsRejected() throws Exception {
+        byte[] bytes = write(List.of(task("a", "買牛奶")));
+        ByteBuffer.wrap(bytes).putShort(VERSION_OFFSET, (short) (BinaryTaskCodec.VERSION + 1));
+        try {
+            read(bytes);
+            fail("較新的版本應拒絕讀取");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("版本"));
+        }
+    }
+
+    @Test
+    public void readsVersionTwoWithoutRecurrenceFields() throws Exception {
+        TaskData task = task("a", "買牛奶");
+        task.category = Task.TaskCategory.values()[0];
+        task.estimatedMinutes = 30;
+        byte[] current = write(List.of(task));
+        // 版本 2 的紀錄沒有結尾的重複規則與系列 ID（兩個 0）
+        byte[] content = Arrays.copyOfRange(current, HEADER_SIZE, current.length - 2);
+
+        List<TaskData> read = read(snapshot((short) 2, 1, ByteBuffer.wrap(current).getInt(10), content));
+        assertEquals(1, read.size());
+        assertEquals("買牛奶", read.get(0).description);
+        assertEquals(task.category, read.get(0).category);
+        assertEquals(30, read.get(0).estimatedMinutes);
+        assertNull(read.get(0).recurrence);
+    }
+
+    @Test
+    public void readsVersionOneBasicRecords() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bytes);
+        writeString(body, "old-1");
+        writeString(body, "舊任務");
+        body.writeByte(1 << 2); // 只有到期日
+        BinaryTaskCodec.writeVarInt(body, 1);
+        BinaryTaskCodec.writeVarInt(body, 2);
+        BinaryTaskCodec.writeVarInt(body, 0);
+        body.writeByte(4);
+        body.writeInt((int) LocalDate.of(2024, 12, 31).toEpochDay());
+        body.flush();
+
+        List<TaskData> read = read(snapshot((short) 1, 1, 2, bytes.toByteArray()));
+        assertEquals(1, read.size());
+        TaskData task = read.get(0);
+        assertEquals("old-1", task.id);
+        assertEquals("舊任務", task.description);
+        assertEquals(4, task.priority);
+        assertEquals(LocalDate.of(2024, 12, 31), task.dueDate);
+        assertNull(task.category);
+        assertNull(task.subTasks);
+    }
+
+    private static TaskData task(String id, String description) {
+        TaskData data = new TaskData();
+        data.id = id;
+        data.description = description;
+        data.dueDate = LocalDate.of(2025, 3, 10);
+        data.priority = 3;
+        return data;
+    }
+
+    private static byte[] write(List<TaskData> tasks) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryTaskCodec.write(out, tasks);
+        return out.toByteArray();
+    }
+
+    private static List<TaskData> read(byte[] bytes) throws IOException {
+        List<TaskData> tasks = new ArrayList<>();
+        BinaryTaskCodec.read(new ByteArrayInputStream(bytes), tasks::add);
+        return tasks;
+    }
+
+    // 以指定版本與內容組出完整快照（檢查碼依內容重算）
+    private static byte[] snapshot(short version, int taskCount, int stringCount, byte[] content) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x50485442);
+        out.writeShort(version);
+        out.writeInt(taskCount);
+        out.writeInt(stringCount);
+        out.writeLong(content.length);
+        out.writeInt((int) crc.getValue());
+        out.write(content);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        BinaryTaskCodec.writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,83 @@
+package tw.ntou.pettracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.service.ClockService;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 日期時鐘測試 - 以手動前進的時鐘確認換日只通知一次，逾期判斷跟著快取的日期
+ */
+public class ClockServiceTest {
+    private final ClockService clock = ClockService.getInstance();
+    private Consumer<LocalDate> listener;
+
+    /** 手動前進的時鐘 */
+    private static class ManualClock extends Clock {
+        Instant instant;
+
+        ManualClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+
+    @After
+    public void restoreSystemClock() {
+        if (listener != null) {
+            clock.removeRolloverListener(listener);
+        }
+        clock.setClock(Clock.systemDefaultZone());
+    }
+
+    @Test
+    public void rolloverFiresOncePerDay() {
+        ManualClock manual = new ManualClock(Instant.parse("2025-03-01T23:59:00Z"));
+        clock.setClock(manual);
+        List<LocalDate> rollovers = new ArrayList<>();
+        listener = rollovers::add;
+        clock.addRolloverListener(listener);
+
+        Task task = new Task("報告", LocalDate.of(2025, 3, 1), 1);
+        assertTrue(task.isDueToday());
+        assertFalse(task.isOverdue());
+
+        manual.instant = Instant.parse("2025-03-02T00:00:01Z");
+        clock.refresh();
+        clock.refresh();
+        manual.instant = Instant.parse("2025-03-02T12:00:00Z");
+        clock.refresh();
+
+        assertEquals(List.of(LocalDate.of(2025, 3, 2)), rollovers);
+        assertEquals(LocalDate.of(2025, 3, 2), clock.today());
+        assertTrue(task.isOverdue());
+        assertFalse(task.isDueToday());
+    }
+}
@@ -0,0 +1,118 @@
+package tw.ntou.pettracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.Before;
+import org.junit.Test;
+import tw.ntou.pettracker.controller.FilterController;
+import tw.ntou.pettracker.model.TagIndex;
+import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskSearchIndex;
+import tw.ntou.pettracker.model.TaskSlots;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 搜尋排程測試 - 背景查詢的結果只有最新的查詢會套用，被後來的輸入取代的結果
+ * 晚到也不會蓋掉表格；dispose 之後不再排入或套用任何查詢；清單只調整順序時不重新查詢；
+ * 「#a #b」只列出同時有兩個標籤的任務
+ */
+public class FilterControllerTest {
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 10);
+
+    // 代替 FX 執行緒：查詢結果先排在這裡，由測試決定何時、依什麼順序執行
+    private final BlockingQueue<Runnable> fxThread = new LinkedBlockingQueue<>();
+    private ObservableList<Task> tasks;
+    private Task report;
+    private Task gym;
+    private FilterController controller;
+
+    @Before
+    public void setUp() {
+        report = new Task("寫期末報告", TODAY, 2);
+        gym = new Task("去健身房", TODAY, 3);
+        tasks = FXCollections.observableArrayList(report, gym);
+        TaskSlots slots = new TaskSlots(tasks);
+        controller = FilterController.create(tasks, fxThread::add);
+        controller.setTaskSlots(slots);
+        controller.setSearchIndex(TaskSearchIndex.create(slots));
+        controller.setTagIndex(TagIndex.create(slots));
+    }
+
+    @Test
+    public void supersededResultArrivingLateIsDropped() throws Exception {
+        controller.search("報告");
+        Runnable stale = nextResult();
+        controller.search("健身");
+        Runnable latest = nextResult();
+
+        latest.run();
+        assertEquals(List.of(gym), List.copyOf(controller.getFilteredTasks()));
+        stale.run();
+        assertEquals(List.of(gym), List.copyOf(controller.getFilteredTasks()));
+    }
+
+    @Test
+    public void supersededResultArrivingFirstIsDropped() throws Exception {
+        controller.search("報告");
+        Runnable stale = nextResult();
+        controller.search("健身");
+
+        stale.run();
+        assertEquals(List.of(report, gym), List.copyOf(controller.getFilteredTasks()));
+        nextResult().run();
+        assertEquals(List.of(gym), List.copyOf(controller.getFilteredTasks()));
+    }
+
+    @Test
+    public void disposeDropsPendingAndLaterQueries() throws Exception {
+        controller.search("報告");
+        Runnable pending = nextResult();
+        controller.dispose();
+        pending.run();
+        controller.search("健身");
+
+        assertEquals(List.of(report, gym), List.copyOf(controller.getFilteredTasks()));
+        assertNull(fxThread.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void reorderingDoesNotSearchAgain() throws Exception {
+        controller.search("報告");
+        nextResult().run();
+        FXCollections.sort(tasks, Comparator.comparing(Task::getDescription));
+        assertNull(fxThread.poll(500, TimeUnit.MILLISECONDS));
+
+        Task draft = new Task("報告草稿", TODAY, 1);
+        tasks.add(draft);
+        nextResult().run();
+        assertEquals(List.of(report, draft), List.copyOf(controller.getFilteredTasks()));
+    }
+
+    @Test
+    public void tagTermsMustAllMatch() throws Exception {
+        report.setTags("學校 急件");
+        gym.setTags("學校");
+        controller.search("#學校");
+        nextResult().run();
+        assertEquals(List.of(report, gym), List.copyOf(controller.getFilteredTasks()));
+        controller.search("#學校 #急件");
+        nextResult().run();
+        assertEquals(List.of(report), List.copyOf(controller.getFilteredTasks()));
+    }
+
+    private Runnable nextResult() throws InterruptedException {
+        Runnable result = fxThread.poll(5, TimeUnit.SECONDS);
+        assertNotNull("背景查詢沒有送回結果", result);
+        return result;
+    }
+}
@@ -0,0 +1,131 @@
+package tw.ntou.pettracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import tw.ntou.pettracker.model.RecurrenceRule;
+import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskOccurrences;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 重複規則測試 - 確認 RRULE 的展開結果，以及已建立的任務與規則展開的發生日不重複
+ */
+public class RecurrenceRuleTest {
+    // 2025-03-03 是週一
+    private static final LocalDate MONDAY = LocalDate.of(2025, 3, 3);
+
+    @Test
+    public void everyOtherWeekOnMondayAndWednesday() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,WE");
+        assertEquals(List.of(MONDAY, MONDAY.plusDays(2), MONDAY.plusDays(14), MONDAY.plusDays(16)),
+                collect(rule.between(MONDAY, MONDAY, MONDAY.plusDays(20))));
+        // 從很久之後開始查詢時直接跳到該週期
+        assertEquals(MONDAY.plusWeeks(200), rule.next(MONDAY, MONDAY.plusWeeks(199)));
+    }
+
+    @Test
+    public void monthlyBySetPosition() {
+        RecurrenceRule second = RecurrenceRule.parse("FREQ=MONTHLY;BYDAY=2TU");
+        assertEquals(LocalDate.of(2025, 3, 11), second.next(MONDAY, MONDAY));
+        assertEquals(LocalDate.of(2025, 4, 8), second.next(MONDAY, LocalDate.of(2025, 3, 11)));
+
+        RecurrenceRule lastFriday = RecurrenceRule.parse("RRULE:FREQ=MONTHLY;BYDAY=-1FR");
+        assertEquals(LocalDate.of(2025, 3, 28), lastFriday.next(MONDAY, MONDAY));
+        assertEquals("FREQ=MONTHLY;BYDAY=FR;BYSETPOS=-1", lastFriday.toString());
+        assertEquals(lastFriday, RecurrenceRule.parse(lastFriday.toString()));
+    }
+
+    @Test
+    public void monthlyClampsToEndOfMonthAndStopsAtUntil() {
+        LocalDate jan31 = LocalDate.of(2025, 1, 31);
+        assertEquals(LocalDate.of(2025, 2, 28), RecurrenceRule.MONTHLY.next(jan31, jan31));
+        assertEquals(LocalDate.of(2025, 3, 31), RecurrenceRule.MONTHLY.next(jan31, LocalDate.of(2025, 2, 28)));
+
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;UNTIL=20250305");
+        assertEquals(3, collect(rule.between(MONDAY, MONDAY, null)).size());
+        assertNull(rule.next(MONDAY, LocalDate.of(2025, 3, 5)));
+    }
+
+    @Test
+    public void rejectsCombinationsItCannotExpand() {
+        String[] invalid = {
+                "FREQ=MONTHLY;BYDAY=1MO,3FR",
+                "FREQ=MONTHLY;BYDAY=2TU;BYSETPOS=3",
+                "FREQ=DAILY;BYDAY=MO",
+                "FREQ=YEARLY;BYDAY=FR",
+                "FREQ=WEEKLY;BYDAY=2TU",
+                "FREQ=WEEKLY;BYDAY=MO;BYSETPOS=1",
+                "FREQ=MONTHLY;BYSETPOS=2",
+        };
+        for (String rule : invalid) {
+            try {
+                RecurrenceRule.parse(rule);
+                fail("應拒絕: " + rule);
+            } catch (IllegalArgumentException expected) {
+                // 預期
+            }
+        }
+        // 多個星期搭配 BYSETPOS 仍可使用：每月最後一個工作日
+        RecurrenceRule lastWorkday = RecurrenceRule.parse("FREQ=MONTHLY;BYDAY=MO,TU,WE,TH,FR;BYSETPOS=-1");
+        assertEquals(LocalDate.of(2025, 3, 31), lastWorkday.next(MONDAY, MONDAY));
+        assertEquals(LocalDate.of(2025, 5, 30), lastWorkday.next(MONDAY, LocalDate.of(2025, 4, 30)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownField() {
+        RecurrenceRule.parse("FREQ=WEEKLY;COUNT=3");
+    }
+
+    @Test
+    public void weekdaysSkipWeekend() {
+        Task task = new Task("站立會議", LocalDate.of(2025, 3, 7), 3);
+        task.setRepeatPattern(Task.RepeatPattern.WEEKDAYS);
+        Task next = task.createNextRepeatInstance();
+        assertEquals(LocalDate.of(2025, 3, 10), next.getDueDate());
+        assertEquals(task.getId(), next.getSeriesKey());
+    }
+
+    @Test
+    public void occurrencesMergeMaterializedAndVirtual() {
+        Task done = new Task("運動", MONDAY, 2);
+        done.setRepeatPattern(Task.RepeatPattern.CUSTOM);
+        done.setRecurrence("FREQ=WEEKLY;BYDAY=MO,TH");
+        Task open = done.createNextRepeatInstance();
+        done.setDone(true);
+        List<Task> tasks = List.of(done, open);
+
+        List<TaskOccurrences.Occurrence> week = TaskOccurrences.between(tasks, MONDAY, MONDAY.plusDays(10));
+        List<LocalDate> dates = new ArrayList<>();
+        for (TaskOccurrences.Occurrence o : week) {
+            dates.add(o.date);
+        }
+        assertEquals(List.of(MONDAY, MONDAY.plusDays(3), MONDAY.plusDays(7), MONDAY.plusDays(10)), dates);
+        assertTrue(week.get(0).isDone());
+        assertTrue(week.get(1).materialized);
+        assertFalse(week.get(2).materialized);
+
+        assertTrue(TaskOccurrences.hasOccurrence(tasks, done.getSeriesKey(), MONDAY.plusDays(3)));
+        assertTrue(TaskOccurrences.recursBetween(open, MONDAY.plusDays(4), MONDAY.plusDays(7)));
+        assertFalse(TaskOccurrences.recursBetween(open, MONDAY.plusDays(4), MONDAY.plusDays(6)));
+
+        // 目前這次（週四）已逾期的系列不算即將到來
+        assertTrue(TaskOccurrences.recursSoon(open, MONDAY.plusDays(3), MONDAY.plusDays(9)));
+        assertFalse(TaskOccurrences.recursSoon(open, MONDAY.plusDays(4), MONDAY.plusDays(10)));
+    }
+
+    private static List<LocalDate> collect(Iterable<LocalDate> dates) {
+        List<LocalDate> list = new ArrayList<>();
+        for (LocalDate date : dates) {
+            list.add(date);
+        }
+        return list;
+    }
+}
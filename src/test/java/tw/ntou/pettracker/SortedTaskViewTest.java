@@ -0,0 +1,146 @@
+package tw.ntou.pettracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import org.junit.Test;
+import tw.ntou.pettracker.model.SortedTaskView;
+import tw.ntou.pettracker.model.Task;
+
+import java.text.Collator;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * 排序檢視測試 - 隨機新增、移除、修改欄位與切換排序後，檢視保持有序，
+ * 且依變更通知重建的複本與檢視一致（單一任務變更只送出一段重排）
+ */
+public class SortedTaskViewTest {
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 10);
+    private static final String[] NAMES = {"買牛奶", "apple", "Banana", "寫報告", "健身", "cherry"};
+
+    @Test
+    public void staysSortedAndConsistentWithChanges() {
+        Random random = new Random(5);
+        ObservableList<Task> tasks = FXCollections.observableArrayList();
+        FilteredList<Task> filtered = new FilteredList<>(tasks);
+        SortedTaskView view = new SortedTaskView(filtered);
+        List<Task> mirror = new ArrayList<>();
+        view.addListener((ListChangeListener<Task>) c -> {
+            while (c.next()) {
+                if (c.wasPermutated()) {
+                    List<Task> copy = new ArrayList<>(mirror.subList(c.getFrom(), c.getTo()));
+                    for (int i = c.getFrom(); i < c.getTo(); i++) {
+                        mirror.set(c.getPermutation(i), copy.get(i - c.getFrom()));
+                    }
+                } else if (!c.wasUpdated()) {
+                    mirror.subList(c.getFrom(), c.getFrom() + c.getRemovedSize()).clear();
+                    mirror.addAll(c.getFrom(), c.getAddedSubList());
+                }
+            }
+        });
+
+        SortedTaskView.Order[] orders = SortedTaskView.Order.values();
+        for (int round = 0; round < 3000; round++) {
+            int op = random.nextInt(20);
+            if (op < 7 || tasks.isEmpty()) {
+                tasks.add(random.nextInt(tasks.size() + 1), randomTask(random, round));
+            } else if (op < 15) {
+                edit(random, tasks.get(random.nextInt(tasks.size())));
+            } else if (op < 17) {
+                tasks.remove(random.nextInt(tasks.size()));
+            } else if (op < 18) {
+                int priority = random.nextInt(5) + 1;
+                filtered.setPredicate(random.nextBoolean() ? null : t -> t.getPriority() != priority);
+            } else {
+                view.setOrder(random.nextInt(4) == 0 ? null : orders[random.nextInt(orders.length)]);
+            }
+            if (round % 50 == 0) {
+                check(view, filtered, mirror);
+            }
+        }
+        check(view, filtered, mirror);
+    }
+
+    @Test
+    public void singleEditMovesOneRow() {
+        Random random = new Random(9);
+        ObservableList<Task> tasks = FXCollections.observableArrayList();
+        for (int i = 0; i < 1000; i++) {
+            tasks.add(randomTask(random, i));
+        }
+        SortedTaskView view = new SortedTaskView(tasks);
+        view.setOrder(SortedTaskView.Order.DUE_DATE);
+        List<ListChangeListener.Change<? extends Task>> changes = new ArrayList<>();
+        view.addListener((ListChangeListener<Task>) c -> {
+            while (c.next()) {
+                assertTrue(c.wasPermutated());
+                assertTrue(c.getTo() - c.getFrom() <= view.size());
+            }
+            changes.add(c);
+        });
+        Task task = view.get(0);
+        task.setDueDate(TODAY.plusDays(100));
+        assertEquals(1, changes.size());
+        assertSame(task, view.get(view.size() - 1));
+    }
+
+    private static Task randomTask(Random random, int i) {
+        Task task = new Task(NAMES[random.nextInt(NAMES.length)] + " " + i,
+                TODAY.plusDays(random.nextInt(15) - 7), random.nextInt(5) + 1);
+        task.setCategory(Task.TaskCategory.values()[random.nextInt(Task.TaskCategory.values().length)]);
+        return task;
+    }
+
+    private static void edit(Random random, Task task) {
+        switch (random.nextInt(5)) {
+            case 0: task.setPriority(random.nextInt(5) + 1); break;
+            case 1: task.setDone(!task.isDone()); break;
+            case 2: task.setDueDate(TODAY.plusDays(random.nextInt(15) - 7)); break;
+            case 3: task.setDescription(NAMES[random.nextInt(NAMES.length)]); break;
+            default: task.setCategory(Task.TaskCategory.values()[random.nextInt(Task.TaskCategory.values().length)]); break;
+        }
+    }
+
+    private static void check(SortedTaskView view, List<Task> source, List<Task> mirror) {
+        assertEquals(source.size(), view.size());
+        assertEquals(new ArrayList<>(view), mirror);
+        if (view.getOrder() == null) {
+            assertEquals(source, new ArrayList<>(view));
+            return;
+        }
+        Comparator<Task> expected = comparator(view.getOrder());
+        for (int i = 1; i < view.size(); i++) {
+            assertTrue(view.getOrder() + " at " + i, expected.compare(view.get(i - 1), view.get(i)) <= 0);
+        }
+        for (Task task : source) {
+            assertTrue(view.contains(task));
+        }
+    }
+
+    private static Comparator<Task> comparator(SortedTaskView.Order order) {
+        switch (order) {
+            case PRIORITY:
+                return Comparator.comparing(Task::getPriority).thenComparing(Task::getDueDate);
+            case NAME:
+                Collator collator = Collator.getInstance(Locale.TAIWAN);
+                collator.setStrength(Collator.SECONDARY);
+                return Comparator.comparing(Task::getDescription, collator);
+            case DONE:
+                return Comparator.comparing(Task::isDone).thenComparing(Task::getDueDate);
+            case CATEGORY:
+                return Comparator.comparing(Task::getCategory).thenComparing(Task::getDueDate);
+            default:
+                return Comparator.comparing(Task::getDueDate).thenComparing(Task::getPriority);
+        }
+    }
+}
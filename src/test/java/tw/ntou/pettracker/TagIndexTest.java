@@ -0,0 +1,132 @@
+package tw.ntou.pettracker;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.Test;
+import tw.ntou.pettracker.model.TagDictionary;
+import tw.ntou.pettracker.model.TagIndex;
+import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskSlots;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 標籤測試 - 字典的解析與 id 分配，索引跟著任務清單、tags 欄位變更同步，
+ * 以及各標籤的任務數與多標籤交集
+ */
+public class TagIndexTest {
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 10);
+    private final TagDictionary dictionary = TagDictionary.getInstance();
+
+    @Test
+    public void parseSplitsOnSeparatorsAndDropsDuplicates() {
+        int[] ids = dictionary.parse("學校, 報告；#Urgent  學校 urgent");
+        assertEquals(3, ids.length);
+        assertEquals("學校", dictionary.nameOf(ids[0]));
+        assertEquals("報告", dictionary.nameOf(ids[1]));
+        assertEquals("urgent", dictionary.nameOf(ids[2]));
+        assertEquals(0, dictionary.parse(null).length);
+        assertEquals(0, dictionary.parse("  ").length);
+    }
+
+    @Test
+    public void internIsCaseInsensitiveAndStable() {
+        int id = dictionary.intern("TagIndexTest-Stable");
+        assertEquals(id, dictionary.intern("tagindextest-stable"));
+        assertEquals(id, dictionary.idOf("TAGINDEXTEST-STABLE"));
+        assertEquals(-1, dictionary.idOf("tagindextest-never-added"));
+        assertArrayEquals(new int[] {id}, dictionary.parse("#TagIndexTest-Stable"));
+    }
+
+    @Test
+    public void indexFollowsListAndTagChanges() {
+        Task a = task("a", "work home");
+        Task b = task("b", "work");
+        Task c = task("c", null);
+        ObservableList<Task> tasks = FXCollections.observableArrayList(a, b);
+        TaskSlots slots = new TaskSlots(tasks);
+        TagIndex index = TagIndex.create(slots);
+        tasks.add(c);
+
+        assertEquals(Set.of(a, b), tasksIn(slots, index.slotsWithTag("WORK")));
+        assertEquals(Set.of(a), tasksIn(slots, index.slotsWithTag("home")));
+
+        b.setTags("home");
+        c.setTags("#workshop");
+        assertEquals(Set.of(a), tasksIn(slots, index.slotsWithTag("work")));
+        assertEquals(Set.of(a, b), tasksIn(slots, index.slotsWithTag("home")));
+        assertEquals(Set.of(a, c), tasksIn(slots, index.slotsWithTagContaining("WORK")));
+
+        int freed = slots.slotOf(a);
+        tasks.remove(a);
+        assertEquals(-1, slots.slotOf(a));
+        assertTrue(index.slotsWithTag("work").isEmpty());
+        a.setTags("home");
+        assertEquals(Set.of(b), tasksIn(slots, index.slotsWithTag("home")));
+
+        // 空出的 slot 會重用
+        Task d = task("d", "home");
+        tasks.add(d);
+        assertEquals(freed, slots.slotOf(d));
+        assertSame(d, slots.taskAt(freed));
+        assertEquals(Set.of(b, d), tasksIn(slots, index.slotsWithTag("home")));
+    }
+
+    @Test
+    public void movingTaskInOneChangeKeepsItIndexed() {
+        Task a = task("a", "tagindextest-move");
+        Task b = task("b", null);
+        ObservableList<Task> tasks = FXCollections.observableArrayList(a, b);
+        TaskSlots slots = new TaskSlots(tasks);
+        TagIndex index = TagIndex.create(slots);
+
+        tasks.setAll(List.of(b, a));
+        assertEquals(Set.of(a), tasksIn(slots, index.slotsWithTag("tagindextest-move")));
+        a.setTags(null);
+        assertTrue(index.slotsWithTag("tagindextest-move").isEmpty());
+    }
+
+    @Test
+    public void countsTagsWithinRows() {
+        Task a = task("a", "tagindextest-x tagindextest-y");
+        Task b = task("b", "tagindextest-x");
+        Task c = task("c", "tagindextest-y");
+        ObservableList<Task> tasks = FXCollections.observableArrayList(a, b, c);
+        TaskSlots slots = new TaskSlots(tasks);
+        TagIndex index = TagIndex.create(slots);
+
+        assertEquals(Map.of("tagindextest-x", 2, "tagindextest-y", 2), index.tagCounts(null));
+        assertEquals(2, index.countWithTag("TagIndexTest-X"));
+        assertEquals(0, index.countWithTag("tagindextest-never-added"));
+        assertEquals(Set.of(a), tasksIn(slots, index.slotsWithAllTags(List.of("tagindextest-x", "tagindextest-y"))));
+        assertTrue(index.slotsWithAllTags(List.of()).isEmpty());
+
+        BitSet within = new BitSet();
+        within.set(slots.slotOf(b));
+        within.set(slots.slotOf(c));
+        assertEquals(Map.of("tagindextest-x", 1, "tagindextest-y", 1), index.tagCounts(within));
+        // 沒有任務的標籤不列出
+        c.setTags(null);
+        assertEquals(Map.of("tagindextest-x", 1), index.tagCounts(within));
+    }
+
+    private static Set<Task> tasksIn(TaskSlots slots, BitSet rows) {
+        return new HashSet<>(slots.tasksIn(rows));
+    }
+
+    private static Task task(String description, String tags) {
+        Task task = new Task(description, TODAY, 3);
+        task.setTags(tags);
+        return task;
+    }
+}
@@ -0,0 +1,68 @@
+package tw.ntou.pettracker;
+
+import static org.junit.Assert.assertEquals;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.Test;
+import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskFilterIndex;
+import tw.ntou.pettracker.model.TaskSlots;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.function.Predicate;
+
+/**
+ * 點陣圖索引測試 - 隨機新增、修改、移除任務後，各 BitSet 與逐列條件的結果一致
+ */
+public class TaskFilterIndexTest {
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 10);
+
+    @Test
+    public void bitmapsMatchPredicatesAfterRandomEdits() {
+        Random random = new Random(11);
+        ObservableList<Task> tasks = FXCollections.observableArrayList();
+        TaskFilterIndex index = TaskFilterIndex.create(new TaskSlots(tasks));
+        for (int round = 0; round < 3000; round++) {
+            int op = random.nextInt(10);
+            if (op < 4 || tasks.isEmpty()) {
+                Task task = new Task("任務 " + round, TODAY.plusDays(random.nextInt(15) - 7), random.nextInt(5) + 1);
+                tasks.add(random.nextInt(tasks.size() + 1), task);
+            } else if (op < 8) {
+                Task task = tasks.get(random.nextInt(tasks.size()));
+                switch (random.nextInt(4)) {
+                    case 0: task.setPriority(random.nextInt(5) + 1); break;
+                    case 1: task.setDone(!task.isDone()); break;
+                    case 2: task.setDueDate(TODAY.plusDays(random.nextInt(15) - 7)); break;
+                    default: task.setCategory(Task.TaskCategory.values()[random.nextInt(Task.TaskCategory.values().length)]); break;
+                }
+            } else {
+                tasks.remove(random.nextInt(tasks.size()));
+            }
+        }
+
+        assertSame(index, tasks, index.all(), t -> true);
+        assertSame(index, tasks, index.open(), t -> !t.isDone());
+        assertSame(index, tasks, index.withPriority(2), t -> t.getPriority() == 2);
+        assertSame(index, tasks, index.withCategory(Task.TaskCategory.STUDY), t -> t.getCategory() == Task.TaskCategory.STUDY);
+        assertSame(index, tasks, index.dueOn(TODAY), t -> t.getDueDate().equals(TODAY));
+        assertSame(index, tasks, index.dueBefore(TODAY), t -> t.getDueDate().isBefore(TODAY));
+        assertSame(index, tasks, index.dueBetween(TODAY.plusDays(1), TODAY.plusDays(6)),
+                t -> t.getDueDate().isAfter(TODAY) && t.getDueDate().isBefore(TODAY.plusDays(7)));
+        assertSame(index, tasks, index.dueSoon(TODAY, 3),
+                t -> !t.isDone() && t.getDueDate().isBefore(TODAY.plusDays(3)));
+    }
+
+    private static void assertSame(TaskFilterIndex index, ObservableList<Task> tasks, BitSet rows, Predicate<Task> predicate) {
+        int expected = 0;
+        for (Task task : tasks) {
+            assertEquals(task.getDescription(), predicate.test(task), index.contains(rows, task));
+            if (predicate.test(task)) {
+                expected++;
+            }
+        }
+        assertEquals(expected, rows.cardinality());
+    }
+}
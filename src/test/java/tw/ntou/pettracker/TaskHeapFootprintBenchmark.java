@@ -0,0 +1,82 @@
+package tw.ntou.pettracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import tw.ntou.pettracker.model.Task;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 任務記憶體基準 - 比較 100k 筆只有欄位值的任務與屬性全部建立後的堆積用量
+ * （只在 mvn test -Pbenchmarks 時執行）
+ */
+public class TaskHeapFootprintBenchmark {
+    private static final int TASK_COUNT = 100_000;
+
+    @Test
+    public void heapPerTask() {
+        long baseline = usedHeap();
+        List<Task> plain = createTasks();
+        long plainBytes = usedHeap() - baseline;
+        assertEquals(TASK_COUNT, plain.size());
+        plain = null;
+
+        baseline = usedHeap();
+        List<Task> materialized = createTasks();
+        for (Task task : materialized) {
+            materializeAll(task);
+        }
+        long materializedBytes = usedHeap() - baseline;
+        assertEquals(TASK_COUNT, materialized.size());
+
+        System.out.println("任務堆積用量（" + TASK_COUNT + " 筆，bytes/筆）");
+        System.out.printf("  只有欄位     %6d%n", plainBytes / TASK_COUNT);
+        System.out.printf("  屬性全部建立 %6d%n", materializedBytes / TASK_COUNT);
+        assertTrue(plainBytes < materializedBytes);
+    }
+
+    private static List<Task> createTasks() {
+        List<Task> tasks = new ArrayList<>(TASK_COUNT);
+        for (int i = 0; i < TASK_COUNT; i++) {
+            Task task = new Task("任務 " + (i % 500), LocalDate.of(2025, 1, 1).plusDays(i % 365), i % 5 + 1);
+            task.setTags("tag" + (i % 20));
+            task.setEstimatedMinutes(30 + i % 60);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static void materializeAll(Task task) {
+        task.descriptionProperty();
+        task.doneProperty();
+        task.dueDateProperty();
+        task.priorityProperty();
+        task.remindProperty();
+        task.remindAtProperty();
+        task.tagsProperty();
+        task.categoryProperty();
+        task.repeatPatternProperty();
+        task.colorTagProperty();
+        task.estimatedMinutesProperty();
+        task.actualMinutesProperty();
+        task.completedAtProperty();
+        task.getSubTasks();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,138 @@
+package tw.ntou.pettracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import tw.ntou.pettracker.model.TaskData;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+/**
+ * 任務日誌測試 - 重播到快照上的結果、排隊中紀錄的合併、壓縮成功與失敗時日誌的去留
+ */
+public class TaskJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private TaskJournal journal;
+
+    @Before
+    public void setUp() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.registerModule(TaskDataJsonCodec.module());
+        file = new File(folder.getRoot(), "tasks.journal");
+        journal = new TaskJournal(file, mapper);
+    }
+
+    @Test
+    public void replayAppliesUpsertsAndDeletesInSnapshotOrder() {
+        List<TaskData> snapshot = List.of(task("a", "買牛奶"), task("b", "寫報告"), task("c", "健身"));
+        journal.recordUpsert(task("b", "寫期末報告"));
+        journal.recordDelete("c");
+        journal.recordUpsert(task("d", "新任務"));
+        journal.awaitFlush();
+
+        List<TaskData> replayed = journal.replay(snapshot);
+        assertEquals(List.of("a", "b", "d"), ids(replayed));
+        assertEquals("寫期末報告", replayed.get(1).description);
+        assertTrue(journal.hasChanges());
+    }
+
+    @Test
+    public void pendingEntriesForTheSameTaskAreCoalesced() throws Exception {
+        // 讓寫入執行緒卡在壓縮中，之後的紀錄都留在排隊區
+        CountDownLatch release = new CountDownLatch(1);
+        journal.compact(List.of(), tasks -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        });
+        for (int i = 0; i < 5; i++) {
+            journal.recordUpsert(task("a", "第 " + i + " 版"));
+        }
+        journal.recordUpsert(task("b", "另一個任務"));
+        release.countDown();
+        journal.awaitFlush();
+
+        assertEquals(2, Files.readAllLines(file.toPath()).size());
+        List<TaskData> replayed = journal.replay(List.of(task("a", "原本")));
+        assertEquals(List.of("a", "b"), ids(replayed));
+        assertEquals("第 4 版", replayed.get(0).description);
+    }
+
+    @Test
+    public void compactionClearsJournalButKeepsLaterEntries() throws Exception {
+        journal.recordUpsert(task("a", "壓縮前"));
+        journal.awaitFlush();
+        List<List<TaskData>> written = new ArrayList<>();
+        Future<?> compaction = journal.compact(List.of(task("a", "壓縮前")), written::add);
+        compaction.get();
+        journal.recordUpsert(task("b", "壓縮後"));
+        journal.awaitFlush();
+
+        assertEquals(1, written.size());
+        assertEquals(List.of("a", "b"), ids(journal.replay(written.get(0))));
+        assertEquals(1, Files.readAllLines(file.toPath()).size());
+        assertFalse(journal.needsCompaction());
+    }
+
+    @Test
+    public void failedCompactionKeepsJournal() throws Exception {
+        journal.recordUpsert(task("a", "要保留"));
+        journal.awaitFlush();
+        journal.compact(List.of(), tasks -> false).get();
+
+        assertTrue(file.exists());
+        assertTrue(journal.needsCompaction());
+        assertEquals(List.of("a"), ids(journal.replay(List.of())));
+    }
+
+    @Test
+    public void tornLastLineIsSkipped() throws Exception {
+        journal.recordUpsert(task("a", "完整紀錄"));
+        journal.awaitFlush();
+        Files.write(file.toPath(), "{\"op\":\"U\",\"id\":\"b\",\"ta".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        assertEquals(List.of("a"), ids(journal.replay(List.of())));
+    }
+
+    private static TaskData task(String id, String description) {
+        TaskData data = new TaskData();
+        data.id = id;
+        data.description = description;
+        data.dueDate = LocalDate.of(2025, 3, 10);
+        data.priority = 3;
+        return data;
+    }
+
+    private static List<String> ids(List<TaskData> tasks) {
+        List<String> ids = new ArrayList<>();
+        for (TaskData data : tasks) {
+            ids.add(data.id);
+        }
+        return ids;
+    }
+}
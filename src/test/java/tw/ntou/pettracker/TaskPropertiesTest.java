@@ -0,0 +1,41 @@
+package tw.ntou.pettracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import tw.ntou.pettracker.model.Task;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 任務屬性測試 - 延遲建立的屬性與欄位值、欄位變更通知一致
+ * （堆積用量的比較在 TaskHeapFootprintBenchmark）
+ */
+public class TaskPropertiesTest {
+
+    @Test
+    public void propertiesMirrorPlainFields() {
+        Task task = new Task("寫報告", LocalDate.of(2025, 3, 1), 2);
+        List<String> fields = new ArrayList<>();
+        task.addFieldChangeListener((t, field, ov, nv) -> fields.add(field));
+
+        task.setPriority(4);
+        task.setPriority(4);
+        assertEquals(List.of("priority"), fields);
+
+        // 屬性建立時帶入目前的值，之後兩邊的讀寫互通
+        assertEquals(4, task.priorityProperty().get());
+        task.priorityProperty().set(5);
+        assertEquals(5, task.getPriority());
+        task.setDescription("改寫報告");
+        assertEquals("改寫報告", task.descriptionProperty().get());
+        assertEquals(List.of("priority", "priority", "description"), fields);
+
+        assertTrue(!task.hasSubTasks());
+        task.getSubTasks().add(new Task.SubTask("草稿"));
+        assertEquals("subTasks", fields.get(fields.size() - 1));
+    }
+}
@@ -0,0 +1,107 @@
+package tw.ntou.pettracker;
+
+import static org.junit.Assert.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskData;
+import tw.ntou.pettracker.repository.JsonTaskRepository;
+import tw.ntou.pettracker.repository.SqlTaskRepository;
+import tw.ntou.pettracker.repository.TaskRepository;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 儲存庫查詢測試 - JSON 快照與 H2 資料庫的到期日、完成狀態、分類查詢結果一致，
+ * 都包含尚未整理的變更；刪除的任務不再被查到，也不會在串流載入時送出
+ */
+public class TaskRepositoryTest {
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 10);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ObjectMapper mapper;
+
+    @Before
+    public void setUp() {
+        mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.registerModule(TaskDataJsonCodec.module());
+    }
+
+    @Test
+    public void jsonRepositoryAnswersQueries() throws Exception {
+        TaskJournal journal = new TaskJournal(new File(folder.getRoot(), "tasks.journal"), mapper);
+        TaskRepository repository = new JsonTaskRepository(new File(folder.getRoot(), "tasks.json"), journal,
+                mapper.readerFor(TaskData.class),
+                mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, TaskData.class)));
+        try {
+            assertQueries(repository);
+        } finally {
+            repository.close();
+        }
+    }
+
+    @Test
+    public void sqlRepositoryAnswersQueries() throws Exception {
+        TaskRepository repository = new SqlTaskRepository(
+                "jdbc:h2:" + new File(folder.getRoot(), "tasks").getAbsolutePath(), mapper);
+        try {
+            assertQueries(repository);
+        } finally {
+            repository.close();
+        }
+    }
+
+    private void assertQueries(TaskRepository repository) throws Exception {
+        repository.saveAll(List.of(task("a", TODAY.minusDays(40), true, Task.TaskCategory.WORK),
+                task("b", TODAY, false, Task.TaskCategory.STUDY),
+                task("c", TODAY.plusDays(2), true, Task.TaskCategory.WORK))).get();
+        // 快照之後的變更只在日誌或資料表中
+        repository.upsert(task("d", TODAY.plusDays(1), false, Task.TaskCategory.WORK));
+        repository.upsert(task("b", TODAY, true, Task.TaskCategory.STUDY));
+
+        assertEquals(List.of("b", "d", "c"), ids(repository.findByDueDate(TODAY, TODAY.plusDays(2))));
+        assertEquals(List.of("a", "b", "c"), ids(repository.findByDone(true)));
+        assertEquals(List.of("d"), ids(repository.findByDone(false)));
+        assertEquals(List.of("a", "c", "d"), ids(repository.findByCategory(Task.TaskCategory.WORK)));
+
+        repository.delete("a");
+        repository.flush();
+        assertEquals(List.of("b", "c"), ids(repository.findByDone(true)));
+        List<String> streamed = new ArrayList<>();
+        List<String> order = repository.stream(TODAY, 10, batch -> streamed.addAll(ids(batch)));
+        assertEquals(List.of("b", "c", "d"), streamed);
+        assertEquals(List.of("b", "c", "d"), order);
+    }
+
+    private static TaskData task(String id, LocalDate dueDate, boolean done, Task.TaskCategory category) {
+        TaskData data = new TaskData();
+        data.id = id;
+        data.description = "任務 " + id;
+        data.dueDate = dueDate;
+        data.done = done;
+        data.priority = 3;
+        data.category = category;
+        return data;
+    }
+
+    private static List<String> ids(List<TaskData> tasks) {
+        List<String> ids = new ArrayList<>();
+        for (TaskData data : tasks) {
+            ids.add(data.id);
+        }
+        return ids;
+    }
+}
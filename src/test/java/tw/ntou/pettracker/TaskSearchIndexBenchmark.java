@@ -0,0 +1,79 @@
+package tw.ntou.pettracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.Test;
+import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskSearchIndex;
+import tw.ntou.pettracker.model.TaskSlots;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 全文索引基準 - 100k 筆任務時查詢結果與逐筆掃描一致，並量測建立與查詢時間
+ * （只在 mvn test -Pbenchmarks 時執行）
+ */
+public class TaskSearchIndexBenchmark {
+    private static final int TASK_COUNT = 100_000;
+    private static final String[] SUBJECTS = {"期末報告", "專案會議", "資料結構作業", "健身房", "買牛奶", "整理房間", "英文單字"};
+    private static final String[] WORDS = {"report", "meeting", "gym", "homework", "review", "deploy"};
+
+    @Test
+    public void searchMatchesScanAt100k() {
+        Random random = new Random(7);
+        List<Task> generated = new ArrayList<>(TASK_COUNT);
+        for (int i = 0; i < TASK_COUNT; i++) {
+            String text = SUBJECTS[random.nextInt(SUBJECTS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            generated.add(new Task(text, LocalDate.of(2025, 1, 1), i % 5 + 1));
+        }
+        ObservableList<Task> tasks = FXCollections.observableArrayList(generated);
+        long start = System.nanoTime();
+        TaskSlots slots = new TaskSlots(tasks);
+        TaskSearchIndex index = TaskSearchIndex.create(slots);
+        long buildNanos = System.nanoTime() - start;
+
+        String[] queries = {"報告", "資料結構", "會議 meet", "99999", "dep"};
+        for (String query : queries) {
+            assertEquals(query, scan(tasks, query), TaskSearchIndexTest.found(slots, index, tasks, query).size());
+        }
+
+        int rounds = 200;
+        start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            assertTrue(index.search("99999").cardinality() > 0);
+        }
+        long rareNanos = (System.nanoTime() - start) / rounds;
+        start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            index.search("資料結構 review");
+        }
+        long commonNanos = (System.nanoTime() - start) / rounds;
+
+        System.out.println("全文索引（" + TASK_COUNT + " 筆）");
+        System.out.printf("  建立索引          %8d µs%n", buildNanos / 1000);
+        System.out.printf("  查詢（罕見詞）    %8d µs%n", rareNanos / 1000);
+        System.out.printf("  查詢（常見詞交集）%8d µs%n", commonNanos / 1000);
+    }
+
+    // 每個以空白分開的詞都出現在描述中
+    private static int scan(List<Task> tasks, String query) {
+        int count = 0;
+        for (Task task : tasks) {
+            String text = task.getDescription().toLowerCase();
+            boolean all = true;
+            for (String term : query.split(" ")) {
+                all &= text.contains(term);
+            }
+            if (all) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,58 @@
+package tw.ntou.pettracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.Test;
+import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskSearchIndex;
+import tw.ntou.pettracker.model.TaskSlots;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 全文索引測試 - 中文 bigram 與英文字首查詢的結果，與任務變更後的增量更新
+ */
+public class TaskSearchIndexTest {
+    @Test
+    public void matchesCjkAndLatinTerms() {
+        ObservableList<Task> tasks = FXCollections.observableArrayList();
+        TaskSlots slots = new TaskSlots(tasks);
+        TaskSearchIndex index = TaskSearchIndex.create(slots);
+        Task report = new Task("寫期末報告 final report", LocalDate.of(2025, 3, 1), 2);
+        Task meeting = new Task("專案會議", LocalDate.of(2025, 3, 1), 3);
+        meeting.setTags("urgent,報告");
+        tasks.addAll(report, meeting);
+
+        assertEquals(List.of(report, meeting), found(slots, index, tasks, "報告"));
+        assertEquals(List.of(report), found(slots, index, tasks, "期末報告"));
+        assertEquals(List.of(), found(slots, index, tasks, "期報"));
+        assertEquals(List.of(report), found(slots, index, tasks, "REP"));
+        assertEquals(List.of(report), found(slots, index, tasks, "報告 fin"));
+        assertEquals(List.of(meeting), found(slots, index, tasks, "urg"));
+        assertNull(index.search("!!"));
+
+        // 欄位變更與移除後索引跟著更新
+        report.setDescription("繳交作業");
+        assertEquals(List.of(meeting), found(slots, index, tasks, "報告"));
+        assertEquals(List.of(report), found(slots, index, tasks, "作業"));
+        tasks.remove(meeting);
+        assertEquals(List.of(), found(slots, index, tasks, "urgent"));
+    }
+
+    static List<Task> found(TaskSlots slots, TaskSearchIndex index, List<Task> tasks, String query) {
+        BitSet hits = index.search(query);
+        List<Task> result = new ArrayList<>();
+        for (Task task : tasks) {
+            if (slots.contains(hits, task)) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+package tw.ntou.pettracker;
+
+import static org.junit.Assert.assertEquals;
+import static tw.ntou.pettracker.TaskSerializationTest.codecMapper;
+import static tw.ntou.pettracker.TaskSerializationTest.sampleTask;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.Test;
+import tw.ntou.pettracker.model.TaskData;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 任務序列化基準 - 比較反射式 Jackson、串流 JSON 與二進位快照的每筆任務成本
+ * （只在 mvn test -Pbenchmarks 時執行）
+ */
+public class TaskSerializationBenchmark {
+    private static final int TASK_COUNT = 20_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void perTaskSerializeCost() throws Exception {
+        List<TaskData> dataList = new ArrayList<>(TASK_COUNT);
+        for (int i = 0; i < TASK_COUNT; i++) {
+            dataList.add(TaskConverter.toData(sampleTask(i)));
+        }
+
+        ObjectMapper reflective = new ObjectMapper();
+        reflective.registerModule(new JavaTimeModule());
+        reflective.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        ObjectMapper streaming = codecMapper();
+
+        File file = File.createTempFile("tasks", ".bin");
+        file.deleteOnExit();
+
+        System.out.println("任務序列化成本（" + TASK_COUNT + " 筆，ns/筆）");
+        report("reflection JSON", reflective, dataList);
+        report("streaming JSON ", streaming, dataList);
+
+        long write = Long.MAX_VALUE;
+        long read = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            BinaryTaskCodec.write(file, dataList);
+            long mid = System.nanoTime();
+            List<TaskData> back = BinaryTaskCodec.read(file);
+            long end = System.nanoTime();
+            assertEquals(TASK_COUNT, back.size());
+            write = Math.min(write, mid - start);
+            read = Math.min(read, end - mid);
+        }
+        System.out.printf("  binary          寫入 %6d  讀取 %6d  大小 %d bytes%n",
+                write / TASK_COUNT, read / TASK_COUNT, file.length());
+    }
+
+    private static void report(String name, ObjectMapper mapper, List<TaskData> dataList) throws Exception {
+        ObjectWriter writer = mapper.writerFor(mapper.getTypeFactory()
+                .constructCollectionType(List.class, TaskData.class));
+        ObjectReader reader = mapper.readerFor(mapper.getTypeFactory()
+                .constructCollectionType(List.class, TaskData.class));
+
+        long write = Long.MAX_VALUE;
+        long read = Long.MAX_VALUE;
+        byte[] bytes = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            bytes = writer.writeValueAsBytes(dataList);
+            long mid = System.nanoTime();
+            List<TaskData> back = reader.readValue(bytes);
+            long end = System.nanoTime();
+            assertEquals(dataList.size(), back.size());
+            write = Math.min(write, mid - start);
+            read = Math.min(read, end - mid);
+        }
+        System.out.printf("  %s 寫入 %6d  讀取 %6d  大小 %d bytes%n",
+                name, write / dataList.size(), read / dataList.size(), bytes.length);
+    }
+}
@@ -0,0 +1,106 @@
+package tw.ntou.pettracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.Test;
+import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskData;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 任務序列化測試 - 串流 JSON 與二進位快照都能完整還原所有欄位
+ * （各格式的成本比較在 TaskSerializationBenchmark）
+ */
+public class TaskSerializationTest {
+
+    @Test
+    public void fullTaskRoundTrip() throws Exception {
+        Task task = sampleTask(7);
+        task.setDone(true);
+        task.setCompletedAt(LocalDateTime.of(2025, 5, 12, 21, 30));
+
+        ObjectMapper mapper = codecMapper();
+        String json = mapper.writeValueAsString(TaskConverter.toData(task));
+        Task restored = TaskConverter.fromData(mapper.readValue(json, TaskData.class));
+        assertSameTask(task, restored);
+
+        File file = File.createTempFile("tasks", ".bin");
+        file.deleteOnExit();
+        BinaryTaskCodec.write(file, List.of(TaskConverter.toData(task)));
+        assertSameTask(task, TaskConverter.fromData(BinaryTaskCodec.read(file).get(0)));
+    }
+
+    @Test
+    public void binarySnapshotIsSmallerThanJson() throws Exception {
+        List<TaskData> dataList = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            dataList.add(TaskConverter.toData(sampleTask(i)));
+        }
+        byte[] json = codecMapper().writeValueAsBytes(dataList);
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        BinaryTaskCodec.write(binary, dataList);
+        assertTrue(binary.size() < json.length);
+    }
+
+    static ObjectMapper codecMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.registerModule(TaskDataJsonCodec.module());
+        return mapper;
+    }
+
+    static Task sampleTask(int i) {
+        Task task = new Task("任務 " + (i % 500), LocalDate.of(2025, 1, 1).plusDays(i % 365), i % 5 + 1);
+        task.setTags("tag" + (i % 20));
+        task.setCategory(Task.TaskCategory.values()[i % Task.TaskCategory.values().length]);
+        task.setColorTag("#FF9800");
+        task.setEstimatedMinutes(30 + i % 60);
+        task.setActualMinutes(i % 45);
+        task.setRemind(i % 4 == 0);
+        task.setRemindAt(LocalDateTime.of(2025, 1, 1, 9, 0).plusHours(i % 100));
+        if (i % 3 == 0) {
+            task.setRepeatPattern(Task.RepeatPattern.WEEKLY);
+        }
+        if (i % 7 == 0) {
+            Task.SubTask subTask = new Task.SubTask("步驟 " + i);
+            subTask.setDone(true);
+            task.getSubTasks().addAll(subTask, new Task.SubTask("收尾"));
+        }
+        return task;
+    }
+
+    private static void assertSameTask(Task expected, Task actual) {
+        assertNotNull(actual);
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.isDone(), actual.isDone());
+        assertEquals(expected.getDueDate(), actual.getDueDate());
+        assertEquals(expected.getPriority(), actual.getPriority());
+        assertEquals(expected.isRemind(), actual.isRemind());
+        assertEquals(expected.getRemindAt(), actual.getRemindAt());
+        assertEquals(expected.getTags(), actual.getTags());
+        assertEquals(expected.getCategory(), actual.getCategory());
+        assertEquals(expected.getRepeatPattern(), actual.getRepeatPattern());
+        assertEquals(expected.getColorTag(), actual.getColorTag());
+        assertEquals(expected.getEstimatedMinutes(), actual.getEstimatedMinutes());
+        assertEquals(expected.getActualMinutes(), actual.getActualMinutes());
+        assertEquals(expected.getCompletedAt(), actual.getCompletedAt());
+        assertEquals(expected.getSubTasks().size(), actual.getSubTasks().size());
+        for (int i = 0; i < expected.getSubTasks().size(); i++) {
+            assertEquals(expected.getSubTasks().get(i).getDescription(), actual.getSubTasks().get(i).getDescription());
+            assertEquals(expected.getSubTasks().get(i).isDone(), actual.getSubTasks().get(i).isDone());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package tw.ntou.pettracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.Test;
+import tw.ntou.pettracker.model.TagIndex;
+import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskColumns;
+import tw.ntou.pettracker.model.TaskFilterIndex;
+import tw.ntou.pettracker.model.TaskSlots;
+import tw.ntou.pettracker.service.StatisticsService;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * slot 登記表測試 - 各索引共用同一組 slot，查出的 BitSet 直接取 AND；
+ * 空出的 slot 會重用，後登記的索引也拿到既有任務，欄式副本不把空出的列算進統計
+ */
+public class TaskSlotsTest {
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 10);
+
+    @Test
+    public void indexesShareSlotsAndReuseFreedOnes() {
+        Task a = task("a", 2, "taskslotstest-home");
+        Task b = task("b", 2, null);
+        Task c = task("c", 4, "taskslotstest-home");
+        ObservableList<Task> tasks = FXCollections.observableArrayList(a, b, c);
+        TaskSlots slots = new TaskSlots(tasks);
+        TagIndex tags = TagIndex.create(slots);
+        TaskFilterIndex filter = TaskFilterIndex.create(slots);
+
+        BitSet rows = filter.withPriority(2);
+        rows.and(tags.slotsWithTag("taskslotstest-home"));
+        assertEquals(List.of(a), slots.tasksIn(rows));
+
+        int freed = slots.slotOf(b);
+        tasks.remove(b);
+        assertNull(slots.taskAt(freed));
+        Task d = task("d", 2, "taskslotstest-home");
+        tasks.add(d);
+        assertEquals(freed, slots.slotOf(d));
+
+        rows = filter.withPriority(2);
+        rows.and(tags.slotsWithTag("taskslotstest-home"));
+        assertEquals(List.of(a, d), slots.tasksIn(rows));
+        assertEquals(slots.occupied(), filter.all());
+    }
+
+    @Test
+    public void columnsSkipFreedRows() {
+        Task a = task("a", 1, null);
+        Task b = task("b", 1, null);
+        Task c = task("c", 3, null);
+        a.setDone(true);
+        b.setDone(true);
+        ObservableList<Task> tasks = FXCollections.observableArrayList(a, b, c);
+        TaskSlots slots = new TaskSlots(tasks);
+        TaskColumns columns = TaskColumns.create(slots);
+
+        tasks.remove(b);
+        assertEquals(1, columns.countDone());
+        assertEquals(1, columns.countDone(1));
+        assertEquals(1, columns.countPendingDueOn(TODAY));
+        StatisticsService.TaskStatistics stats = StatisticsService.calculateStatistics(columns);
+        assertEquals(2, stats.totalTasks);
+        assertEquals(1, stats.completedTasks);
+
+        Task d = task("d", 5, null);
+        tasks.add(d);
+        assertSame(d, slots.taskAt(slots.slotOf(d)));
+        assertEquals(2, columns.countPendingDueOn(TODAY));
+        assertEquals(3, StatisticsService.calculateStatistics(columns).totalTasks);
+    }
+
+    private static Task task(String description, int priority, String tags) {
+        Task task = new Task(description, TODAY, priority);
+        task.setTags(tags);
+        return task;
+    }
+}
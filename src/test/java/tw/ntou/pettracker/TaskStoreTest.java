@@ -0,0 +1,208 @@
+package tw.ntou.pettracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import javafx.collections.ListChangeListener;
+import org.junit.Before;
+import org.junit.Test;
+import tw.ntou.pettracker.model.Task;
+import tw.ntou.pettracker.model.TaskStore;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 任務清單測試 - 整批替換只發出一次最小變更（只換位置時為重排），
+ * 依變更通知重建的複本與清單一致，batch 內的變更合併成一次通知
+ */
+public class TaskStoreTest {
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 10);
+
+    private TaskStore store;
+    private final List<Task> mirror = new ArrayList<>();
+    private final List<ListChangeListener.Change<? extends Task>> changes = new ArrayList<>();
+    private int removedCount;
+    private int addedCount;
+    private int permutations;
+
+    @Before
+    public void setUp() {
+        store = new TaskStore();
+        store.addListener((ListChangeListener<Task>) c -> {
+            changes.add(c);
+            while (c.next()) {
+                if (c.wasPermutated()) {
+                    permutations++;
+                    List<Task> copy = new ArrayList<>(mirror.subList(c.getFrom(), c.getTo()));
+                    for (int i = c.getFrom(); i < c.getTo(); i++) {
+                        mirror.set(c.getPermutation(i), copy.get(i - c.getFrom()));
+                    }
+                } else if (!c.wasUpdated()) {
+                    removedCount += c.getRemovedSize();
+                    addedCount += c.getAddedSize();
+                    mirror.subList(c.getFrom(), c.getFrom() + c.getRemovedSize()).clear();
+                    mirror.addAll(c.getFrom(), c.getAddedSubList());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void replaceWithSameTasksInNewOrderIsOnePermutation() {
+        List<Task> tasks = tasks(6);
+        store.addAll(tasks);
+        resetCounts();
+
+        List<Task> reversed = new ArrayList<>(tasks);
+        Collections.reverse(reversed);
+        store.replaceContents(reversed);
+
+        assertEquals(1, changes.size());
+        assertEquals(1, permutations);
+        assertEquals(0, removedCount + addedCount);
+        assertEquals(reversed, mirror);
+    }
+
+    @Test
+    public void replaceKeepingOrderOnlyReportsRemovedAndAdded() {
+        List<Task> tasks = tasks(6);
+        store.addAll(tasks);
+        resetCounts();
+
+        Task inserted = task("新任務");
+        List<Task> contents = new ArrayList<>(tasks);
+        contents.remove(4);
+        contents.remove(1);
+        contents.add(2, inserted);
+        store.replaceContents(contents);
+
+        assertEquals(1, changes.size());
+        assertEquals(2, removedCount);
+        assertEquals(1, addedCount);
+        assertEquals(contents, mirror);
+        assertSame(inserted, store.findById(inserted.getId()));
+        assertNull(store.findById(tasks.get(1).getId()));
+    }
+
+    @Test
+    public void replaceWithSameContentsFiresNothing() {
+        List<Task> tasks = tasks(4);
+        store.addAll(tasks);
+        resetCounts();
+
+        store.replaceContents(new ArrayList<>(tasks));
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void randomReplacementsStayConsistent() {
+        Random random = new Random(3);
+        List<Task> pool = tasks(40);
+        for (int round = 0; round < 500; round++) {
+            List<Task> contents = new ArrayList<>(store);
+            switch (random.nextInt(3)) {
+                case 0:
+                    Collections.shuffle(contents, random);
+                    break;
+                case 1:
+                    if (!contents.isEmpty()) {
+                        contents.remove(random.nextInt(contents.size()));
+                    }
+                    break;
+                default:
+                    Task task = pool.get(random.nextInt(pool.size()));
+                    if (!contents.contains(task)) {
+                        contents.add(random.nextInt(contents.size() + 1), task);
+                    }
+                    break;
+            }
+            resetCounts();
+            store.replaceContents(contents);
+            assertTrue(changes.size() <= 1);
+            assertEquals(contents, mirror);
+            assertEquals(contents, new ArrayList<>(store));
+            for (Task task : pool) {
+                assertEquals(contents.contains(task), store.containsId(task.getId()));
+            }
+        }
+    }
+
+    @Test
+    public void moveIsOnePermutationOfTheAffectedRange() {
+        List<Task> tasks = tasks(8);
+        store.addAll(tasks);
+        resetCounts();
+
+        store.move(1, 5);
+
+        assertEquals(1, changes.size());
+        ListChangeListener.Change<? extends Task> change = changes.get(0);
+        change.reset();
+        assertTrue(change.next());
+        assertTrue(change.wasPermutated());
+        assertEquals(1, change.getFrom());
+        assertEquals(6, change.getTo());
+        assertSame(tasks.get(1), store.get(5));
+        assertEquals(new ArrayList<>(store), mirror);
+    }
+
+    @Test
+    public void reorderRejectsDifferentTasks() {
+        List<Task> tasks = tasks(3);
+        store.addAll(tasks);
+        try {
+            store.reorder(0, List.of(tasks.get(0), tasks.get(1), task("其他")));
+            fail("重排的任務不同應丟出例外");
+        } catch (IllegalArgumentException expected) {
+            assertEquals(tasks, new ArrayList<>(store));
+        }
+    }
+
+    @Test
+    public void batchMergesChangesAndCommitsOnce() {
+        List<Task> tasks = tasks(5);
+        int[] commits = {0};
+        boolean[] inBatchDuringChange = {false};
+        store.addListener((ListChangeListener<Task>) c -> inBatchDuringChange[0] = store.isInBatch());
+        store.addBatchCommitListener(() -> commits[0]++);
+
+        store.batch(() -> {
+            store.addAll(tasks);
+            store.batch(() -> store.remove(tasks.get(2)));
+            store.move(0, 3);
+        });
+
+        assertEquals(1, changes.size());
+        assertEquals(1, commits[0]);
+        assertTrue(inBatchDuringChange[0]);
+        assertFalse(store.isInBatch());
+        assertEquals(new ArrayList<>(store), mirror);
+    }
+
+    private void resetCounts() {
+        changes.clear();
+        removedCount = 0;
+        addedCount = 0;
+        permutations = 0;
+    }
+
+    private static List<Task> tasks(int count) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(task("任務 " + i));
+        }
+        return tasks;
+    }
+
+    private static Task task(String description) {
+        return new Task(description, TODAY, 3);
+    }
+}
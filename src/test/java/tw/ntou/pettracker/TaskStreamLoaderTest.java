@@ -0,0 +1,87 @@
+package tw.ntou.pettracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import tw.ntou.pettracker.model.TaskData;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 串流載入測試 - 今日任務先送出，但回傳的順序與快照一致；快照讀到一半失敗時已讀到的任務照常送出
+ */
+public class TaskStreamLoaderTest {
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 10);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TaskJournal journal;
+
+    @Before
+    public void setUp() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.registerModule(TaskDataJsonCodec.module());
+        journal = new TaskJournal(new File(folder.getRoot(), "tasks.journal"), mapper);
+    }
+
+    @Test
+    public void todayFirstButReturnsStorageOrder() throws Exception {
+        List<TaskData> snapshot = List.of(task("a", TODAY.minusDays(1)), task("b", TODAY),
+                task("c", TODAY.plusDays(1)), task("d", TODAY));
+        journal.recordUpsert(task("e", TODAY));
+        journal.awaitFlush();
+
+        List<String> emitted = new ArrayList<>();
+        List<String> order = new TaskStreamLoader(journal, 2)
+                .load(consumer -> snapshot.forEach(consumer), TODAY, batch -> emitted.addAll(ids(batch)));
+
+        assertEquals(List.of("b", "d", "e", "a", "c"), emitted);
+        assertEquals(List.of("a", "b", "c", "d", "e"), order);
+    }
+
+    @Test
+    public void failedSnapshotStillDeliversReadTasks() {
+        List<String> emitted = new ArrayList<>();
+        try {
+            new TaskStreamLoader(journal, 10).load(consumer -> {
+                consumer.accept(task("a", TODAY));
+                consumer.accept(task("b", TODAY.plusDays(3)));
+                throw new IOException("格式錯誤");
+            }, TODAY, batch -> emitted.addAll(ids(batch)));
+            fail("讀取失敗應丟出 IOException");
+        } catch (IOException expected) {
+            assertEquals(List.of("a", "b"), emitted);
+        }
+    }
+
+    private static TaskData task(String id, LocalDate dueDate) {
+        TaskData data = new TaskData();
+        data.id = id;
+        data.description = "任務 " + id;
+        data.dueDate = dueDate;
+        data.priority = 3;
+        return data;
+    }
+
+    private static List<String> ids(List<TaskData> tasks) {
+        List<String> ids = new ArrayList<>();
+        for (TaskData data : tasks) {
+            ids.add(data.id);
+        }
+        return ids;
+    }
+}